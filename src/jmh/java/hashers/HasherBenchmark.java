@@ -0,0 +1,79 @@
+package hashers;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Cost of every hasher across key lengths, from the 4 byte keys of integer
+ * hash tables to 64 KB blocks.
+ *
+ * hash is the latency of one hash in ns. throughput counts the bytes hashed,
+ * its "bytes" line is in bytes per second, so GB/s is that over 1e9. Each
+ * fork only ever sees one hasher, so the call through HasherFamily.Function
+ * stays monomorphic and inlines.
+ *
+ * mvn -P jmh package && java -jar target/benchmarks.jar HasherBenchmark
+ * java -jar target/benchmarks.jar HasherBenchmark -p family=XXH3,WYHASH -p length=16,4096
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HasherBenchmark {
+	// every constant when not given on the command line
+	@Param
+	public HasherFamily family;
+
+	@Param({ "4", "8", "16", "32", "64", "256", "1024", "4096", "65536" })
+	public int length;
+
+	private HasherFamily.Function function;
+	private byte[] input;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Bytes {
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		function = family.function();
+		input = new byte[length];
+		new Random(42).nextBytes(input);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public long hash() {
+		return function.hash(input, 0, length, 0);
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.Throughput)
+	@OutputTimeUnit(TimeUnit.SECONDS)
+	public long throughput(Bytes counter) {
+		counter.bytes += length;
+		return function.hash(input, 0, length, 0);
+	}
+}
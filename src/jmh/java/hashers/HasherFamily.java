@@ -0,0 +1,53 @@
+package hashers;
+
+/**
+ * Every hasher in the package behind one byte hashing function, for the
+ * benchmark and the quality report. 32 bit hashes come back as unsigned longs.
+ */
+public enum HasherFamily {
+	AP(new APHasher()),
+	BKDR(new BKDRHasher()),
+	BUZ(new BUZHasher()),
+	CRC(new CRCHasher()),
+	DEK(new DEKHasher()),
+	DJB(new DJBHasher()),
+	DIVISION((Hasher32) new DivisionHasher(2147483647)),
+	ELF(new ELFHasher()),
+	FNV(new FNVHasher()),
+	JS(new JSHasher()),
+	KDIVISION((Hasher32) new KDivisionHasher(2147483647)),
+	PJW(new PJWHasher()),
+	RS(new RSHasher()),
+	SDBM(new SDBMHasher()),
+	ZOBRIST(new ZobristHasher()),
+	XXH64(new XXHasher()),
+	XXH3(new XXH3Hasher()),
+	MURMUR3(new Murmur3Hasher()),
+	WYHASH(new WyHasher());
+
+	@FunctionalInterface
+	public interface Function {
+		long hash(byte[] input, int offset, int length, long seed);
+	}
+
+	private final int bits;
+	private final Function function;
+
+	HasherFamily(Hasher64 hasher) {
+		bits = Long.SIZE;
+		function = hasher::hash64;
+	}
+
+	HasherFamily(Hasher32 hasher) {
+		bits = Integer.SIZE;
+		function = (input, offset, length, seed) -> hasher.hash32(input, offset, length, (int) seed) & 0xFFFFFFFFL;
+	}
+
+	public int bits() {
+		return bits;
+	}
+
+	public Function function() {
+		return function;
+	}
+}
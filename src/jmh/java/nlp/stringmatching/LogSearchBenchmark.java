@@ -0,0 +1,96 @@
+package nlp.stringmatching;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Finds every occurrence of a pattern in a synthetic ASCII log and hands each
+ * match offset to the Blackhole, the grep case the first/last filter is meant
+ * for. The SWAR filter runs over the raw bytes, the others over the decoded
+ * String.
+ *
+ * mvn -P jmh package && java -jar target/benchmarks.jar LogSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogSearchBenchmark {
+	private static final String[] LEVELS = { "DEBUG", "INFO", "INFO", "INFO", "WARN", "ERROR" };
+	private static final String[] MESSAGES = { "request served in %d ms", "cache miss for key user:%d",
+			"connection pool at %d%% capacity", "retrying upstream call, attempt %d", "disk usage above threshold on /dev/sda%d",
+			"session %d expired" };
+
+	@Param({ "ERROR", "threshold", "connection pool at 99% capacity" })
+	public String pattern;
+
+	@Param({ "16777216" })
+	public int logSize;
+
+	private String log;
+	private byte[] logBytes;
+	private FirstLastStringMatch.Compiled firstLast;
+	private HorspoolStringMatch.Compiled horspool;
+	private SundayStringMatch.Compiled sunday;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		StringBuilder sb = new StringBuilder(logSize + 128);
+		long time = 1_700_000_000_000L;
+		while (sb.length() < logSize) {
+			time += random.nextInt(1000);
+			sb.append(time).append(" [worker-").append(random.nextInt(32)).append("] ")
+					.append(LEVELS[random.nextInt(LEVELS.length)]).append(' ')
+					.append(String.format(MESSAGES[random.nextInt(MESSAGES.length)], random.nextInt(100))).append('\n');
+		}
+		log = sb.toString();
+		logBytes = log.getBytes(StandardCharsets.US_ASCII);
+
+		firstLast = FirstLastStringMatch.compile(pattern);
+		horspool = HorspoolStringMatch.compile(pattern);
+		sunday = SundayStringMatch.compile(pattern);
+	}
+
+	@Benchmark
+	public void firstLastBytes(Blackhole blackhole) {
+		firstLast.search(logBytes, blackhole::consume);
+	}
+
+	@Benchmark
+	public void firstLastChars(Blackhole blackhole) {
+		firstLast.search(log, blackhole::consume);
+	}
+
+	@Benchmark
+	public void horspool(Blackhole blackhole) {
+		horspool.search(log, blackhole::consume);
+	}
+
+	@Benchmark
+	public void sunday(Blackhole blackhole) {
+		sunday.search(log, blackhole::consume);
+	}
+
+	@Benchmark
+	public void stringIndexOf(Blackhole blackhole) {
+		for (int i = log.indexOf(pattern); i >= 0; i = log.indexOf(pattern, i + 1)) {
+			blackhole.consume(i);
+		}
+	}
+}
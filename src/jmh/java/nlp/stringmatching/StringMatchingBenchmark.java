@@ -0,0 +1,104 @@
+package nlp.stringmatching;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Throughput of every compiled matcher over random text, across alphabet
+ * sizes (2 is the worst case for the skip based algorithms, 256 the best) and
+ * pattern lengths. The pattern is cut out of the middle of the text, so there
+ * is at least one match, and search() reports every match to a Blackhole.
+ *
+ * mvn -P jmh package && java -jar target/benchmarks.jar StringMatchingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringMatchingBenchmark {
+	@Param({ "KMP", "MorrisPratt", "Horspool", "Sunday", "BruteForce", "Automaton", "Bitap", "RabinKarp", "FirstLast" })
+	public String algorithm;
+
+	@Param({ "2", "4", "26", "256" })
+	public int alphabetSize;
+
+	@Param({ "4", "16", "64", "256" })
+	public int patternLength;
+
+	@Param({ "1048576" })
+	public int textSize;
+
+	private String text;
+	private CompiledPattern pattern;
+	private IntConsumer sink;
+
+	@Setup
+	public void setup(Blackhole blackhole) {
+		Random random = new Random(42);
+		char[] chars = new char[textSize];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) ('a' + random.nextInt(alphabetSize));
+		}
+		text = new String(chars);
+
+		int start = (textSize - patternLength) / 2;
+		pattern = compile(algorithm, text.substring(start, start + patternLength));
+		sink = blackhole::consume;
+	}
+
+	private static CompiledPattern compile(String algorithm, String pattern) {
+		switch (algorithm) {
+		case "KMP":
+			return KMPStringMatch.compile(pattern);
+		case "MorrisPratt":
+			return MorrisPrattStringMatch.compile(pattern);
+		case "Horspool":
+			return HorspoolStringMatch.compile(pattern);
+		case "Sunday":
+			return SundayStringMatch.compile(pattern);
+		case "BruteForce":
+			return BruteForce.compile(pattern);
+		case "Automaton":
+			return AutomatonBasedSearch.compile(pattern);
+		case "Bitap":
+			return Bitap.compile(pattern);
+		case "RabinKarp":
+			return RabinKarpStringMatch.compile(pattern);
+		case "FirstLast":
+			return FirstLastStringMatch.compile(pattern);
+		default:
+			throw new IllegalArgumentException("Unknown algorithm " + algorithm);
+		}
+	}
+
+	@Benchmark
+	public void searchAll() {
+		pattern.search(text, sink);
+	}
+
+	@Benchmark
+	public int indexOf() {
+		return pattern.indexOf(text);
+	}
+
+	// Includes building the tables, for one shot searches
+	@Benchmark
+	public int compileAndIndexOf() {
+		return compile(algorithm, text.substring(0, patternLength)).indexOf(text);
+	}
+}
@@ -1,5 +1,25 @@
 package datastructures;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+import hashers.Hasher64;
+import hashers.Hashing;
+
+/**
+ * A hash set that uses two-choice hashing: every item has one bucket under each
+ * of two hash functions and is added to whichever of them holds fewer items.
+ * With n items in n buckets the fullest bucket holds O(log log n) items instead
+ * of the O(log n / log log n) of a single hash function.
+ *
+ * Null items are not allowed.
+ *
+ * Resources: https://en.wikipedia.org/wiki/2-choice_hashing
+ *
+ * @param <T> item type
+ */
 public class TwoChoiceHashing<T> {
 	public interface Hashable<T> {
 		public int hash(T item);
@@ -7,15 +27,131 @@ public class TwoChoiceHashing<T> {
 
 	public static final int DEFAULT_CAPACITY = 16;
 
+	// average items per bucket before the number of buckets doubles
+	private static final int MAX_LOAD = 2;
+
+	private final Hashable<T> hasher1;
+	private final Hashable<T> hasher2;
+	private List<List<T>> buckets;
+	private int size;
+
 	public TwoChoiceHashing() {
 		this(DEFAULT_CAPACITY);
 	}
 
 	public TwoChoiceHashing(int initCapacity) {
-		this(initCapacity, null, null);
+		this(initCapacity, (Hashable<T>) null, null);
 	}
 
+	// A null hasher falls back to hashCode(), the second one mixed so the two choices differ
 	public TwoChoiceHashing(int initCapacity, Hashable<T> hasher1, Hashable<T> hasher2) {
+		if (initCapacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		this.hasher1 = hasher1 != null ? hasher1 : Object::hashCode;
+		this.hasher2 = hasher2 != null ? hasher2 : item -> mix(item.hashCode());
+		// a power of two, so a hash is reduced to a bucket with a mask
+		int capacity = 1;
+		while (capacity < initCapacity) {
+			capacity <<= 1;
+		}
+		buckets = newBuckets(capacity);
+	}
+
+	// The two choices are two seeds of one hasher
+	public TwoChoiceHashing(int initCapacity, Hasher64 hasher, Hashing.Funnel<? super T> funnel) {
+		this(initCapacity, choice(hasher, funnel, 1), choice(hasher, funnel, 2));
+	}
+
+	private static <T> Hashable<T> choice(Hasher64 hasher, Hashing.Funnel<? super T> funnel, long seed) {
+		ToLongFunction<T> function = Hashing.function(hasher, funnel, seed);
+		return item -> (int) function.applyAsLong(item);
+	}
+
+	// MurmurHash3 fmix32
+	private static int mix(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		hash *= 0xC2B2AE35;
+		return hash ^ (hash >>> 16);
+	}
+
+	private static <T> List<List<T>> newBuckets(int capacity) {
+		List<List<T>> buckets = new ArrayList<>(capacity);
+		for (int i = 0; i < capacity; i++) {
+			buckets.add(new ArrayList<>(MAX_LOAD));
+		}
+		return buckets;
+	}
+
+	private int index(int hash) {
+		return (hash ^ (hash >>> 16)) & (buckets.size() - 1);
+	}
+
+	/**
+	 * Adds the item to the less loaded of its two buckets.
+	 *
+	 * @param item The item to add
+	 * @return false if the item was already in the set
+	 */
+	public boolean add(T item) {
+		Objects.requireNonNull(item);
+		List<T> first = buckets.get(index(hasher1.hash(item)));
+		List<T> second = buckets.get(index(hasher2.hash(item)));
+		if (first.contains(item) || second.contains(item)) {
+			return false;
+		}
+
+		(second.size() < first.size() ? second : first).add(item);
+		if (++size > buckets.size() * MAX_LOAD) {
+			resize(buckets.size() << 1);
+		}
+		return true;
+	}
+
+	public boolean contains(T item) {
+		Objects.requireNonNull(item);
+		return buckets.get(index(hasher1.hash(item))).contains(item)
+				|| buckets.get(index(hasher2.hash(item))).contains(item);
+	}
+
+	public boolean remove(T item) {
+		Objects.requireNonNull(item);
+		if (buckets.get(index(hasher1.hash(item))).remove(item)
+				|| buckets.get(index(hasher2.hash(item))).remove(item)) {
+			size--;
+			return true;
+		}
+		return false;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// Number of items in the fullest bucket
+	public int maxBucketSize() {
+		int max = 0;
+		for (List<T> bucket : buckets) {
+			max = Math.max(max, bucket.size());
+		}
+		return max;
+	}
 
+	private void resize(int capacity) {
+		List<List<T>> old = buckets;
+		buckets = newBuckets(capacity);
+		for (List<T> bucket : old) {
+			for (T item : bucket) {
+				List<T> first = buckets.get(index(hasher1.hash(item)));
+				List<T> second = buckets.get(index(hasher2.hash(item)));
+				(second.size() < first.size() ? second : first).add(item);
+			}
+		}
 	}
 }
@@ -7,6 +7,8 @@ package hashers;
  *
  */
 public class APHasher extends Hasher implements Hasher64 {
+	private static final long INITIAL = 0xAAAAAAAAL;
+
 	/**
 	 * Uses the AP hash to create a 64 bit hash value
 	 * 
@@ -16,8 +18,34 @@ public class APHasher extends Hasher implements Hasher64 {
 	 */
 	public static long hash64(String input) {
 		checkValidInput(input);
+		return hash(input, INITIAL);
+	}
+
+	/**
+	 * The AP hash of the bytes, starting from its initial value xor seed.
+	 */
+	@Override
+	public long hash64(byte[] input, int offset, int length, long seed) {
+		checkValidRange(input, offset, length);
+
+		long hash = INITIAL ^ seed;
+		for (int i = 0; i < length; i++) {
+			int value = input[offset + i] & 0xFF;
+			hash ^= (((i & 1) == 0) ? ((hash << 7) ^ value * (hash >> 3)) : (~((hash << 11) + (value ^ (hash >> 5)))));
+		}
+		return hash;
+	}
+
+	/**
+	 * One char per step, with a seed of 0 the same as {@link #hash64(String)}.
+	 */
+	@Override
+	public long hash64(CharSequence input, long seed) {
+		checkValidInput(input);
+		return hash(input, INITIAL ^ seed);
+	}
 
-		long hash = 0xAAAAAAAAL;
+	private static long hash(CharSequence input, long hash) {
 		for (int i = 0; i < input.length(); i++) {
 			hash ^= (((i & 1) == 0) ? ((hash << 7) ^ input.charAt(i) * (hash >> 3))
 					: (~((hash << 11) + (input.charAt(i) ^ (hash >> 5)))));
@@ -10,6 +10,30 @@ import test.Validator;
  */
 public class BKDRHasher extends Hasher implements Hasher32 {
 	private static final String INVALID_SEED_VALUE_MESSAGE = "Number must be an alternating pattern of '1' and '3'";
+	private static final int DEFAULT_MULTIPLIER = 131;
+
+	private final int multiplier;
+
+	/**
+	 * A hasher multiplying by 131.
+	 */
+	public BKDRHasher() {
+		this(DEFAULT_MULTIPLIER);
+	}
+
+	/**
+	 * The instance methods take a seed to start the hash from, the multiplier is
+	 * what the static {@link #hash32(String, int)} calls its seed.
+	 * 
+	 * @param multiplier Follow a regex pattern of alternating between 1 and 3,
+	 *                   examples: 31, 131, 1313, 13131, etc
+	 * @throws IllegalArgumentException multiplier does not follow an alternating
+	 *                                  pattern of 1 and 3.
+	 */
+	public BKDRHasher(int multiplier) {
+		Validator.checkValid(isValidSeed(multiplier), INVALID_SEED_VALUE_MESSAGE);
+		this.multiplier = multiplier;
+	}
 
 	/**
 	 * Calls {@link #hash32(String, int)} with a seed of 131.
@@ -18,7 +42,7 @@ public class BKDRHasher extends Hasher implements Hasher32 {
 	 * @return A 32 bit hashs
 	 */
 	public static int hash32(String input) {
-		return hash32(input, 131);
+		return hash32(input, DEFAULT_MULTIPLIER);
 	}
 
 	/**
@@ -36,11 +60,34 @@ public class BKDRHasher extends Hasher implements Hasher32 {
 		checkValidInput(input);
 		Validator.checkValid(isValidSeed(seed), INVALID_SEED_VALUE_MESSAGE);
 
-		int hash = 0;
-		for (int i = 0; i < input.length(); i++) {
-			hash = (hash * seed) + input.charAt(i);
+		return hash(input, 0, seed);
+	}
+
+	@Override
+	public int hash32(byte[] input, int offset, int length, int seed) {
+		checkValidRange(input, offset, length);
+
+		int hash = seed;
+		for (int i = offset; i < offset + length; i++) {
+			hash = (hash * multiplier) + (input[i] & 0xFF);
 		}
+		return (hash & 0x7FFFFFFF);
+	}
 
+	/**
+	 * One char per step, with a seed of 0 the same as {@link #hash32(String, int)}
+	 * with this hasher's multiplier.
+	 */
+	@Override
+	public int hash32(CharSequence input, int seed) {
+		checkValidInput(input);
+		return hash(input, seed, multiplier);
+	}
+
+	private static int hash(CharSequence input, int hash, int multiplier) {
+		for (int i = 0; i < input.length(); i++) {
+			hash = (hash * multiplier) + input.charAt(i);
+		}
 		return (hash & 0x7FFFFFFF);
 	}
 
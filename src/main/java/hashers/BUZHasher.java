@@ -1,5 +1,7 @@
 package hashers;
 
+import java.util.Random;
+
 import test.Validator;
 
 /**
@@ -10,6 +12,34 @@ import test.Validator;
  */
 public class BUZHasher extends Hasher implements Hasher32 {
 	private static final String NOT_SAME_LENGTH_INPUTS_MESSAGE_FORMAT = "The input '%s' length %d must be the same as the random numbers length: %d";
+	private static final String NOT_BYTE_TABLE_MESSAGE = "There must be 256 random numbers, one per byte value";
+
+	// one random number per byte value
+	private final int[] table;
+
+	/**
+	 * A hasher with random numbers drawn from a fixed seed.
+	 */
+	public BUZHasher() {
+		this(randomTable(new Random(0)));
+	}
+
+	/**
+	 * @param randomNumbers 256 random numbers, one per byte value
+	 * @throws IllegalArgumentException there are not 256 numbers
+	 */
+	public BUZHasher(int[] randomNumbers) {
+		Validator.checkValid(randomNumbers != null && randomNumbers.length == 256, NOT_BYTE_TABLE_MESSAGE);
+		table = randomNumbers.clone();
+	}
+
+	public static int[] randomTable(Random random) {
+		int[] table = new int[256];
+		for (int i = 0; i < table.length; i++) {
+			table[i] = random.nextInt();
+		}
+		return table;
+	}
 
 	/**
 	 * Uses the BUZ hash to create 32 bit hash value.
@@ -32,15 +62,29 @@ public class BUZHasher extends Hasher implements Hasher32 {
 		int hash = 0;
 
 		for (int i = 0; i < input.length(); i++) {
-			int high = hash & 0x80000000;
-			hash <<= 1;
-			hash ^= (high >> 31);
+			hash = Integer.rotateLeft(hash, 1);
 			hash ^= randomNumbers[input.charAt(i)];
 		}
 
 		return hash;
 	}
 
+	/**
+	 * The BUZ hash of the bytes with this hasher's random numbers, starting from
+	 * the seed.
+	 */
+	@Override
+	public int hash32(byte[] input, int offset, int length, int seed) {
+		checkValidRange(input, offset, length);
+
+		int hash = seed;
+		for (int i = offset; i < offset + length; i++) {
+			hash = Integer.rotateLeft(hash, 1);
+			hash ^= table[input[i] & 0xFF];
+		}
+		return hash;
+	}
+
 	private static void checkSameLength(String input, int[] randomNumbers) {
 		Validator.checkValid(input.length() == randomNumbers.length, NOT_SAME_LENGTH_INPUTS_MESSAGE_FORMAT, input,
 				input.length(), randomNumbers.length);
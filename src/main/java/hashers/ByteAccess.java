@@ -0,0 +1,95 @@
+package hashers;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Little endian reads from the inputs the hashers accept, so each hash
+ * function is written once and reads 8 bytes per step from any of them.
+ *
+ * A CharSequence is read as its UTF-16LE bytes, two per char, without
+ * encoding it first.
+ *
+ * @param <T> The input type
+ */
+abstract class ByteAccess<T> {
+	private static final VarHandle ARRAY_LONG = MethodHandles.byteArrayViewVarHandle(long[].class,
+			ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle ARRAY_INT = MethodHandles.byteArrayViewVarHandle(int[].class,
+			ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle BUFFER_LONG = MethodHandles.byteBufferViewVarHandle(long[].class,
+			ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle BUFFER_INT = MethodHandles.byteBufferViewVarHandle(int[].class,
+			ByteOrder.LITTLE_ENDIAN);
+
+	static final ByteAccess<byte[]> BYTE_ARRAY = new ByteAccess<byte[]>() {
+		@Override
+		long getLong(byte[] input, int offset) {
+			return (long) ARRAY_LONG.get(input, offset);
+		}
+
+		@Override
+		long getUnsignedInt(byte[] input, int offset) {
+			return (int) ARRAY_INT.get(input, offset) & 0xFFFFFFFFL;
+		}
+
+		@Override
+		int getUnsignedByte(byte[] input, int offset) {
+			return input[offset] & 0xFF;
+		}
+	};
+
+	// Offsets are absolute indices, the buffer's position and order are left alone
+	static final ByteAccess<ByteBuffer> BYTE_BUFFER = new ByteAccess<ByteBuffer>() {
+		@Override
+		long getLong(ByteBuffer input, int offset) {
+			return (long) BUFFER_LONG.get(input, offset);
+		}
+
+		@Override
+		long getUnsignedInt(ByteBuffer input, int offset) {
+			return (int) BUFFER_INT.get(input, offset) & 0xFFFFFFFFL;
+		}
+
+		@Override
+		int getUnsignedByte(ByteBuffer input, int offset) {
+			return input.get(offset) & 0xFF;
+		}
+	};
+
+	// Offsets are in bytes, byte 2i is the low half of char i
+	static final ByteAccess<CharSequence> CHAR_SEQUENCE = new ByteAccess<CharSequence>() {
+		@Override
+		long getLong(CharSequence input, int offset) {
+			if ((offset & 1) != 0) {
+				return getUnsignedInt(input, offset) | getUnsignedInt(input, offset + 4) << 32;
+			}
+			int index = offset >>> 1;
+			return input.charAt(index) | (long) input.charAt(index + 1) << 16 | (long) input.charAt(index + 2) << 32
+					| (long) input.charAt(index + 3) << 48;
+		}
+
+		@Override
+		long getUnsignedInt(CharSequence input, int offset) {
+			if ((offset & 1) != 0) {
+				return getUnsignedByte(input, offset) | (long) input.charAt((offset >>> 1) + 1) << 8
+						| (long) getUnsignedByte(input, offset + 3) << 24;
+			}
+			int index = offset >>> 1;
+			return input.charAt(index) | (long) input.charAt(index + 1) << 16;
+		}
+
+		@Override
+		int getUnsignedByte(CharSequence input, int offset) {
+			return input.charAt(offset >>> 1) >>> ((offset & 1) << 3) & 0xFF;
+		}
+	};
+
+	abstract long getLong(T input, int offset);
+
+	abstract long getUnsignedInt(T input, int offset);
+
+	abstract int getUnsignedByte(T input, int offset);
+}
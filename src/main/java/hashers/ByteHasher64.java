@@ -0,0 +1,94 @@
+package hashers;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * A 64 bit hash function over bytes, with every input type read through
+ * {@link ByteAccess} so the function itself is written once.
+ * 
+ * The seed given to the constructor is the one the methods without a seed
+ * use, two instances with different seeds are two independent hash functions.
+ */
+public abstract class ByteHasher64 extends Hasher implements Hasher64 {
+	protected final long seed;
+
+	protected ByteHasher64(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @param input A non-null input to hash
+	 * @return A 64 bit hash of all of input
+	 * @throws IllegalArgumentException input is null
+	 */
+	public long hash64(byte[] input) {
+		checkValidInput(input);
+		return hash(input, ByteAccess.BYTE_ARRAY, 0, input.length, seed);
+	}
+
+	/**
+	 * @param input  A non-null input to hash
+	 * @param offset The first byte to hash
+	 * @param length The number of bytes to hash
+	 * @return A 64 bit hash of input[offset, offset + length)
+	 * @throws IllegalArgumentException  input is null
+	 * @throws IndexOutOfBoundsException the range is not inside input
+	 */
+	public long hash64(byte[] input, int offset, int length) {
+		checkValidInput(input);
+		Objects.checkFromIndexSize(offset, length, input.length);
+		return hash(input, ByteAccess.BYTE_ARRAY, offset, length, seed);
+	}
+
+	/**
+	 * Hashes the bytes between the position and the limit of a heap or direct
+	 * buffer, without moving its position.
+	 * 
+	 * @param input A non-null input to hash
+	 * @return A 64 bit hash of the remaining bytes
+	 * @throws IllegalArgumentException input is null
+	 */
+	public long hash64(ByteBuffer input) {
+		checkValidInput(input);
+		return hash(input, ByteAccess.BYTE_BUFFER, input.position(), input.remaining(), seed);
+	}
+
+	/**
+	 * Hashes the chars of input as their UTF-16LE bytes, without encoding them
+	 * first. The same as hashing {@code input.toString().getBytes(UTF_16LE)}.
+	 * 
+	 * @param input A non-null input to hash
+	 * @return A 64 bit hash
+	 * @throws IllegalArgumentException input is null
+	 */
+	public long hash64(CharSequence input) {
+		checkValidInput(input);
+		return hash(input, ByteAccess.CHAR_SEQUENCE, 0, input.length() << 1, seed);
+	}
+
+	@Override
+	public long hash64(byte[] input, int offset, int length, long seed) {
+		checkValidInput(input);
+		Objects.checkFromIndexSize(offset, length, input.length);
+		return hash(input, ByteAccess.BYTE_ARRAY, offset, length, seed);
+	}
+
+	public long hash64(ByteBuffer input, long seed) {
+		checkValidInput(input);
+		return hash(input, ByteAccess.BYTE_BUFFER, input.position(), input.remaining(), seed);
+	}
+
+	// Reads the chars in place, the same as the UTF-16LE bytes
+	@Override
+	public long hash64(CharSequence input, long seed) {
+		checkValidInput(input);
+		return hash(input, ByteAccess.CHAR_SEQUENCE, 0, input.length() << 1, seed);
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	abstract <T> long hash(T input, ByteAccess<T> access, int offset, int length, long seed);
+}
@@ -16,16 +16,37 @@ public class CRCHasher extends Hasher implements Hasher32 {
 	 */
 	public int hash32(String input) {
 		checkValidInput(input);
+		return hash(input, 0);
+	}
 
-		int hash = 0;
-		for (int i = 0; i < input.length(); i++) {
-			int high = hash & 0xF8000000;
+	/**
+	 * The CRC variant over the bytes, starting from the seed.
+	 */
+	@Override
+	public int hash32(byte[] input, int offset, int length, int seed) {
+		checkValidRange(input, offset, length);
 
-			hash <<= 5;
-			hash ^= (high >> 27);
-			hash ^= input.charAt(i);
+		int hash = seed;
+		for (int i = offset; i < offset + length; i++) {
+			hash = Integer.rotateLeft(hash, 5) ^ (input[i] & 0xFF);
 		}
+		return hash;
+	}
 
+	/**
+	 * One char per step, with a seed of 0 the same as {@link #hash32(String)}.
+	 */
+	@Override
+	public int hash32(CharSequence input, int seed) {
+		checkValidInput(input);
+		return hash(input, seed);
+	}
+
+	// the high 5 bits wrap around to the bottom
+	private static int hash(CharSequence input, int hash) {
+		for (int i = 0; i < input.length(); i++) {
+			hash = Integer.rotateLeft(hash, 5) ^ input.charAt(i);
+		}
 		return hash;
 	}
 }
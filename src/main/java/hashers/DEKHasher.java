@@ -16,13 +16,36 @@ public class DEKHasher extends Hasher implements Hasher64 {
 	 */
 	public static long hash64(String input) {
 		checkValidInput(input);
+		return hash(input, input.length());
+	}
+
+	/**
+	 * The DEK hash of the bytes, starting from the length xor seed.
+	 */
+	@Override
+	public long hash64(byte[] input, int offset, int length, long seed) {
+		checkValidRange(input, offset, length);
 
-		long hash = input.length();
+		long hash = length ^ seed;
+		for (int i = offset; i < offset + length; i++) {
+			hash = ((hash << 5) ^ (hash >> 27)) ^ (input[i] & 0xFF);
+		}
+		return hash;
+	}
 
+	/**
+	 * One char per step, with a seed of 0 the same as {@link #hash64(String)}.
+	 */
+	@Override
+	public long hash64(CharSequence input, long seed) {
+		checkValidInput(input);
+		return hash(input, input.length() ^ seed);
+	}
+
+	private static long hash(CharSequence input, long hash) {
 		for (int i = 0; i < input.length(); i++) {
 			hash = ((hash << 5) ^ (hash >> 27)) ^ input.charAt(i);
 		}
-
 		return hash;
 	}
 }
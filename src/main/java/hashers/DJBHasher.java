@@ -7,7 +7,8 @@ package hashers;
  *
  */
 public class DJBHasher extends Hasher implements Hasher64 {
-	
+	private static final long INITIAL = 5381;
+
 	/**
 	 * Uses the divison hash to create 64 bit hash value.
 	 * 
@@ -18,8 +19,33 @@ public class DJBHasher extends Hasher implements Hasher64 {
 	 */
 	public static long hash64(String input) {
 		checkValidInput(input);
+		return hash(input, INITIAL);
+	}
+
+	/**
+	 * The DJB hash of the bytes, starting from 5381 xor seed.
+	 */
+	@Override
+	public long hash64(byte[] input, int offset, int length, long seed) {
+		checkValidRange(input, offset, length);
+
+		long hash = INITIAL ^ seed;
+		for (int i = offset; i < offset + length; i++) {
+			hash = ((hash << 5) + hash) + (input[i] & 0xFF);
+		}
+		return hash;
+	}
+
+	/**
+	 * One char per step, with a seed of 0 the same as {@link #hash64(String)}.
+	 */
+	@Override
+	public long hash64(CharSequence input, long seed) {
+		checkValidInput(input);
+		return hash(input, INITIAL ^ seed);
+	}
 
-		long hash = 5381;
+	private static long hash(CharSequence input, long hash) {
 		for (int i = 0; i < input.length(); i++) {
 			hash = ((hash << 5) + hash) + input.charAt(i);
 		}
@@ -10,6 +10,23 @@ import test.Validator;
  */
 public class DivisionHasher extends Hasher implements Hasher64, Hasher32 {
 	private static final String ZERO_DIVISOR_MESSAGE = "The divisor cannot be zero.";
+	private static final String NEGATIVE_DIVISOR_MESSAGE = "The divisor must be positive.";
+
+	private final int divisor;
+
+	/**
+	 * A hasher for byte inputs: the bytes are read as the base 256 digits of one
+	 * big number, which is reduced modulo the divisor a digit at a time
+	 * (Horner's rule), so the hash is always in [0, divisor).
+	 * 
+	 * @param divisor A positive number that should be a prime number for better
+	 *                results.
+	 * @throws IllegalArgumentException if the divisor is not positive.
+	 */
+	public DivisionHasher(int divisor) {
+		Validator.checkValid(divisor > 0, NEGATIVE_DIVISOR_MESSAGE);
+		this.divisor = divisor;
+	}
 
 	/**
 	 * Uses the divison hash to create 32 bit hash value.
@@ -39,6 +56,31 @@ public class DivisionHasher extends Hasher implements Hasher64, Hasher32 {
 		return value % primeNumber;
 	}
 
+	/**
+	 * The remainder of the bytes, starting from the seed's remainder.
+	 */
+	@Override
+	public long hash64(byte[] input, int offset, int length, long seed) {
+		checkValidRange(input, offset, length);
+		return remainder(input, offset, length, Math.floorMod(seed, divisor));
+	}
+
+	/**
+	 * The remainder of the bytes, starting from the seed's remainder.
+	 */
+	@Override
+	public int hash32(byte[] input, int offset, int length, int seed) {
+		checkValidRange(input, offset, length);
+		return (int) remainder(input, offset, length, Math.floorMod(seed, divisor));
+	}
+
+	private long remainder(byte[] input, int offset, int length, long remainder) {
+		for (int i = offset; i < offset + length; i++) {
+			remainder = ((remainder << 8) + (input[i] & 0xFF)) % divisor;
+		}
+		return remainder;
+	}
+
 	private static void checkValidDivisor(long number) {
 		Validator.checkValid(number != 0, ZERO_DIVISOR_MESSAGE);
 	}
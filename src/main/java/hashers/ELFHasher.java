@@ -17,19 +17,46 @@ public class ELFHasher extends Hasher implements Hasher32 {
 	 */
 	public static int hash32(String input) {
 		checkValidInput(input);
+		return hash(input, 0);
+	}
 
-		int hash = 0;
-		int x = 0;
-		for (int i = 0; i < input.length(); i++) {
-			hash = (hash << 4) + input.charAt(0);
+	/**
+	 * The ELF hash of the bytes, starting from the seed.
+	 */
+	@Override
+	public int hash32(byte[] input, int offset, int length, int seed) {
+		checkValidRange(input, offset, length);
 
-			x = hash & 0xF0000000;
-			if (x != 0) {
-				hash ^= (x >> 24);
-			}
-			hash &= ~x;
+		int hash = seed;
+		for (int i = offset; i < offset + length; i++) {
+			hash = step(hash, input[i] & 0xFF);
 		}
+		return hash;
+	}
+
+	/**
+	 * One char per step, with a seed of 0 the same as {@link #hash32(String)}.
+	 */
+	@Override
+	public int hash32(CharSequence input, int seed) {
+		checkValidInput(input);
+		return hash(input, seed);
+	}
 
+	private static int hash(CharSequence input, int hash) {
+		for (int i = 0; i < input.length(); i++) {
+			hash = step(hash, input.charAt(i));
+		}
 		return hash;
 	}
+
+	// the high nibble is folded back in and cleared
+	private static int step(int hash, int value) {
+		hash = (hash << 4) + value;
+		int high = hash & 0xF0000000;
+		if (high != 0) {
+			hash ^= high >>> 24;
+		}
+		return hash & ~high;
+	}
 }
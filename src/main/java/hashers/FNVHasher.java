@@ -7,8 +7,11 @@ package hashers;
  *
  */
 public class FNVHasher extends Hasher implements Hasher64 {
+	private static final long OFFSET_BASIS = 0xCBF29CE484222325L;
+	private static final long PRIME = 0x100000001B3L;
+
 	/**
-	 * FNV 64 bit hash
+	 * FNV-1 64 bit hash
 	 * 
 	 * @param input Non-null input
 	 * @return A 64 bit hash
@@ -16,12 +19,37 @@ public class FNVHasher extends Hasher implements Hasher64 {
 	 */
 	public static long hash64(String input) {
 		checkValidInput(input);
+		return hash(input, OFFSET_BASIS);
+	}
 
-		long fnvPrime = 0x811C9DC5L;
-		long hash = 0;
+	/**
+	 * FNV-1 over the bytes, the usual FNV, starting from the offset basis xor
+	 * seed.
+	 */
+	@Override
+	public long hash64(byte[] input, int offset, int length, long seed) {
+		checkValidRange(input, offset, length);
+
+		long hash = OFFSET_BASIS ^ seed;
+		for (int i = offset; i < offset + length; i++) {
+			hash *= PRIME;
+			hash ^= input[i] & 0xFF;
+		}
+		return hash;
+	}
+
+	/**
+	 * One char per step, with a seed of 0 the same as {@link #hash64(String)}.
+	 */
+	@Override
+	public long hash64(CharSequence input, long seed) {
+		checkValidInput(input);
+		return hash(input, OFFSET_BASIS ^ seed);
+	}
 
+	private static long hash(CharSequence input, long hash) {
 		for (int i = 0; i < input.length(); i++) {
-			hash *= fnvPrime;
+			hash *= PRIME;
 			hash ^= input.charAt(i);
 		}
 		return hash;
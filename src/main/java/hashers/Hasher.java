@@ -1,5 +1,7 @@
 package hashers;
 
+import java.util.Objects;
+
 import test.Validator;
 
 public abstract class Hasher {
@@ -8,4 +10,16 @@ public abstract class Hasher {
 	protected static final void checkValidInput(Object object) {
 		Validator.checkValid(object != null, INPUT_NULL_MESSAGE);
 	}
+
+	protected static final void checkValidRange(byte[] input, int offset, int length) {
+		checkValidInput(input);
+		Objects.checkFromIndexSize(offset, length, input.length);
+	}
+
+	/**
+	 * The high 64 bits of the unsigned 128 bit product of a and b.
+	 */
+	protected static final long unsignedMultiplyHigh(long a, long b) {
+		return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+	}
 }
@@ -1,9 +1,54 @@
 package hashers;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * A hash function that should be able to return a 32 bit hash value (int).
  * 
+ * The 32 bit counterpart of {@link Hasher64}: every implementation hashes
+ * bytes with a seed.
+ * 
  * @author Ethan
  *
  */
-public interface Hasher32 {}
+public interface Hasher32 {
+	/**
+	 * @param input  A non-null input to hash
+	 * @param offset The first byte to hash
+	 * @param length The number of bytes to hash
+	 * @param seed   Selects one of the hash functions of the family
+	 * @return A 32 bit hash of input[offset, offset + length)
+	 * @throws IllegalArgumentException  input is null
+	 * @throws IndexOutOfBoundsException the range is not inside input
+	 */
+	int hash32(byte[] input, int offset, int length, int seed);
+
+	default int hash32(byte[] input, int seed) {
+		Hasher.checkValidInput(input);
+		return hash32(input, 0, input.length, seed);
+	}
+
+	/**
+	 * Hashes the chars of input. By default they are hashed as their UTF-16LE
+	 * bytes, the classic string hashes feed one char per step instead.
+	 * 
+	 * @param input A non-null input to hash
+	 * @param seed  Selects one of the hash functions of the family
+	 * @return A 32 bit hash
+	 * @throws IllegalArgumentException input is null
+	 */
+	default int hash32(CharSequence input, int seed) {
+		Hasher.checkValidInput(input);
+		return hash32(input.toString().getBytes(StandardCharsets.UTF_16LE), seed);
+	}
+
+	/**
+	 * @param seed Selects one of the hash functions of the family
+	 * @return A new sink that hashes what is put into it with this hasher, its
+	 *         {@link Hashing.Sink#finish()} returns the 32 bit hash as an
+	 *         unsigned long
+	 */
+	default Hashing.Sink newSink(int seed) {
+		return new Hashing.Sink(this, seed);
+	}
+}
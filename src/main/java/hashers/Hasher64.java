@@ -1,9 +1,75 @@
 package hashers;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * A hash function that should be able to return a 64 bit hash value (long).
  * 
+ * Every implementation hashes bytes with a seed, so a data structure can take
+ * any Hasher64 and get as many independent hash functions out of it as it
+ * needs. Composite keys go through a {@link Hashing.Sink} instead of being
+ * turned into strings first.
+ * 
  * @author Ethan
  *
  */
-public interface Hasher64 {}
+public interface Hasher64 {
+	/**
+	 * @param input  A non-null input to hash
+	 * @param offset The first byte to hash
+	 * @param length The number of bytes to hash
+	 * @param seed   Selects one of the hash functions of the family
+	 * @return A 64 bit hash of input[offset, offset + length)
+	 * @throws IllegalArgumentException  input is null
+	 * @throws IndexOutOfBoundsException the range is not inside input
+	 */
+	long hash64(byte[] input, int offset, int length, long seed);
+
+	default long hash64(byte[] input, long seed) {
+		Hasher.checkValidInput(input);
+		return hash64(input, 0, input.length, seed);
+	}
+
+	/**
+	 * Hashes the chars of input. By default they are hashed as their UTF-16LE
+	 * bytes, the classic string hashes feed one char per step instead.
+	 * 
+	 * @param input A non-null input to hash
+	 * @param seed  Selects one of the hash functions of the family
+	 * @return A 64 bit hash
+	 * @throws IllegalArgumentException input is null
+	 */
+	default long hash64(CharSequence input, long seed) {
+		Hasher.checkValidInput(input);
+		return hash64(input.toString().getBytes(StandardCharsets.UTF_16LE), seed);
+	}
+
+	/**
+	 * Two 64 bit hashes of the input to derive any number of hashes from with
+	 * {@link Hashing#derive(long, long, int)}. By default the first is a mix of
+	 * the 64 bit hash, so a hasher whose output does not fill 64 bits (e.g.
+	 * {@link DivisionHasher}) still gives hashes that use every bit, and the
+	 * second a mix of the first. Hashers with a real 128 bit output return both
+	 * halves of it.
+	 * 
+	 * @param input  A non-null input to hash
+	 * @param offset The first byte to hash
+	 * @param length The number of bytes to hash
+	 * @param seed   Selects one of the hash functions of the family
+	 * @param into   Receives the two hashes, a long[2] or longer
+	 * @return into
+	 */
+	default long[] hash128(byte[] input, int offset, int length, long seed, long[] into) {
+		into[0] = Hashing.mix(hash64(input, offset, length, seed));
+		into[1] = Hashing.mix(into[0]);
+		return into;
+	}
+
+	/**
+	 * @param seed Selects one of the hash functions of the family
+	 * @return A new sink that hashes what is put into it with this hasher
+	 */
+	default Hashing.Sink newSink(long seed) {
+		return new Hashing.Sink(this, seed);
+	}
+}
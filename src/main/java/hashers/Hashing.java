@@ -0,0 +1,209 @@
+package hashers;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+/**
+ * Glue between the hashers and the data structures that use them.
+ * 
+ * A {@link Sink} collects the fields of a composite key as little endian
+ * bytes and hashes them on {@link Sink#finish()}, a {@link Funnel} says which
+ * fields of an item go into the sink. {@link #derive(long, long, int)} turns
+ * the two halves of one 128 bit hash into as many hashes as a Bloom filter or
+ * a sketch needs (Kirsch, Mitzenmacher), so k hash functions cost one call.
+ * 
+ * https://www.eecs.harvard.edu/~michaelm/postscripts/rsa2008.pdf
+ */
+public final class Hashing {
+	public static final Funnel<CharSequence> CHARS = (item, into) -> into.putChars(item);
+	public static final Funnel<byte[]> BYTES = (item, into) -> into.putBytes(item);
+	public static final Funnel<Integer> INTEGERS = (item, into) -> into.putInt(item);
+	public static final Funnel<Long> LONGS = (item, into) -> into.putLong(item);
+
+	private Hashing() {
+	}
+
+	/**
+	 * Writes the fields of an item into a sink, for example
+	 * {@code (point, into) -> into.putInt(point.x).putInt(point.y)}.
+	 * 
+	 * @param <T> The item type
+	 */
+	@FunctionalInterface
+	public interface Funnel<T> {
+		void funnel(T item, Sink into);
+	}
+
+	/**
+	 * Collects bytes and hashes them with one hasher and seed. The buffer is
+	 * kept between hashes, so a sink reused for many keys does not allocate.
+	 * A sink is not thread safe.
+	 */
+	public static final class Sink {
+		private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+		private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class,
+				ByteOrder.LITTLE_ENDIAN);
+
+		private final Hasher64 hasher64;
+		private final Hasher32 hasher32;
+		private final long seed;
+		private byte[] buffer = new byte[64];
+		private int size;
+
+		Sink(Hasher64 hasher, long seed) {
+			this.hasher64 = Objects.requireNonNull(hasher);
+			this.hasher32 = null;
+			this.seed = seed;
+		}
+
+		Sink(Hasher32 hasher, int seed) {
+			this.hasher64 = null;
+			this.hasher32 = Objects.requireNonNull(hasher);
+			this.seed = seed;
+		}
+
+		private int reserve(int bytes) {
+			int at = size;
+			if (at + bytes > buffer.length) {
+				buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, at + bytes));
+			}
+			size = at + bytes;
+			return at;
+		}
+
+		// reserve may replace buffer, so it is called before buffer is read
+		public Sink putByte(byte value) {
+			int at = reserve(1);
+			buffer[at] = value;
+			return this;
+		}
+
+		public Sink putChar(char value) {
+			int at = reserve(2);
+			buffer[at] = (byte) value;
+			buffer[at + 1] = (byte) (value >>> 8);
+			return this;
+		}
+
+		public Sink putInt(int value) {
+			int at = reserve(4);
+			INT.set(buffer, at, value);
+			return this;
+		}
+
+		public Sink putLong(long value) {
+			int at = reserve(8);
+			LONG.set(buffer, at, value);
+			return this;
+		}
+
+		public Sink putBytes(byte[] values) {
+			return putBytes(values, 0, values.length);
+		}
+
+		public Sink putBytes(byte[] values, int offset, int length) {
+			Objects.checkFromIndexSize(offset, length, values.length);
+			int at = reserve(length);
+			System.arraycopy(values, offset, buffer, at, length);
+			return this;
+		}
+
+		// The chars as UTF-16LE bytes
+		public Sink putChars(CharSequence values) {
+			int at = reserve(values.length() << 1);
+			for (int i = 0; i < values.length(); i++, at += 2) {
+				char value = values.charAt(i);
+				buffer[at] = (byte) value;
+				buffer[at + 1] = (byte) (value >>> 8);
+			}
+			return this;
+		}
+
+		/**
+		 * Hashes everything put since the last finish and empties the sink.
+		 * 
+		 * @return The hash, a 32 bit hasher's as an unsigned long
+		 */
+		public long finish() {
+			long hash = hasher64 != null ? hasher64.hash64(buffer, 0, size, seed)
+					: hasher32.hash32(buffer, 0, size, (int) seed) & 0xFFFFFFFFL;
+			size = 0;
+			return hash;
+		}
+
+		/**
+		 * Like {@link #finish()}, with the two hashes of
+		 * {@link Hasher64#hash128(byte[], int, int, long, long[])}. A 32 bit
+		 * hasher's hash is mixed to 64 bits the same way.
+		 * 
+		 * @param into Receives the two hashes, a long[2] or longer
+		 * @return into
+		 */
+		public long[] finish128(long[] into) {
+			if (hasher64 != null) {
+				hasher64.hash128(buffer, 0, size, seed, into);
+				size = 0;
+			} else {
+				into[0] = mix(finish());
+				into[1] = mix(into[0]);
+			}
+			return into;
+		}
+
+		// Drops what was put since the last finish
+		public Sink reset() {
+			size = 0;
+			return this;
+		}
+	}
+
+	/**
+	 * The ith of the hashes g_i = h1 + i * h2, which are as good as i
+	 * independent hash functions for Bloom filters and sketches.
+	 */
+	public static long derive(long hash1, long hash2, int i) {
+		return hash1 + i * hash2;
+	}
+
+	/**
+	 * Maps a hash to [0, bound) from its high 32 bits with a multiplication
+	 * instead of a division (Lemire), negative hashes included.
+	 * 
+	 * Only the high bits count, so the hash has to use all 64 bits: take it
+	 * from {@link Sink#finish128(long[])} or {@link Hasher64#hash128(byte[],
+	 * int, int, long, long[])}, which mix the output of hashers that do not
+	 * fill them, rather than straight from such a hasher.
+	 * 
+	 * @param bound A positive bound
+	 */
+	public static int reduce(long hash, int bound) {
+		return (int) (((hash >>> 32) * bound) >>> 32);
+	}
+
+	/**
+	 * An item hashing function for the data structures that take a
+	 * {@code Hasher<T>} of their own, e.g. {@code new LogLog<>(Hashing.function(
+	 * new XXHasher(), Hashing.CHARS, 0)::applyAsLong, 64)}. It reuses one sink,
+	 * so it is not thread safe.
+	 */
+	public static <T> ToLongFunction<T> function(Hasher64 hasher, Funnel<? super T> funnel, long seed) {
+		Sink sink = hasher.newSink(seed);
+		return item -> {
+			funnel.funnel(item, sink);
+			return sink.finish();
+		};
+	}
+
+	// MurmurHash3's finalizer, a bijection that spreads every bit over all 64
+	static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+		hash *= 0xC4CEB9FE1A85EC53L;
+		return hash ^ (hash >>> 33);
+	}
+}
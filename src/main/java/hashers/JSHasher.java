@@ -7,6 +7,7 @@ package hashers;
  *
  */
 public class JSHasher extends Hasher implements Hasher64 {
+	private static final long INITIAL = 1315423911;
 
 	/**
 	 * Uses the JS hash to create 64 bit hash value.
@@ -17,8 +18,33 @@ public class JSHasher extends Hasher implements Hasher64 {
 	 */
 	public static long hash64(String input) {
 		checkValidInput(input);
+		return hash(input, INITIAL);
+	}
+
+	/**
+	 * The JS hash of the bytes, starting from its initial value xor seed.
+	 */
+	@Override
+	public long hash64(byte[] input, int offset, int length, long seed) {
+		checkValidRange(input, offset, length);
+
+		long hash = INITIAL ^ seed;
+		for (int i = offset; i < offset + length; i++) {
+			hash ^= ((hash << 5) + (input[i] & 0xFF) + (hash >> 2));
+		}
+		return hash;
+	}
+
+	/**
+	 * One char per step, with a seed of 0 the same as {@link #hash64(String)}.
+	 */
+	@Override
+	public long hash64(CharSequence input, long seed) {
+		checkValidInput(input);
+		return hash(input, INITIAL ^ seed);
+	}
 
-		long hash = 1315423911;
+	private static long hash(CharSequence input, long hash) {
 		for (int i = 0; i < input.length(); i++) {
 			hash ^= ((hash << 5) + input.charAt(i) + (hash >> 2));
 		}
@@ -8,8 +8,26 @@ import test.Validator;
  * @author Ethan
  *
  */
-public class KDivisionHasher {
+public class KDivisionHasher extends Hasher implements Hasher64, Hasher32 {
 	private static final String ZERO_DIVISOR_MESSAGE = "The divisor cannot be zero.";
+	private static final String NEGATIVE_DIVISOR_MESSAGE = "The divisor must be positive.";
+
+	private final int divisor;
+
+	/**
+	 * A hasher for byte inputs: the bytes are read as the base 256 digits of one
+	 * big number, which is reduced modulo the divisor a digit at a time
+	 * (Horner's rule), and Knuth's v(v + 3) of that remainder is the hash, always
+	 * in [0, divisor).
+	 * 
+	 * @param divisor A positive number that should be a prime number for better
+	 *                results.
+	 * @throws IllegalArgumentException if the divisor is not positive.
+	 */
+	public KDivisionHasher(int divisor) {
+		Validator.checkValid(divisor > 0, NEGATIVE_DIVISOR_MESSAGE);
+		this.divisor = divisor;
+	}
 
 	/**
 	 * Uses the Knuth's divison hash to create 32 bit hash value.
@@ -39,6 +57,34 @@ public class KDivisionHasher {
 		return (value * (value + 3)) % primeNumber;
 	}
 
+	/**
+	 * Knuth's v(v + 3) mod divisor, where v is the remainder of the bytes modulo
+	 * the divisor, starting from the seed's remainder.
+	 */
+	@Override
+	public long hash64(byte[] input, int offset, int length, long seed) {
+		checkValidRange(input, offset, length);
+		return remainder(input, offset, length, Math.floorMod(seed, divisor));
+	}
+
+	/**
+	 * Knuth's v(v + 3) mod divisor, where v is the remainder of the bytes modulo
+	 * the divisor, starting from the seed's remainder.
+	 */
+	@Override
+	public int hash32(byte[] input, int offset, int length, int seed) {
+		checkValidRange(input, offset, length);
+		return (int) remainder(input, offset, length, Math.floorMod(seed, divisor));
+	}
+
+	// Reduces the bytes into remainder, then applies v(v + 3) mod divisor to it
+	private long remainder(byte[] input, int offset, int length, long remainder) {
+		for (int i = offset; i < offset + length; i++) {
+			remainder = ((remainder << 8) + (input[i] & 0xFF)) % divisor;
+		}
+		return (remainder * (remainder + 3)) % divisor;
+	}
+
 	private static void checkValidDivisor(long number) {
 		Validator.checkValid(number != 0, ZERO_DIVISOR_MESSAGE);
 	}
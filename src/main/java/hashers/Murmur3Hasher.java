@@ -0,0 +1,156 @@
+package hashers;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * An implementation of MurmurHash3 x64_128.
+ * 
+ * Two 64 bit halves take 16 bytes per step. hash64 returns the first half,
+ * hash128 both, which is what Bloom filters and sketches want: two
+ * independent hashes from one pass to derive any number of indexes from.
+ * 
+ * The reference takes a 32 bit seed, seeds that fit in 32 unsigned bits give
+ * the reference's results.
+ * 
+ * https://github.com/aappleby/smhasher/blob/master/src/MurmurHash3.cpp
+ */
+public class Murmur3Hasher extends ByteHasher64 {
+	private static final long C1 = 0x87C37B91114253D5L;
+	private static final long C2 = 0x4CF5AD432745937FL;
+
+	public Murmur3Hasher() {
+		this(0);
+	}
+
+	public Murmur3Hasher(long seed) {
+		super(seed);
+	}
+
+	/**
+	 * @param input A non-null input to hash
+	 * @return The two 64 bit halves of the 128 bit hash
+	 * @throws IllegalArgumentException input is null
+	 */
+	public long[] hash128(byte[] input) {
+		checkValidInput(input);
+		return hash128(input, ByteAccess.BYTE_ARRAY, 0, input.length, seed, new long[2]);
+	}
+
+	/**
+	 * @param input  A non-null input to hash
+	 * @param offset The first byte to hash
+	 * @param length The number of bytes to hash
+	 * @return The two 64 bit halves of the 128 bit hash of input[offset, offset +
+	 *         length)
+	 * @throws IllegalArgumentException  input is null
+	 * @throws IndexOutOfBoundsException the range is not inside input
+	 */
+	public long[] hash128(byte[] input, int offset, int length) {
+		checkValidInput(input);
+		Objects.checkFromIndexSize(offset, length, input.length);
+		return hash128(input, ByteAccess.BYTE_ARRAY, offset, length, seed, new long[2]);
+	}
+
+	/**
+	 * @param input A non-null input to hash, from its position to its limit
+	 * @return The two 64 bit halves of the 128 bit hash
+	 * @throws IllegalArgumentException input is null
+	 */
+	public long[] hash128(ByteBuffer input) {
+		checkValidInput(input);
+		return hash128(input, ByteAccess.BYTE_BUFFER, input.position(), input.remaining(), seed, new long[2]);
+	}
+
+	/**
+	 * @param input A non-null input to hash as its UTF-16LE bytes
+	 * @return The two 64 bit halves of the 128 bit hash
+	 * @throws IllegalArgumentException input is null
+	 */
+	public long[] hash128(CharSequence input) {
+		checkValidInput(input);
+		return hash128(input, ByteAccess.CHAR_SEQUENCE, 0, input.length() << 1, seed, new long[2]);
+	}
+
+	// The real 128 bit hash, both halves come from one pass
+	@Override
+	public long[] hash128(byte[] input, int offset, int length, long seed, long[] into) {
+		checkValidInput(input);
+		Objects.checkFromIndexSize(offset, length, input.length);
+		return hash128(input, ByteAccess.BYTE_ARRAY, offset, length, seed, into);
+	}
+
+	@Override
+	<T> long hash(T input, ByteAccess<T> access, int offset, int length, long seed) {
+		return hash128(input, access, offset, length, seed, new long[2])[0];
+	}
+
+	private static <T> long[] hash128(T input, ByteAccess<T> access, int offset, int length, long seed,
+			long[] into) {
+		final int end = offset + length;
+		long h1 = seed;
+		long h2 = seed;
+		for (; offset <= end - 16; offset += 16) {
+			h1 ^= mixK1(access.getLong(input, offset));
+			h1 = Long.rotateLeft(h1, 27);
+			h1 += h2;
+			h1 = h1 * 5 + 0x52DCE729;
+
+			h2 ^= mixK2(access.getLong(input, offset + 8));
+			h2 = Long.rotateLeft(h2, 31);
+			h2 += h1;
+			h2 = h2 * 5 + 0x38495AB5;
+		}
+
+		// the last 0 to 15 bytes, the first 8 go in k1
+		int remaining = end - offset;
+		if (remaining > 0) {
+			long k1 = 0;
+			long k2 = 0;
+			if (remaining >= 8) {
+				k1 = access.getLong(input, offset);
+				for (int i = 8; i < remaining; i++) {
+					k2 |= (long) access.getUnsignedByte(input, offset + i) << ((i - 8) << 3);
+				}
+			} else {
+				for (int i = 0; i < remaining; i++) {
+					k1 |= (long) access.getUnsignedByte(input, offset + i) << (i << 3);
+				}
+			}
+			h2 ^= mixK2(k2);
+			h1 ^= mixK1(k1);
+		}
+
+		h1 ^= length;
+		h2 ^= length;
+		h1 += h2;
+		h2 += h1;
+		h1 = fmix(h1);
+		h2 = fmix(h2);
+		h1 += h2;
+		h2 += h1;
+		into[0] = h1;
+		into[1] = h2;
+		return into;
+	}
+
+	private static long mixK1(long k1) {
+		k1 *= C1;
+		k1 = Long.rotateLeft(k1, 31);
+		return k1 * C2;
+	}
+
+	private static long mixK2(long k2) {
+		k2 *= C2;
+		k2 = Long.rotateLeft(k2, 33);
+		return k2 * C1;
+	}
+
+	private static long fmix(long k) {
+		k ^= k >>> 33;
+		k *= 0xFF51AFD7ED558CCDL;
+		k ^= k >>> 33;
+		k *= 0xC4CEB9FE1A85EC53L;
+		return k ^ (k >>> 33);
+	}
+}
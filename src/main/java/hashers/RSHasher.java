@@ -7,6 +7,8 @@ package hashers;
  *
  */
 public class RSHasher extends Hasher implements Hasher64 {
+	private static final long B = 378551;
+	private static final long A = 63689;
 
 	/**
 	 * Uses the Robert Sedgewicks hash to create 64 bit hash value.
@@ -16,15 +18,41 @@ public class RSHasher extends Hasher implements Hasher64 {
 	 * @throws IllegalArgumentException input is null
 	 */
 	public static long hash64(String input) {
-		long b = 378551;
-		long a = 63689;
-		long hash = 0;
+		checkValidInput(input);
+		return hash(input, 0);
+	}
 
-		for (int i = 0; i < input.length(); i++) {
-			hash *= a + input.charAt(i);
-			a *= b;
+	/**
+	 * The RS hash of the bytes, starting from the seed.
+	 */
+	@Override
+	public long hash64(byte[] input, int offset, int length, long seed) {
+		checkValidRange(input, offset, length);
+
+		long a = A;
+		long hash = seed;
+		for (int i = offset; i < offset + length; i++) {
+			hash = hash * a + (input[i] & 0xFF);
+			a *= B;
 		}
+		return hash;
+	}
 
+	/**
+	 * One char per step, with a seed of 0 the same as {@link #hash64(String)}.
+	 */
+	@Override
+	public long hash64(CharSequence input, long seed) {
+		checkValidInput(input);
+		return hash(input, seed);
+	}
+
+	private static long hash(CharSequence input, long hash) {
+		long a = A;
+		for (int i = 0; i < input.length(); i++) {
+			hash = hash * a + input.charAt(i);
+			a *= B;
+		}
 		return hash;
 	}
 }
@@ -16,8 +16,33 @@ public class SDBMHasher extends Hasher implements Hasher64 {
 	 */
 	public static long hash64(String input) {
 		checkValidInput(input);
+		return hash(input, 0);
+	}
+
+	/**
+	 * The SDBM hash of the bytes, starting from the seed.
+	 */
+	@Override
+	public long hash64(byte[] input, int offset, int length, long seed) {
+		checkValidRange(input, offset, length);
+
+		long hash = seed;
+		for (int i = offset; i < offset + length; i++) {
+			hash = (input[i] & 0xFF) + (hash << 6) + (hash << 16) - hash;
+		}
+		return hash;
+	}
+
+	/**
+	 * One char per step, with a seed of 0 the same as {@link #hash64(String)}.
+	 */
+	@Override
+	public long hash64(CharSequence input, long seed) {
+		checkValidInput(input);
+		return hash(input, seed);
+	}
 
-		long hash = 0;
+	private static long hash(CharSequence input, long hash) {
 		for (int i = 0; i < input.length(); i++) {
 			hash = input.charAt(i) + (hash << 6) + (hash << 16) - hash;
 		}
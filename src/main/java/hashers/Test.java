@@ -1,6 +1,66 @@
 package hashers;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
 public class Test {
 	public static void main(String[] args) {
+		checkSinkGrowth();
+		checkWyhashVectors();
+	}
+
+	// A sink must hash what was put into it after its buffer has grown past its first 64 bytes
+	private static void checkSinkGrowth() {
+		Hasher64 hasher = new XXH3Hasher();
+		Random random = new Random(1);
+		byte[] bytes = new byte[100];
+		random.nextBytes(bytes);
+
+		ByteBuffer expected = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+		Hashing.Sink sink = hasher.newSink(7);
+		for (int i = 0; i < 9; i++) {
+			sink.putLong(i * 0x9E3779B97F4A7C15L);
+			expected.putLong(i * 0x9E3779B97F4A7C15L);
+		}
+		for (int i = 0; i < 20; i++) {
+			sink.putInt(i);
+			expected.putInt(i);
+			sink.putByte((byte) i);
+			expected.put((byte) i);
+		}
+		sink.putBytes(bytes);
+		expected.put(bytes);
+		sink.putChars("grown");
+		for (char c : "grown".toCharArray()) {
+			expected.putChar(c);
+		}
+
+		long hash = sink.finish();
+		if (hash != hasher.hash64(expected.array(), 0, expected.position(), 7)) {
+			throw new IllegalStateException("The sink hashed different bytes than were put into it");
+		}
+		if (hasher.newSink(7).putBytes(bytes).finish() != hasher.hash64(bytes, 7)) {
+			throw new IllegalStateException("A 100 byte putBytes into an empty sink hashed different bytes");
+		}
+		System.out.println("Sink growth: ok");
+	}
+
+	// The test vectors of wyhash final4, the seed of each is its index
+	private static void checkWyhashVectors() {
+		String[] inputs = { "", "a", "abc", "message digest", "abcdefghijklmnopqrstuvwxyz",
+				"ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789",
+				"12345678901234567890123456789012345678901234567890123456789012345678901234567890" };
+		long[] expected = { 0x93228A4DE0EEC5A2L, 0xC5BAC3DB178713C4L, 0xA97F2F7B1D9B3314L, 0x786D1F1DF3801DF4L,
+				0xDCA5A8138AD37C87L, 0xB9E734F117CFAF70L, 0x6CC5EAB49A92D617L };
+		for (int i = 0; i < inputs.length; i++) {
+			long hash = new WyHasher(i).hash64(inputs[i].getBytes(StandardCharsets.US_ASCII));
+			if (hash != expected[i]) {
+				throw new IllegalStateException(String.format("wyhash(\"%s\", %d) = %016x, expected %016x", inputs[i], i,
+						hash, expected[i]));
+			}
+		}
+		System.out.println("wyhash final4 vectors: ok");
 	}
 }
@@ -0,0 +1,84 @@
+package hashers;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+import test.Validator;
+
+/**
+ * A fixed size, lock free map from 64 bit position hashes (see
+ * {@link ZobristTable}) to a 64 bit entry, for the results a game tree search
+ * has already computed. What the entry holds is up to the search, usually
+ * the depth, score, bound and best move packed into one long.
+ * 
+ * The table is one {@code long[]} of (check, data) slot pairs indexed by the
+ * low bits of the hash, and a new entry replaces whatever was in its slot.
+ * The check is the hash xor the data, so two threads writing the same slot at
+ * once, or a reader catching a write half done, leave a check that no longer
+ * matches its data and the get misses instead of returning another
+ * position's entry (Hyatt, Mann). No locks and no CAS, so any number of
+ * search threads can share one table.
+ * 
+ * Like every transposition table it is lossy: entries are overwritten, and
+ * two positions with the same 64 bit hash share one entry.
+ * 
+ * https://craftychess.com/hyatt/hashing.html
+ */
+public class TranspositionTable {
+	private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+	// so that an empty slot, all zero, does not match the hash 0
+	private static final long CHECK_MASK = 0x9E3779B97F4A7C15L;
+
+	// check, data, check, data, ...
+	private final long[] slots;
+	private final int mask;
+
+	/**
+	 * @param capacity The number of entries, rounded up to a power of two
+	 */
+	public TranspositionTable(int capacity) {
+		Validator.checkValid(capacity > 0 && capacity <= 1 << 29, "The capacity must be between 1 and 2^29");
+		int entries = Integer.highestOneBit(capacity);
+		if (entries < capacity) {
+			entries <<= 1;
+		}
+		slots = new long[entries << 1];
+		mask = entries - 1;
+	}
+
+	public int capacity() {
+		return mask + 1;
+	}
+
+	public void put(long hash, long data) {
+		int slot = ((int) hash & mask) << 1;
+		// opaque keeps each long whole, plain writes to a long may be split in two
+		SLOTS.setOpaque(slots, slot, hash ^ CHECK_MASK ^ data);
+		SLOTS.setOpaque(slots, slot + 1, data);
+	}
+
+	/**
+	 * @param hash   The hash of the position
+	 * @param absent Returned when the table has no entry for hash
+	 * @return The last entry put for hash, absent if it was overwritten or never put
+	 */
+	public long get(long hash, long absent) {
+		int slot = ((int) hash & mask) << 1;
+		long check = (long) SLOTS.getOpaque(slots, slot);
+		long data = (long) SLOTS.getOpaque(slots, slot + 1);
+		return (check ^ data) == (hash ^ CHECK_MASK) ? data : absent;
+	}
+
+	public boolean contains(long hash) {
+		int slot = ((int) hash & mask) << 1;
+		long check = (long) SLOTS.getOpaque(slots, slot);
+		long data = (long) SLOTS.getOpaque(slots, slot + 1);
+		return (check ^ data) == (hash ^ CHECK_MASK);
+	}
+
+	// Forgets every entry, not safe to call while other threads use the table
+	public void clear() {
+		Arrays.fill(slots, 0);
+	}
+}
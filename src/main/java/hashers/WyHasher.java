@@ -0,0 +1,82 @@
+package hashers;
+
+/**
+ * An implementation of wyhash (final version 4).
+ * 
+ * Every step is one 64 x 64 -> 128 bit multiplication whose halves are
+ * xored together, 48 bytes per loop iteration over three independent
+ * chains. Few operations per byte make it one of the fastest hashes for the
+ * short keys of hash tables.
+ * 
+ * https://github.com/wangyi-fudan/wyhash
+ */
+public class WyHasher extends ByteHasher64 {
+	private static final long SECRET_0 = 0x2D358DCCAA6C78A5L;
+	private static final long SECRET_1 = 0x8BB84B93962EACC9L;
+	private static final long SECRET_2 = 0x4B33A62ED433D4A3L;
+	private static final long SECRET_3 = 0x4D5A2DA51DE1AA47L;
+
+	public WyHasher() {
+		this(0);
+	}
+
+	public WyHasher(long seed) {
+		super(seed);
+	}
+
+	@Override
+	<T> long hash(T input, ByteAccess<T> access, int offset, int length, long seed) {
+		seed ^= mix(seed ^ SECRET_0, SECRET_1);
+		long a;
+		long b;
+		if (length <= 16) {
+			if (length >= 4) {
+				// the first and last 4 bytes, and 4 more from each side when there are over 8
+				int shift = (length >>> 3) << 2;
+				a = access.getUnsignedInt(input, offset) << 32 | access.getUnsignedInt(input, offset + shift);
+				b = access.getUnsignedInt(input, offset + length - 4) << 32
+						| access.getUnsignedInt(input, offset + length - 4 - shift);
+			} else if (length > 0) {
+				a = (long) access.getUnsignedByte(input, offset) << 16
+						| (long) access.getUnsignedByte(input, offset + (length >>> 1)) << 8
+						| access.getUnsignedByte(input, offset + length - 1);
+				b = 0;
+			} else {
+				a = 0;
+				b = 0;
+			}
+		} else {
+			int remaining = length;
+			if (remaining > 48) {
+				long see1 = seed;
+				long see2 = seed;
+				do {
+					seed = mix(access.getLong(input, offset) ^ SECRET_1, access.getLong(input, offset + 8) ^ seed);
+					see1 = mix(access.getLong(input, offset + 16) ^ SECRET_2, access.getLong(input, offset + 24) ^ see1);
+					see2 = mix(access.getLong(input, offset + 32) ^ SECRET_3, access.getLong(input, offset + 40) ^ see2);
+					offset += 48;
+					remaining -= 48;
+				} while (remaining > 48);
+				seed ^= see1 ^ see2;
+			}
+			while (remaining > 16) {
+				seed = mix(access.getLong(input, offset) ^ SECRET_1, access.getLong(input, offset + 8) ^ seed);
+				offset += 16;
+				remaining -= 16;
+			}
+			a = access.getLong(input, offset + remaining - 16);
+			b = access.getLong(input, offset + remaining - 8);
+		}
+
+		a ^= SECRET_1;
+		b ^= seed;
+		long low = a * b;
+		long high = unsignedMultiplyHigh(a, b);
+		return mix(low ^ SECRET_0 ^ length, high ^ SECRET_1);
+	}
+
+	// The two halves of the 128 bit product xored
+	private static long mix(long a, long b) {
+		return a * b ^ unsignedMultiplyHigh(a, b);
+	}
+}
@@ -0,0 +1,236 @@
+package hashers;
+
+/**
+ * An implementation of the 64 bit XXH3 hash.
+ * 
+ * Short inputs (up to 240 bytes) are mixed straight against a 192 byte secret
+ * with 64 x 64 -> 128 bit multiplications, one branch per size class. Longer
+ * inputs run eight independent accumulators over 64 byte stripes, a shape the
+ * JIT can keep in registers, and scramble them every 1 KB block.
+ * 
+ * A non-zero seed derives its own secret for long inputs, which is done once
+ * per instance.
+ * 
+ * https://github.com/Cyan4973/xxHash/blob/dev/doc/xxhash_spec.md
+ */
+public class XXH3Hasher extends ByteHasher64 {
+	private static final long PRIME32_1 = 0x9E3779B1L;
+	private static final long PRIME32_2 = 0x85EBCA77L;
+	private static final long PRIME32_3 = 0xC2B2AE3DL;
+	private static final long PRIME_MX1 = 0x165667919E3779F9L;
+	private static final long PRIME_MX2 = 0x9FB21C651E98DF25L;
+
+	private static final int STRIPE_LENGTH = 64;
+	private static final int SECRET_CONSUME_RATE = 8;
+	private static final int SECRET_SIZE = 192;
+	private static final int STRIPES_PER_BLOCK = (SECRET_SIZE - STRIPE_LENGTH) / SECRET_CONSUME_RATE;
+	private static final int BLOCK_LENGTH = STRIPE_LENGTH * STRIPES_PER_BLOCK;
+	private static final int MIDSIZE_MAX = 240;
+
+	private static final byte[] DEFAULT_SECRET = toBytes(new int[] {
+			0xb8, 0xfe, 0x6c, 0x39, 0x23, 0xa4, 0x4b, 0xbe, 0x7c, 0x01, 0x81, 0x2c, 0xf7, 0x21, 0xad, 0x1c,
+			0xde, 0xd4, 0x6d, 0xe9, 0x83, 0x90, 0x97, 0xdb, 0x72, 0x40, 0xa4, 0xa4, 0xb7, 0xb3, 0x67, 0x1f,
+			0xcb, 0x79, 0xe6, 0x4e, 0xcc, 0xc0, 0xe5, 0x78, 0x82, 0x5a, 0xd0, 0x7d, 0xcc, 0xff, 0x72, 0x21,
+			0xb8, 0x08, 0x46, 0x74, 0xf7, 0x43, 0x24, 0x8e, 0xe0, 0x35, 0x90, 0xe6, 0x81, 0x3a, 0x26, 0x4c,
+			0x3c, 0x28, 0x52, 0xbb, 0x91, 0xc3, 0x00, 0xcb, 0x88, 0xd0, 0x65, 0x8b, 0x1b, 0x53, 0x2e, 0xa3,
+			0x71, 0x64, 0x48, 0x97, 0xa2, 0x0d, 0xf9, 0x4e, 0x38, 0x19, 0xef, 0x46, 0xa9, 0xde, 0xac, 0xd8,
+			0xa8, 0xfa, 0x76, 0x3f, 0xe3, 0x9c, 0x34, 0x3f, 0xf9, 0xdc, 0xbb, 0xc7, 0xc7, 0x0b, 0x4f, 0x1d,
+			0x8a, 0x51, 0xe0, 0x4b, 0xcd, 0xb4, 0x59, 0x31, 0xc8, 0x9f, 0x7e, 0xc9, 0xd9, 0x78, 0x73, 0x64,
+			0xea, 0xc5, 0xac, 0x83, 0x34, 0xd3, 0xeb, 0xc3, 0xc5, 0x81, 0xa0, 0xff, 0xfa, 0x13, 0x63, 0xeb,
+			0x17, 0x0d, 0xdd, 0x51, 0xb7, 0xf0, 0xda, 0x49, 0xd3, 0x16, 0x55, 0x26, 0x29, 0xd4, 0x68, 0x9e,
+			0x2b, 0x16, 0xbe, 0x58, 0x7d, 0x47, 0xa1, 0xfc, 0x8f, 0xf8, 0xb8, 0xd1, 0x7a, 0xd0, 0x31, 0xce,
+			0x45, 0xcb, 0x3a, 0x8f, 0x95, 0x16, 0x04, 0x28, 0xaf, 0xd7, 0xfb, 0xca, 0xbb, 0x4b, 0x40, 0x7e });
+
+	// the secret inputs over MIDSIZE_MAX are hashed with
+	private final byte[] longSecret;
+
+	public XXH3Hasher() {
+		this(0);
+	}
+
+	public XXH3Hasher(long seed) {
+		super(seed);
+		longSecret = deriveSecret(seed);
+	}
+
+	private static byte[] toBytes(int[] values) {
+		byte[] bytes = new byte[values.length];
+		for (int i = 0; i < values.length; i++) {
+			bytes[i] = (byte) values[i];
+		}
+		return bytes;
+	}
+
+	private static byte[] deriveSecret(long seed) {
+		if (seed == 0) {
+			return DEFAULT_SECRET;
+		}
+		byte[] secret = new byte[SECRET_SIZE];
+		for (int i = 0; i < SECRET_SIZE; i += 16) {
+			putLong(secret, i, secret(DEFAULT_SECRET, i) + seed);
+			putLong(secret, i + 8, secret(DEFAULT_SECRET, i + 8) - seed);
+		}
+		return secret;
+	}
+
+	private static void putLong(byte[] bytes, int offset, long value) {
+		for (int i = 0; i < 8; i++) {
+			bytes[offset + i] = (byte) (value >>> (i << 3));
+		}
+	}
+
+	private static long secret(byte[] secret, int offset) {
+		return ByteAccess.BYTE_ARRAY.getLong(secret, offset);
+	}
+
+	@Override
+	<T> long hash(T input, ByteAccess<T> access, int offset, int length, long seed) {
+		if (length <= 16) {
+			return hashUpTo16(input, access, offset, length, seed);
+		} else if (length <= 128) {
+			return hashUpTo128(input, access, offset, length, seed);
+		} else if (length <= MIDSIZE_MAX) {
+			return hashUpTo240(input, access, offset, length, seed);
+		}
+		return hashLong(input, access, offset, length, seed == this.seed ? longSecret : deriveSecret(seed));
+	}
+
+	private static <T> long hashUpTo16(T input, ByteAccess<T> access, int offset, int length, long seed) {
+		final byte[] secret = DEFAULT_SECRET;
+		if (length > 8) {
+			long low = access.getLong(input, offset) ^ (secret(secret, 24) ^ secret(secret, 32)) + seed;
+			long high = access.getLong(input, offset + length - 8) ^ (secret(secret, 40) ^ secret(secret, 48)) - seed;
+			long accumulator = length + Long.reverseBytes(low) + high + multiplyFold(low, high);
+			return avalanche(accumulator);
+		} else if (length >= 4) {
+			seed ^= (long) Integer.reverseBytes((int) seed) << 32;
+			long first = access.getUnsignedInt(input, offset);
+			long last = access.getUnsignedInt(input, offset + length - 4);
+			long keyed = (last + (first << 32)) ^ (secret(secret, 8) ^ secret(secret, 16)) - seed;
+			return rrmxmx(keyed, length);
+		} else if (length > 0) {
+			int first = access.getUnsignedByte(input, offset);
+			int middle = access.getUnsignedByte(input, offset + (length >> 1));
+			int last = access.getUnsignedByte(input, offset + length - 1);
+			long combined = (first << 16 | middle << 24 | last | length << 8) & 0xFFFFFFFFL;
+			long flip = ((ByteAccess.BYTE_ARRAY.getUnsignedInt(secret, 0)
+					^ ByteAccess.BYTE_ARRAY.getUnsignedInt(secret, 4))) + seed;
+			return XXHasher.avalanche(combined ^ flip);
+		}
+		return XXHasher.avalanche(seed ^ secret(secret, 56) ^ secret(secret, 64));
+	}
+
+	private static <T> long hashUpTo128(T input, ByteAccess<T> access, int offset, int length, long seed) {
+		final byte[] secret = DEFAULT_SECRET;
+		final int end = offset + length;
+		long accumulator = length * XXHasher.PRIME64_1;
+		if (length > 32) {
+			if (length > 64) {
+				if (length > 96) {
+					accumulator += mix16(input, access, offset + 48, secret, 96, seed);
+					accumulator += mix16(input, access, end - 64, secret, 112, seed);
+				}
+				accumulator += mix16(input, access, offset + 32, secret, 64, seed);
+				accumulator += mix16(input, access, end - 48, secret, 80, seed);
+			}
+			accumulator += mix16(input, access, offset + 16, secret, 32, seed);
+			accumulator += mix16(input, access, end - 32, secret, 48, seed);
+		}
+		accumulator += mix16(input, access, offset, secret, 0, seed);
+		accumulator += mix16(input, access, end - 16, secret, 16, seed);
+		return avalanche(accumulator);
+	}
+
+	private static <T> long hashUpTo240(T input, ByteAccess<T> access, int offset, int length, long seed) {
+		final byte[] secret = DEFAULT_SECRET;
+		final int rounds = length / 16;
+		long accumulator = length * XXHasher.PRIME64_1;
+		for (int i = 0; i < 8; i++) {
+			accumulator += mix16(input, access, offset + 16 * i, secret, 16 * i, seed);
+		}
+		accumulator = avalanche(accumulator);
+		for (int i = 8; i < rounds; i++) {
+			accumulator += mix16(input, access, offset + 16 * i, secret, 16 * (i - 8) + 3, seed);
+		}
+		// the last 16 bytes against the end of the minimum 136 byte secret
+		accumulator += mix16(input, access, offset + length - 16, secret, 136 - 17, seed);
+		return avalanche(accumulator);
+	}
+
+	private static <T> long hashLong(T input, ByteAccess<T> access, int offset, int length, byte[] secret) {
+		long[] accumulators = { PRIME32_3, XXHasher.PRIME64_1, XXHasher.PRIME64_2, XXHasher.PRIME64_3,
+				XXHasher.PRIME64_4, PRIME32_2, XXHasher.PRIME64_5, PRIME32_1 };
+
+		final int blocks = (length - 1) / BLOCK_LENGTH;
+		for (int block = 0; block < blocks; block++) {
+			accumulate(accumulators, input, access, offset + block * BLOCK_LENGTH, secret, STRIPES_PER_BLOCK);
+			scramble(accumulators, secret, SECRET_SIZE - STRIPE_LENGTH);
+		}
+
+		final int stripes = ((length - 1) - BLOCK_LENGTH * blocks) / STRIPE_LENGTH;
+		accumulate(accumulators, input, access, offset + blocks * BLOCK_LENGTH, secret, stripes);
+		// the last stripe, overlapping the previous one
+		accumulateStripe(accumulators, input, access, offset + length - STRIPE_LENGTH, secret,
+				SECRET_SIZE - STRIPE_LENGTH - 7);
+
+		long result = length * XXHasher.PRIME64_1;
+		for (int i = 0; i < 4; i++) {
+			result += multiplyFold(accumulators[2 * i] ^ secret(secret, 11 + 16 * i),
+					accumulators[2 * i + 1] ^ secret(secret, 11 + 16 * i + 8));
+		}
+		return avalanche(result);
+	}
+
+	private static <T> void accumulate(long[] accumulators, T input, ByteAccess<T> access, int offset, byte[] secret,
+			int stripes) {
+		for (int stripe = 0; stripe < stripes; stripe++) {
+			accumulateStripe(accumulators, input, access, offset + stripe * STRIPE_LENGTH, secret,
+					stripe * SECRET_CONSUME_RATE);
+		}
+	}
+
+	private static <T> void accumulateStripe(long[] accumulators, T input, ByteAccess<T> access, int offset,
+			byte[] secret, int secretOffset) {
+		for (int i = 0; i < 8; i++) {
+			long value = access.getLong(input, offset + 8 * i);
+			long key = value ^ secret(secret, secretOffset + 8 * i);
+			accumulators[i ^ 1] += value;
+			accumulators[i] += (key & 0xFFFFFFFFL) * (key >>> 32);
+		}
+	}
+
+	private static void scramble(long[] accumulators, byte[] secret, int secretOffset) {
+		for (int i = 0; i < 8; i++) {
+			long accumulator = accumulators[i];
+			accumulator ^= accumulator >>> 47;
+			accumulator ^= secret(secret, secretOffset + 8 * i);
+			accumulators[i] = accumulator * PRIME32_1;
+		}
+	}
+
+	private static <T> long mix16(T input, ByteAccess<T> access, int offset, byte[] secret, int secretOffset,
+			long seed) {
+		long low = access.getLong(input, offset);
+		long high = access.getLong(input, offset + 8);
+		return multiplyFold(low ^ (secret(secret, secretOffset) + seed), high ^ (secret(secret, secretOffset + 8) - seed));
+	}
+
+	// The 128 bit product folded to 64 bits
+	private static long multiplyFold(long a, long b) {
+		return a * b ^ unsignedMultiplyHigh(a, b);
+	}
+
+	private static long avalanche(long hash) {
+		hash ^= hash >>> 37;
+		hash *= PRIME_MX1;
+		return hash ^ (hash >>> 32);
+	}
+
+	private static long rrmxmx(long hash, int length) {
+		hash ^= Long.rotateLeft(hash, 49) ^ Long.rotateLeft(hash, 24);
+		hash *= PRIME_MX2;
+		hash ^= (hash >>> 35) + length;
+		hash *= PRIME_MX2;
+		return hash ^ (hash >>> 28);
+	}
+}
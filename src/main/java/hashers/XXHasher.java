@@ -0,0 +1,89 @@
+package hashers;
+
+/**
+ * An implementation of xxHash64.
+ * 
+ * Four independent 64 bit lanes take 32 bytes per step, which keeps several
+ * multiplications in flight at once, and are merged and avalanched at the
+ * end. Inputs under 32 bytes skip the lanes.
+ * 
+ * https://github.com/Cyan4973/xxHash/blob/dev/doc/xxhash_spec.md
+ */
+public class XXHasher extends ByteHasher64 {
+	static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+	static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+	static final long PRIME64_3 = 0x165667B19E3779F9L;
+	static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+	static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+	public XXHasher() {
+		this(0);
+	}
+
+	public XXHasher(long seed) {
+		super(seed);
+	}
+
+	@Override
+	<T> long hash(T input, ByteAccess<T> access, int offset, int length, long seed) {
+		final int end = offset + length;
+		long hash;
+		if (length >= 32) {
+			long v1 = seed + PRIME64_1 + PRIME64_2;
+			long v2 = seed + PRIME64_2;
+			long v3 = seed;
+			long v4 = seed - PRIME64_1;
+			final int limit = end - 32;
+			do {
+				v1 = round(v1, access.getLong(input, offset));
+				v2 = round(v2, access.getLong(input, offset + 8));
+				v3 = round(v3, access.getLong(input, offset + 16));
+				v4 = round(v4, access.getLong(input, offset + 24));
+				offset += 32;
+			} while (offset <= limit);
+
+			hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+			hash = mergeRound(hash, v1);
+			hash = mergeRound(hash, v2);
+			hash = mergeRound(hash, v3);
+			hash = mergeRound(hash, v4);
+		} else {
+			hash = seed + PRIME64_5;
+		}
+
+		hash += length;
+		for (; offset <= end - 8; offset += 8) {
+			hash ^= round(0, access.getLong(input, offset));
+			hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+		}
+		if (offset <= end - 4) {
+			hash ^= access.getUnsignedInt(input, offset) * PRIME64_1;
+			hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+			offset += 4;
+		}
+		for (; offset < end; offset++) {
+			hash ^= access.getUnsignedByte(input, offset) * PRIME64_5;
+			hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+		}
+		return avalanche(hash);
+	}
+
+	private static long round(long accumulator, long lane) {
+		accumulator += lane * PRIME64_2;
+		accumulator = Long.rotateLeft(accumulator, 31);
+		return accumulator * PRIME64_1;
+	}
+
+	private static long mergeRound(long accumulator, long lane) {
+		accumulator ^= round(0, lane);
+		return accumulator * PRIME64_1 + PRIME64_4;
+	}
+
+	static long avalanche(long hash) {
+		hash ^= hash >>> 33;
+		hash *= PRIME64_2;
+		hash ^= hash >>> 29;
+		hash *= PRIME64_3;
+		return hash ^ (hash >>> 32);
+	}
+}
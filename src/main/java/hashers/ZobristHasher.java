@@ -6,12 +6,34 @@ import java.util.Objects;
 /**
  * An implementation of zobrist hashing.
  * 
- * Used for games maintaining evaluated previous states of a game.
+ * Used for games maintaining evaluated previous states of a game. A search
+ * that hashes a position per node should keep a {@link ZobristState} updated
+ * move by move instead of hashing the whole board again.
  * 
  * @author Ethan
  *
  */
 public class ZobristHasher extends Hasher implements Hasher64 {
+	private static final int SQUARES = 64;
+	private static final int VALUES = 256;
+
+	// a random bitstring per (byte value, square), a byte value is a piece
+	private final ZobristTable bitstrings;
+
+	/**
+	 * A hasher with bitstrings drawn from a fixed seed.
+	 */
+	public ZobristHasher() {
+		this(0);
+	}
+
+	/**
+	 * @param tableSeed Seed of the random bitstrings
+	 */
+	public ZobristHasher(long tableSeed) {
+		bitstrings = new ZobristTable(VALUES, SQUARES, tableSeed);
+	}
+
 	/**
 	 * Uses a generic implementation of the zorbrist hashing to encode a board's
 	 * state. This can be applied to other games, not just specifically for Chess.
@@ -40,6 +62,23 @@ public class ZobristHasher extends Hasher implements Hasher64 {
 		return hash;
 	}
 
+	/**
+	 * Zobrist hashing of a board encoded one byte per square: the xor of the
+	 * bitstrings of every (square, byte) pair and the seed. Squares wrap every 64
+	 * bytes, so it is meant for board sized keys; longer ones whose 64 byte
+	 * blocks are permuted collide.
+	 */
+	@Override
+	public long hash64(byte[] input, int offset, int length, long seed) {
+		checkValidRange(input, offset, length);
+
+		long hash = seed;
+		for (int i = 0; i < length; i++) {
+			hash ^= bitstrings.key(input[offset + i] & 0xFF, i & (SQUARES - 1));
+		}
+		return hash;
+	}
+
 	private static boolean isPiece(String symbol, String emptySymbol) {
 		return !Objects.equals(symbol, emptySymbol);
 	}
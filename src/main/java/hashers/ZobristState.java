@@ -0,0 +1,71 @@
+package hashers;
+
+/**
+ * The Zobrist hash of a position that is kept up to date as pieces are
+ * placed, removed and moved, each in O(1) whatever the size of the board.
+ * Every update is its own undo: moving a piece back, or removing what was
+ * placed, restores the previous hash, so a search can make and unmake moves
+ * on one state instead of rehashing the board at every node.
+ * 
+ * The state does not know the board, the caller says which piece is where.
+ * A state is not thread safe, each search thread should keep its own.
+ */
+public class ZobristState {
+	protected final ZobristTable table;
+	private long hash;
+
+	// A state for the empty board with the first player to move
+	public ZobristState(ZobristTable table) {
+		Hasher.checkValidInput(table);
+		this.table = table;
+	}
+
+	/**
+	 * @param table      The keys to hash with
+	 * @param board      The piece on each square, {@link ZobristTable#EMPTY} for none
+	 * @param secondSide True if the second player is to move
+	 */
+	public ZobristState(ZobristTable table, int[] board, boolean secondSide) {
+		this(table);
+		hash = table.hash(board, secondSide);
+	}
+
+	public long hash() {
+		return hash;
+	}
+
+	// Resets the hash, for example to one saved before a sequence of moves
+	public void setHash(long hash) {
+		this.hash = hash;
+	}
+
+	public ZobristState place(int piece, int square) {
+		hash = table.toggle(hash, piece, square);
+		return this;
+	}
+
+	public ZobristState remove(int piece, int square) {
+		hash = table.toggle(hash, piece, square);
+		return this;
+	}
+
+	public ZobristState move(int piece, int from, int to) {
+		hash = table.move(hash, piece, from, to);
+		return this;
+	}
+
+	// A move that takes captured off to, such as a capture in chess
+	public ZobristState capture(int piece, int from, int to, int captured) {
+		hash = table.toggle(table.move(hash, piece, from, to), captured, to);
+		return this;
+	}
+
+	public ZobristState toggleSide() {
+		hash = table.toggleSide(hash);
+		return this;
+	}
+
+	public ZobristTable getTable() {
+		return table;
+	}
+}
@@ -0,0 +1,107 @@
+package hashers;
+
+import java.util.SplittableRandom;
+
+import test.Validator;
+
+/**
+ * The random keys of Zobrist hashing for a game with a fixed number of piece
+ * kinds and squares, in one flat {@code long[pieces * squares]} indexed by
+ * {@code piece * squares + square}. Pieces and squares are small ints chosen
+ * by the game, a chess engine would use 12 pieces and 64 squares.
+ * 
+ * The hash of a position is the xor of the keys of every occupied (piece,
+ * square) pair, and of {@link #sideKey()} when the second player is to move.
+ * Xor is its own inverse, so a move changes the hash by the keys it touches
+ * and nothing else: {@link #move(long, int, int, int)} is two loads and two
+ * xors however big the board is. The methods here take and return the hash
+ * so a search can keep it in a local per node, {@link ZobristState} keeps it
+ * in an object for code that makes and unmakes moves on a shared board.
+ * 
+ * https://research.cs.wisc.edu/techreports/1970/TR88.pdf (Zobrist 1970)
+ */
+public class ZobristTable {
+	// Marks an empty square in the boards passed to hash
+	public static final int EMPTY = -1;
+
+	protected final int pieces;
+	protected final int squares;
+	private final long[] keys;
+	private final long sideKey;
+
+	/**
+	 * @param pieces  The number of piece kinds, ids 0 to pieces - 1
+	 * @param squares The number of squares, ids 0 to squares - 1
+	 * @param seed    Seed of the random keys, equal seeds give equal tables
+	 */
+	public ZobristTable(int pieces, int squares, long seed) {
+		Validator.checkValid(pieces > 0 && squares > 0, "There must be at least one piece and one square");
+		Validator.checkValid((long) pieces * squares <= Integer.MAX_VALUE, "The table is too large");
+		this.pieces = pieces;
+		this.squares = squares;
+
+		SplittableRandom random = new SplittableRandom(seed);
+		keys = new long[pieces * squares];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = random.nextLong();
+		}
+		sideKey = random.nextLong();
+	}
+
+	public int pieces() {
+		return pieces;
+	}
+
+	public int squares() {
+		return squares;
+	}
+
+	public long key(int piece, int square) {
+		return keys[piece * squares + square];
+	}
+
+	public long sideKey() {
+		return sideKey;
+	}
+
+	/**
+	 * The hash of a whole board from scratch, for the root of a search or to
+	 * check an incrementally updated hash.
+	 * 
+	 * @param board      The piece on each square, {@link #EMPTY} for none
+	 * @param secondSide True if the second player is to move
+	 * @return The hash of the position
+	 */
+	public long hash(int[] board, boolean secondSide) {
+		Validator.checkValid(board != null && board.length == squares, "The board should have one entry per square");
+
+		long hash = secondSide ? sideKey : 0;
+		for (int square = 0; square < board.length; square++) {
+			int piece = board[square];
+			if (piece != EMPTY) {
+				if (piece < 0 || piece >= pieces) {
+					// the message is only built on failure, this runs for every occupied square
+					throw new IllegalArgumentException("Unknown piece " + piece);
+				}
+				hash ^= keys[piece * squares + square];
+			}
+		}
+		return hash;
+	}
+
+	// The hash with piece put on or taken off square, the same xor does both
+	public long toggle(long hash, int piece, int square) {
+		return hash ^ keys[piece * squares + square];
+	}
+
+	// The hash with piece moved from one square to another, a capture also toggles the captured piece off
+	public long move(long hash, int piece, int from, int to) {
+		int row = piece * squares;
+		return hash ^ keys[row + from] ^ keys[row + to];
+	}
+
+	// The hash with the other player to move
+	public long toggleSide(long hash) {
+		return hash ^ sideKey;
+	}
+}
@@ -0,0 +1,69 @@
+package metrics;
+
+/*
+ * An alignment of two strings, as the two strings with GAP inserted so that
+ * column i pairs first.charAt(i) with second.charAt(i).
+ *
+ * For a local alignment the start and end offsets tell which substrings were
+ * aligned, for a global one they cover both strings.
+ */
+public class Alignment {
+	public static final char GAP = '-';
+
+	protected final String first;
+	protected final String second;
+	protected final int score;
+	protected final int firstStart;
+	protected final int secondStart;
+	protected final int firstEnd;
+	protected final int secondEnd;
+
+	public Alignment(String first, String second, int score, int firstStart, int firstEnd, int secondStart,
+			int secondEnd) {
+		this.first = first;
+		this.second = second;
+		this.score = score;
+		this.firstStart = firstStart;
+		this.firstEnd = firstEnd;
+		this.secondStart = secondStart;
+		this.secondEnd = secondEnd;
+	}
+
+	public String getFirst() {
+		return first;
+	}
+
+	public String getSecond() {
+		return second;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	// offsets in the original strings, end exclusive
+	public int getFirstStart() {
+		return firstStart;
+	}
+
+	public int getFirstEnd() {
+		return firstEnd;
+	}
+
+	public int getSecondStart() {
+		return secondStart;
+	}
+
+	public int getSecondEnd() {
+		return secondEnd;
+	}
+
+	// Number of columns
+	public int length() {
+		return first.length();
+	}
+
+	public String toString() {
+		return first + "\n" + second + "\nScore: " + score;
+	}
+}
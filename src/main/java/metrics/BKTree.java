@@ -0,0 +1,188 @@
+package metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToIntBiFunction;
+
+/*
+ * Burkhard-Keller tree, finds the items within distance k of a query under
+ * any integer metric (LevenshteinDistance::distance, DamerauDistance::distance,
+ * HammingDistance::distance, ...)
+ *
+ * Every child hangs off its parent by its distance to the parent. By the
+ * triangle inequality an item within k of the query is under a child whose
+ * edge is within k of d(query, parent), so only those children are visited.
+ *
+ * The tree is bulk loaded breadth first into arrays: a node's children are
+ * contiguous and sorted by edge, so the children to visit are one binary
+ * search and a scan, and nodes near the root, which every query visits, sit
+ * together at the front.
+ *
+ * https://dl.acm.org/doi/10.1145/362003.362025
+ */
+public class BKTree<T> {
+	protected final ToIntBiFunction<? super T, ? super T> metric;
+	protected final Object[] items;
+	// distance from each node to its parent
+	protected final int[] edges;
+	// children of node i are the nodes [childStart[i], childStart[i + 1])
+	protected final int[] childStart;
+
+	public BKTree(Collection<? extends T> items, ToIntBiFunction<? super T, ? super T> metric) {
+		this.metric = metric;
+		final int size = items.size();
+		this.items = new Object[size];
+		this.edges = new int[size];
+		this.childStart = new int[size + 1];
+		if (size == 0) {
+			return;
+		}
+
+		Object[] input = items.toArray();
+		// each queued bucket holds the input indices under one node, owner first
+		ArrayDeque<int[]> buckets = new ArrayDeque<>();
+		int[] all = new int[size];
+		for (int i = 0; i < size; i++) {
+			all[i] = i;
+		}
+		buckets.add(all);
+		int next = 1;
+
+		for (int node = 0; node < size; node++) {
+			int[] bucket = buckets.poll();
+			T owner = cast(input[bucket[0]]);
+			this.items[node] = owner;
+			childStart[node] = next;
+			if (bucket.length == 1) {
+				continue;
+			}
+
+			// sort the rest of the bucket by distance to the owner
+			long[] byDistance = new long[bucket.length - 1];
+			for (int i = 1; i < bucket.length; i++) {
+				int distance = metric.applyAsInt(owner, cast(input[bucket[i]]));
+				if (distance < 0) {
+					throw new IllegalArgumentException("The metric returned a negative distance");
+				}
+				byDistance[i - 1] = (long) distance << 32 | bucket[i];
+			}
+			Arrays.sort(byDistance);
+
+			for (int from = 0; from < byDistance.length;) {
+				int distance = (int) (byDistance[from] >>> 32);
+				int to = from;
+				while (to < byDistance.length && (int) (byDistance[to] >>> 32) == distance) {
+					to++;
+				}
+				int[] child = new int[to - from];
+				for (int i = from; i < to; i++) {
+					child[i - from] = (int) byDistance[i];
+				}
+				edges[next++] = distance;
+				buckets.add(child);
+				from = to;
+			}
+		}
+		childStart[size] = next;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T cast(Object item) {
+		return (T) item;
+	}
+
+	public int size() {
+		return items.length;
+	}
+
+	// Every item within maxDistance of query, in no particular order
+	public List<Neighbor<T>> within(T query, int maxDistance) {
+		List<Neighbor<T>> found = new ArrayList<>();
+		if (items.length == 0) {
+			return found;
+		}
+
+		int[] stack = new int[16];
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int node = stack[--top];
+			int distance = metric.applyAsInt(query, cast(items[node]));
+			if (distance <= maxDistance) {
+				found.add(new Neighbor<>(cast(items[node]), distance));
+			}
+
+			int end = childStart[node + 1];
+			long upper = (long) distance + maxDistance;
+			for (int child = firstChild(node, distance - maxDistance); child < end && edges[child] <= upper; child++) {
+				if (top == stack.length) {
+					stack = Arrays.copyOf(stack, top << 1);
+				}
+				stack[top++] = child;
+			}
+		}
+		return found;
+	}
+
+	/*
+	 * The k nearest items, closest first. The search radius is the distance
+	 * of the kth best so far, so it shrinks as closer items turn up; a child is
+	 * only visited if |edge - d(query, parent)| is still inside it.
+	 */
+	public List<Neighbor<T>> nearest(T query, int k) {
+		// worst of the best k on top
+		PriorityQueue<Neighbor<T>> best = new PriorityQueue<>(Comparator.comparingDouble((Neighbor<T> n) -> n.distance).reversed());
+		if (items.length == 0 || k <= 0) {
+			return new ArrayList<>();
+		}
+
+		// pending children with the lower bound on their distance
+		ArrayDeque<long[]> stack = new ArrayDeque<>();
+		stack.push(new long[] { 0, 0 });
+		while (!stack.isEmpty()) {
+			long[] entry = stack.pop();
+			int node = (int) entry[0];
+			if (best.size() == k && entry[1] > best.peek().distance) {
+				continue;
+			}
+
+			int distance = metric.applyAsInt(query, cast(items[node]));
+			if (best.size() < k) {
+				best.add(new Neighbor<>(cast(items[node]), distance));
+			} else if (distance < best.peek().distance) {
+				best.poll();
+				best.add(new Neighbor<>(cast(items[node]), distance));
+			}
+
+			int radius = best.size() < k ? Integer.MAX_VALUE : (int) best.peek().distance;
+			int end = childStart[node + 1];
+			long upper = (long) distance + radius;
+			for (int child = firstChild(node, distance - radius); child < end && edges[child] <= upper; child++) {
+				stack.push(new long[] { child, Math.abs(edges[child] - distance) });
+			}
+		}
+
+		List<Neighbor<T>> nearest = new ArrayList<>(best);
+		nearest.sort(Comparator.comparingDouble(Neighbor::getDistance));
+		return nearest;
+	}
+
+	// First child of node whose edge is at least minEdge
+	private int firstChild(int node, int minEdge) {
+		int low = childStart[node], high = childStart[node + 1];
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (edges[middle] < minEdge) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
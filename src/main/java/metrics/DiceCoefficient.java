@@ -1,44 +1,39 @@
 package metrics;
-import java.util.HashMap;
-import java.util.Map;
 
 //https://en.wikipedia.org/wiki/S%C3%B8rensen%E2%80%93Dice_coefficient
-//Uses bigrams
+//Uses bigrams unless told otherwise
 public class DiceCoefficient {
 	public static double similarity(String x, String y) {
 		return similarity(x, y, false);
 	}
+
 	public static double similarity(String x, String y, boolean includeDuplicates) {
+		return similarity(x, y, 2, includeDuplicates);
+	}
+
+	public static double similarity(String x, String y, int ngram, boolean includeDuplicates) {
 		if (x.isEmpty() && y.isEmpty()) {
 			return 1.0;
 		} else if (x.isEmpty() || y.isEmpty()) {
 			return 0.0;
+		} else if (x.length() < ngram && y.length() < ngram) {
+			// neither has a q-gram to compare, so only equal strings are alike
+			return x.equals(y) ? 1.0 : 0.0;
 		}
-		
-		// Could just subtract by 2 in the (nx + ny)
-		int totalBigramsX = x.length() - 1;
-		int totalBigramsY = y.length() - 1;
-
-		Map<String, Integer> bigramCount = new HashMap<>();
-		for (int i = 0; i <= x.length() - 2; i++) {
-			if (includeDuplicates) {
-				bigramCount.compute(x.substring(i, i + 2), (k, v) -> v == null ? 1 : v + 1);
-			} else {
-				bigramCount.computeIfAbsent(x.substring(i, i + 2), k -> 1);
-			}
-		}
-
-		int intersection = 0;
-		for (int i = 0; i <= y.length() - 2; i++) {
-			String bigram = y.substring(i, i + 2);
-			Integer count = bigramCount.get(bigram);
+		return similarity(QGram.profile(x, ngram), QGram.profile(y, ngram), includeDuplicates);
+	}
 
-			if (count != null && count > 0) {
-				bigramCount.put(bigram, count - 1);
-				intersection++;
-			}
+	/*
+	 * includeDuplicates counts repeated q-grams as a multiset, otherwise each
+	 * distinct q-gram once. NaN if neither profile has a q-gram: "a" and "b"
+	 * profile the same as "a" and "a" then, the String overload tells them apart.
+	 */
+	public static double similarity(QGram.Profile x, QGram.Profile y, boolean includeDuplicates) {
+		int intersection = includeDuplicates ? x.overlap(y) : x.distinctOverlap(y);
+		int total = includeDuplicates ? x.size() + y.size() : x.distinctSize() + y.distinctSize();
+		if (total == 0) {
+			return Double.NaN;
 		}
-
-		return (2.0 * intersection) / (totalBigramsX + totalBigramsY);
+		return (2.0 * intersection) / total;
 	}
 }
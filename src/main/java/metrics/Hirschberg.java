@@ -0,0 +1,147 @@
+package metrics;
+
+/*
+ * Global alignment in linear space (Hirschberg 1975)
+ *
+ * The first string is cut in half. One linear space pass scores the top half
+ * against every prefix of the second string, another scores the bottom half
+ * backwards against every suffix, and the best sum tells where the optimal
+ * alignment crosses the middle row. Both halves are then aligned
+ * recursively. O(n * m) time like the full table, O(n + m) memory.
+ *
+ * https://dl.acm.org/doi/10.1145/360825.360861
+ */
+final class Hirschberg {
+	// small enough subproblems are aligned with a full table and a traceback
+	private static final int FULL_TABLE_CELLS = 1 << 16;
+
+	static final class Scoring {
+		final int matchWeight;
+		final int mismatchWeight;
+		final int gapWeight;
+		final boolean useMax;
+
+		Scoring(int matchWeight, int mismatchWeight, int gapWeight, boolean useMax) {
+			this.matchWeight = matchWeight;
+			this.mismatchWeight = mismatchWeight;
+			this.gapWeight = gapWeight;
+			this.useMax = useMax;
+		}
+
+		int score(char x, char y) {
+			return x == y ? matchWeight : mismatchWeight;
+		}
+
+		int best(int x, int y) {
+			return useMax ? Math.max(x, y) : Math.min(x, y);
+		}
+
+		int cell(int diagonal, int up, int left, char x, char y) {
+			return best(diagonal + score(x, y), best(up + gapWeight, left + gapWeight));
+		}
+	}
+
+	private Hirschberg() {
+	}
+
+	static Alignment align(String a, int aFrom, int aTo, String b, int bFrom, int bTo, Scoring scoring) {
+		StringBuilder first = new StringBuilder();
+		StringBuilder second = new StringBuilder();
+		// the score comes from the DP, the strings may hold GAP characters of their own
+		int score = align(a, aFrom, aTo, b, bFrom, bTo, scoring, first, second);
+		return new Alignment(first.toString(), second.toString(), score, aFrom, aTo, bFrom, bTo);
+	}
+
+	// Appends the alignment of the two ranges and returns its score
+	private static int align(String a, int aFrom, int aTo, String b, int bFrom, int bTo, Scoring scoring,
+			StringBuilder first, StringBuilder second) {
+		final int n = aTo - aFrom, m = bTo - bFrom;
+		if (n == 0 || m == 0 || n == 1 || (long) n * m <= FULL_TABLE_CELLS) {
+			return alignWithTable(a, aFrom, aTo, b, bFrom, bTo, scoring, first, second);
+		}
+
+		int middle = aFrom + n / 2;
+		int[] top = lastRow(a, aFrom, middle, b, bFrom, bTo, false, scoring);
+		int[] bottom = lastRow(a, middle, aTo, b, bFrom, bTo, true, scoring);
+		int split = 0, bestTotal = top[0] + bottom[m];
+		for (int k = 1; k <= m; k++) {
+			int total = top[k] + bottom[m - k];
+			if (total != bestTotal && scoring.best(total, bestTotal) == total) {
+				split = k;
+				bestTotal = total;
+			}
+		}
+
+		align(a, aFrom, middle, b, bFrom, bFrom + split, scoring, first, second);
+		align(a, middle, aTo, b, bFrom + split, bTo, scoring, first, second);
+		return bestTotal;
+	}
+
+	/*
+	 * Scores of a[aFrom, aTo) against every prefix of b[bFrom, bTo), or when
+	 * reversed, against every suffix with both strings read backwards.
+	 * row[k] is the score against the k characters.
+	 */
+	static int[] lastRow(String a, int aFrom, int aTo, String b, int bFrom, int bTo, boolean reversed,
+			Scoring scoring) {
+		final int n = aTo - aFrom, m = bTo - bFrom;
+		int[] previous = new int[m + 1];
+		int[] current = new int[m + 1];
+		for (int col = 1; col <= m; col++) {
+			previous[col] = previous[col - 1] + scoring.gapWeight;
+		}
+
+		for (int row = 1; row <= n; row++) {
+			char x = reversed ? a.charAt(aTo - row) : a.charAt(aFrom + row - 1);
+			current[0] = previous[0] + scoring.gapWeight;
+			for (int col = 1; col <= m; col++) {
+				char y = reversed ? b.charAt(bTo - col) : b.charAt(bFrom + col - 1);
+				current[col] = scoring.cell(previous[col - 1], previous[col], current[col - 1], x, y);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous;
+	}
+
+	// Full table, traceback prefers diagonal, then up, then left
+	private static int alignWithTable(String a, int aFrom, int aTo, String b, int bFrom, int bTo, Scoring scoring,
+			StringBuilder first, StringBuilder second) {
+		final int n = aTo - aFrom, m = bTo - bFrom;
+		final int width = m + 1;
+		int[] table = new int[(n + 1) * width];
+		for (int col = 1; col <= m; col++) {
+			table[col] = table[col - 1] + scoring.gapWeight;
+		}
+		for (int row = 1; row <= n; row++) {
+			int start = row * width;
+			table[start] = table[start - width] + scoring.gapWeight;
+			for (int col = 1; col <= m; col++) {
+				table[start + col] = scoring.cell(table[start - width + col - 1], table[start - width + col],
+						table[start + col - 1], a.charAt(aFrom + row - 1), b.charAt(bFrom + col - 1));
+			}
+		}
+
+		StringBuilder reversedFirst = new StringBuilder(n + m);
+		StringBuilder reversedSecond = new StringBuilder(n + m);
+		int row = n, col = m;
+		while (row > 0 || col > 0) {
+			int value = table[row * width + col];
+			if (row > 0 && col > 0 && value == table[(row - 1) * width + col - 1]
+					+ scoring.score(a.charAt(aFrom + row - 1), b.charAt(bFrom + col - 1))) {
+				reversedFirst.append(a.charAt(aFrom + --row));
+				reversedSecond.append(b.charAt(bFrom + --col));
+			} else if (row > 0 && value == table[(row - 1) * width + col] + scoring.gapWeight) {
+				reversedFirst.append(a.charAt(aFrom + --row));
+				reversedSecond.append(Alignment.GAP);
+			} else {
+				reversedFirst.append(Alignment.GAP);
+				reversedSecond.append(b.charAt(bFrom + --col));
+			}
+		}
+		first.append(reversedFirst.reverse());
+		second.append(reversedSecond.reverse());
+		return table[n * width + m];
+	}
+}
@@ -1,7 +1,6 @@
 package metrics;
-import java.util.HashMap;
-import java.util.Map;
 
+// Works on QGram.Profile, profile a string once when it is compared many times
 public class JaccardDistance {
 	public static double similarity(String x, String y) {
 		return similarity(x, y, 2, false);
@@ -12,7 +11,7 @@ public class JaccardDistance {
 	}
 
 	public static double similarity(String x, String y, boolean includeDuplicates) {
-		return similarity(x, y, 2, true);
+		return similarity(x, y, 2, includeDuplicates);
 	}
 
 	public static double similarity(String x, String y, int ngram, boolean includeDuplicates) {
@@ -22,45 +21,26 @@ public class JaccardDistance {
 			return 0.0;
 		} else if (ngram <= 0) {
 			return Integer.MAX_VALUE;
+		} else if (x.length() < ngram && y.length() < ngram) {
+			// neither has a q-gram to compare, so only equal strings are alike
+			return x.equals(y) ? 0.0 : 1.0;
 		}
+		return similarity(QGram.profile(x, ngram), QGram.profile(y, ngram), includeDuplicates);
+	}
 
-		Map<String, Integer> countFreq = new HashMap<>();
-
-		for (int i = 0; i <= x.length() - ngram; i++) {
-			if (includeDuplicates) {
-				countFreq.compute(x.substring(i, i + 2), (k, v) -> v == null ? 1 : v + 1);
-			} else {
-				String subSeq = x.substring(i, i + 2);
-				if (!countFreq.containsKey(subSeq)) {
-					countFreq.put(subSeq, 1);
-				}
-			}
-		}
-		int xSetSize = includeDuplicates ? x.length() - (ngram - 1) : countFreq.size();
-
-		int intersections = 0;
-		int ySetSize = 0;
-		for (int i = 0; i <= y.length() - 2; i++) {
-			String bigram = y.substring(i, i + 2);
-			Integer count = countFreq.get(bigram);
-
-			if (!includeDuplicates && count == null) { // first time seeing it
-				countFreq.put(bigram, -1);
-				ySetSize++;
-			}
-
-			if (count != null && count > 0) {
-				if (!includeDuplicates && count == 1) { // other string had it, only count this once
-					ySetSize++;
-				}
-
-				countFreq.put(bigram, count - 1);
-				intersections++;
-			}
+	/*
+	 * includeDuplicates counts repeated q-grams as a multiset, otherwise each
+	 * distinct q-gram once. NaN if neither profile has a q-gram: "a" and "b"
+	 * profile the same as "a" and "a" then, the String overload tells them apart.
+	 */
+	public static double similarity(QGram.Profile x, QGram.Profile y, boolean includeDuplicates) {
+		int intersections = includeDuplicates ? x.overlap(y) : x.distinctOverlap(y);
+		int xSetSize = includeDuplicates ? x.size() : x.distinctSize();
+		int ySetSize = includeDuplicates ? y.size() : y.distinctSize();
+		int union = xSetSize + ySetSize - intersections;
+		if (union == 0) {
+			return Double.NaN;
 		}
-
-		ySetSize = includeDuplicates ? y.length() - (ngram - 1) : ySetSize;
-		System.out.println(ySetSize + "\t" + xSetSize + "\t" + intersections);
-		return 1.0 - (double) intersections / (xSetSize + ySetSize - intersections);
+		return 1.0 - (double) intersections / union;
 	}
 }
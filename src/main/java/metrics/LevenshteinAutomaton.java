@@ -0,0 +1,169 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/*
+ * DFA accepting every string within edit distance maxDistance of a query
+ *
+ * A state is a row of the Levenshtein DP table for the characters read so
+ * far against the query, with every value capped at maxDistance + 1: the
+ * next row only depends on the previous one and the next character, and
+ * capped rows are finite, so the reachable rows are the states of a DFA.
+ * A state accepts when the last value of its row is <= maxDistance. A row
+ * whose values all exceed maxDistance can never come back under it, it is
+ * the DEAD state, which is what lets a trie walk prune whole subtrees.
+ *
+ * Characters that are not in the query all behave the same, so the DFA's
+ * alphabet is the query's distinct characters plus one "other" symbol and
+ * the transition table is states x (alphabet + 1) ints. The state count
+ * grows quickly with maxDistance, it is meant for the small distances of
+ * spelling correction (1 to 3).
+ *
+ * https://link.springer.com/article/10.1007/s10032-002-0082-8 (Schulz, Mihov 2002)
+ */
+public class LevenshteinAutomaton {
+	public static final int DEAD = -1;
+	public static final int START = 0;
+	// stands for every character outside the query, it never equals a query character
+	private static final int NOT_IN_QUERY = -1;
+
+	protected final String query;
+	protected final int maxDistance;
+	// the query's distinct characters, sorted, the symbol of alphabet[i] is i
+	private final char[] alphabet;
+	// symbols of the ASCII characters, the rest go through alphabet
+	private final int[] asciiSymbols = new int[128];
+	private final int symbols;
+	// transitions[state * symbols + symbol]
+	private final int[] transitions;
+	// distance of the string read so far to the query, maxDistance + 1 if it is farther
+	private final int[] distances;
+
+	public LevenshteinAutomaton(String query, int maxDistance) {
+		if (maxDistance < 0) {
+			throw new IllegalArgumentException("maxDistance must not be negative");
+		}
+		this.query = query;
+		this.maxDistance = maxDistance;
+
+		char[] chars = query.toCharArray();
+		Arrays.sort(chars);
+		int distinct = 0;
+		for (int i = 0; i < chars.length; i++) {
+			if (i == 0 || chars[i] != chars[i - 1]) {
+				chars[distinct++] = chars[i];
+			}
+		}
+		alphabet = Arrays.copyOf(chars, distinct);
+		symbols = distinct + 1;
+		for (int c = 0; c < asciiSymbols.length; c++) {
+			asciiSymbols[c] = lookup((char) c);
+		}
+
+		// breadth first over the reachable rows
+		final int limit = maxDistance + 1;
+		List<char[]> rows = new ArrayList<>();
+		HashMap<String, Integer> ids = new HashMap<>();
+		char[] start = new char[query.length() + 1];
+		for (int i = 0; i < start.length; i++) {
+			start[i] = (char) Math.min(i, limit);
+		}
+		rows.add(start);
+		ids.put(new String(start), START);
+
+		int[] table = new int[symbols * 16];
+		for (int state = 0; state < rows.size(); state++) {
+			if (table.length < (state + 1) * symbols) {
+				table = Arrays.copyOf(table, table.length << 1);
+			}
+			char[] row = rows.get(state);
+			for (int symbol = 0; symbol < symbols; symbol++) {
+				char[] next = step(row, symbol < distinct ? alphabet[symbol] : NOT_IN_QUERY, limit);
+				if (next == null) {
+					table[state * symbols + symbol] = DEAD;
+					continue;
+				}
+				String key = new String(next);
+				Integer id = ids.get(key);
+				if (id == null) {
+					id = rows.size();
+					ids.put(key, id);
+					rows.add(next);
+				}
+				table[state * symbols + symbol] = id;
+			}
+		}
+
+		transitions = Arrays.copyOf(table, rows.size() * symbols);
+		distances = new int[rows.size()];
+		for (int state = 0; state < distances.length; state++) {
+			distances[state] = rows.get(state)[query.length()];
+		}
+	}
+
+	// The next DP row, null if every value in it is over the limit
+	private char[] step(char[] row, int c, int limit) {
+		char[] next = new char[row.length];
+		next[0] = (char) Math.min(row[0] + 1, limit);
+		int min = next[0];
+		for (int i = 1; i < row.length; i++) {
+			int cost = query.charAt(i - 1) == c ? 0 : 1;
+			int value = Math.min(Math.min(row[i - 1] + cost, row[i] + 1), next[i - 1] + 1);
+			next[i] = (char) Math.min(value, limit);
+			min = Math.min(min, next[i]);
+		}
+		return min < limit ? next : null;
+	}
+
+	private int lookup(char c) {
+		int index = Arrays.binarySearch(alphabet, c);
+		return index >= 0 ? index : alphabet.length;
+	}
+
+	// The state after reading c in state, DEAD stays DEAD
+	public int step(int state, char c) {
+		if (state == DEAD) {
+			return DEAD;
+		}
+		int symbol = c < asciiSymbols.length ? asciiSymbols[c] : lookup(c);
+		return transitions[state * symbols + symbol];
+	}
+
+	// The state after reading every character of text from START
+	public int run(CharSequence text) {
+		int state = START;
+		for (int i = 0; i < text.length() && state != DEAD; i++) {
+			state = step(state, text.charAt(i));
+		}
+		return state;
+	}
+
+	// True if the string read to reach state is within maxDistance of the query
+	public boolean isMatch(int state) {
+		return state != DEAD && distances[state] <= maxDistance;
+	}
+
+	// The distance of the string read to reach state, maxDistance + 1 if it is not a match
+	public int distance(int state) {
+		return state == DEAD ? maxDistance + 1 : distances[state];
+	}
+
+	public boolean matches(CharSequence text) {
+		return isMatch(run(text));
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+	public int getMaxDistance() {
+		return maxDistance;
+	}
+
+	public int stateCount() {
+		return distances.length;
+	}
+}
@@ -1,31 +1,249 @@
-package main.util.metrics;
+package metrics;
+import java.util.Arrays;
+
 /*
  * For Strings
  * 
  * Levenshtein Distance / Edit Distance
+ *
+ * distance(a, b) uses Myers' bit-parallel algorithm: the differences between
+ * neighbouring cells of a DP column are kept as bit vectors (one bit per
+ * character of the shorter string), so a whole column is computed with a
+ * handful of word operations. Up to 64 characters the column is one long,
+ * longer strings use blocks of 64 rows that hand their bottom horizontal delta
+ * to the block below. O(n * ceil(m / 64)) time.
+ *
+ * distance(a, b, maxK) answers "is it at most maxK" without always paying for
+ * the exact distance: it gives up as soon as the distance can no longer be
+ * <= maxK, and for longer strings only fills the diagonal band of width
+ * 2 * maxK + 1 (Ukkonen), O(maxK * n).
+ *
+ * twoRowDistance(a, b) is the textbook DP keeping only two rows.
+ *
+ * https://dl.acm.org/doi/10.1145/316542.316550 (Myers 1999)
+ * https://www.sciencedirect.com/science/article/pii/S0019995885800462 (Ukkonen 1985)
  */
 public class LevenshteinDistance {
 	public static int distance(String str1, String str2) {
-		final int rowLength = str1.length() + 1;
-		final int colLength = str2.length() + 1;
-		int[][] mem = new int[rowLength][colLength];
-		
-		for (int row = 1; row < rowLength; row++) {
-			mem[row][0] = row;
+		// the shorter string goes down the column, so there are fewer blocks
+		String pattern = str1.length() <= str2.length() ? str1 : str2;
+		String text = pattern == str1 ? str2 : str1;
+		if (pattern.isEmpty()) {
+			return text.length();
 		}
-		
-		for (int col = 1; col < colLength; col++) {
-			mem[0][col] = col;
+		return pattern.length() <= Long.SIZE ? bitParallel(pattern, text, Integer.MAX_VALUE)
+				: blockedBitParallel(pattern, text);
+	}
+
+	// The distance if it is at most maxK, maxK + 1 otherwise
+	public static int distance(String str1, String str2, int maxK) {
+		if (maxK < 0) {
+			throw new IllegalArgumentException("maxK must not be negative");
 		}
-		
-		for (int row = 1; row < rowLength; row++) {
-			for (int col = 1; col < colLength; col++) {
-				int d = str1.charAt(row-1) == str2.charAt(col-1) ? 0 : 1;
-				mem[row][col] = Math.min(mem[row][col-1] + 1, Math.min(mem[row-1][col] + 1, mem[row-1][col-1] + d));
+		String pattern = str1.length() <= str2.length() ? str1 : str2;
+		String text = pattern == str1 ? str2 : str1;
+		if (text.length() - pattern.length() > maxK) {
+			return maxK + 1;
+		} else if (pattern.isEmpty()) {
+			return text.length();
+		}
+
+		int distance = pattern.length() <= Long.SIZE ? bitParallel(pattern, text, maxK) : banded(pattern, text, maxK);
+		return Math.min(distance, maxK + 1);
+	}
+
+	public static boolean isWithin(String str1, String str2, int maxK) {
+		return distance(str1, str2, maxK) <= maxK;
+	}
+
+	// O(min(n, m)) memory
+	public static int twoRowDistance(String str1, String str2) {
+		String shorter = str1.length() <= str2.length() ? str1 : str2;
+		String longer = shorter == str1 ? str2 : str1;
+		int[] previous = new int[shorter.length() + 1];
+		int[] current = new int[shorter.length() + 1];
+		for (int col = 0; col < previous.length; col++) {
+			previous[col] = col;
+		}
+
+		for (int row = 1; row <= longer.length(); row++) {
+			current[0] = row;
+			char ch = longer.charAt(row - 1);
+			for (int col = 1; col < current.length; col++) {
+				int d = ch == shorter.charAt(col - 1) ? 0 : 1;
+				current[col] = Math.min(current[col - 1] + 1, Math.min(previous[col] + 1, previous[col - 1] + d));
 			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[shorter.length()];
+	}
+
+	/*
+	 * Single word Myers for a pattern of at most 64 characters. score is the
+	 * bottom cell of the current column; it can drop by at most one per
+	 * remaining text character, which is when the search stops early for maxK.
+	 */
+	private static int bitParallel(String pattern, String text, int maxK) {
+		PatternMasks peq = new PatternMasks(pattern, 1);
+		final long last = 1L << (pattern.length() - 1);
+		long pv = -1L, mv = 0L;
+		int score = pattern.length();
+		for (int j = 0; j < text.length(); j++) {
+			long eq = peq.mask(text.charAt(j), 0);
+			long xv = eq | mv;
+			long xh = (((eq & pv) + pv) ^ pv) | eq;
+			long ph = mv | ~(xh | pv);
+			long mh = pv & xh;
+			if ((ph & last) != 0) {
+				score++;
+			} else if ((mh & last) != 0) {
+				score--;
+			}
+			// the top row is 0, 1, 2, ..., so a +1 enters from above
+			ph = (ph << 1) | 1;
+			mh <<= 1;
+			pv = mh | ~(xv | ph);
+			mv = ph & xv;
+
+			if (score - (text.length() - j - 1) > maxK) {
+				return maxK + 1;
+			}
+		}
+		return score;
+	}
+
+	// Myers' block variant, each block of 64 rows passes its horizontal delta (-1, 0, +1) down
+	private static int blockedBitParallel(String pattern, String text) {
+		final int blocks = (pattern.length() + Long.SIZE - 1) / Long.SIZE;
+		final long last = 1L << ((pattern.length() - 1) % Long.SIZE);
+		PatternMasks peq = new PatternMasks(pattern, blocks);
+		long[] pv = new long[blocks];
+		long[] mv = new long[blocks];
+		Arrays.fill(pv, -1L);
+		int score = pattern.length();
+
+		for (int j = 0; j < text.length(); j++) {
+			int maskStart = peq.maskStart(text.charAt(j));
+			int carry = 1;
+			for (int b = 0; b < blocks; b++) {
+				long eq = peq.masks[maskStart + b];
+				long p = pv[b], m = mv[b];
+				long xv = eq | m;
+				if (carry < 0) {
+					eq |= 1;
+				}
+				long xh = (((eq & p) + p) ^ p) | eq;
+				long ph = m | ~(xh | p);
+				long mh = p & xh;
+
+				long high = b == blocks - 1 ? last : Long.MIN_VALUE;
+				int carryOut = (ph & high) != 0 ? 1 : (mh & high) != 0 ? -1 : 0;
+				ph <<= 1;
+				mh <<= 1;
+				if (carry < 0) {
+					mh |= 1;
+				} else if (carry > 0) {
+					ph |= 1;
+				}
+				pv[b] = mh | ~(xv | ph);
+				mv[b] = ph & xv;
+				carry = carryOut;
+			}
+			score += carry;
+		}
+		return score;
+	}
+
+	/*
+	 * Ukkonen's band: a cell more than maxK off the diagonal is already more than
+	 * maxK, so only columns [row - maxK, row + maxK] are filled. Cells outside
+	 * the band read as maxK + 1, and once a whole row is above maxK the
+	 * distance can only be above it too.
+	 */
+	private static int banded(String shorter, String longer, int maxK) {
+		final int k = Math.min(maxK, longer.length());
+		final int outside = k + 1;
+		final int cols = shorter.length();
+		int[] previous = new int[cols + 1];
+		int[] current = new int[cols + 1];
+		Arrays.fill(previous, outside);
+		for (int col = 0; col <= Math.min(cols, k); col++) {
+			previous[col] = col;
+		}
+
+		for (int row = 1; row <= longer.length(); row++) {
+			int from = Math.max(1, row - k), to = Math.min(cols, row + k);
+			current[from - 1] = from == 1 && row <= k ? row : outside;
+			int rowMin = current[from - 1];
+			char ch = longer.charAt(row - 1);
+			for (int col = from; col <= to; col++) {
+				int d = ch == shorter.charAt(col - 1) ? 0 : 1;
+				int value = Math.min(current[col - 1] + 1, Math.min(previous[col] + 1, previous[col - 1] + d));
+				current[col] = Math.min(value, outside);
+				rowMin = Math.min(rowMin, current[col]);
+			}
+			if (to < cols) {
+				current[to + 1] = outside;
+			}
+			if (rowMin > k) {
+				return outside;
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[cols];
+	}
+
+	/*
+	 * Peq masks, bit i of a character's mask is set where the pattern has that
+	 * character at i. ASCII characters index a table directly, anything else is
+	 * a binary search over the sorted non ASCII characters of the pattern.
+	 */
+	private static class PatternMasks {
+		private static final int ASCII = 128;
+
+		final int blocks;
+		// masks[row * blocks + block], row 0 is for characters not in the pattern
+		final long[] masks;
+		final char[] nonAscii;
+
+		PatternMasks(String pattern, int blocks) {
+			this.blocks = blocks;
+			char[] others = new char[pattern.length()];
+			int count = 0;
+			for (int i = 0; i < pattern.length(); i++) {
+				if (pattern.charAt(i) >= ASCII) {
+					others[count++] = pattern.charAt(i);
+				}
+			}
+			Arrays.sort(others, 0, count);
+			int unique = 0;
+			for (int i = 0; i < count; i++) {
+				if (unique == 0 || others[i] != others[unique - 1]) {
+					others[unique++] = others[i];
+				}
+			}
+			this.nonAscii = Arrays.copyOf(others, unique);
+			this.masks = new long[(1 + ASCII + unique) * blocks];
+			for (int i = 0; i < pattern.length(); i++) {
+				masks[maskStart(pattern.charAt(i)) + i / Long.SIZE] |= 1L << (i % Long.SIZE);
+			}
+		}
+
+		int maskStart(char ch) {
+			if (ch < ASCII) {
+				return (1 + ch) * blocks;
+			}
+			int index = Arrays.binarySearch(nonAscii, ch);
+			return index < 0 ? 0 : (1 + ASCII + index) * blocks;
+		}
+
+		long mask(char ch, int block) {
+			return masks[maskStart(ch) + block];
 		}
-		
-		return mem[str1.length()][str2.length()];
 	}
 	
 	public static void main(String[] args) {
@@ -0,0 +1,24 @@
+package metrics;
+
+// An item found by a metric index and its distance to the query
+public class Neighbor<T> {
+	protected final T item;
+	protected final double distance;
+
+	public Neighbor(T item, double distance) {
+		this.item = item;
+		this.distance = distance;
+	}
+
+	public T getItem() {
+		return item;
+	}
+
+	public double getDistance() {
+		return distance;
+	}
+
+	public String toString() {
+		return item + ": " + distance;
+	}
+}
@@ -1,30 +1,165 @@
 package metrics;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 //https://pdfs.semanticscholar.org/ca84/b9f92f4cb21af00176a8a0ef887e9a5e6bc1.pdf
 //http://profs.scienze.univr.it/~liptak/FundBA/slides/StringDistance2_6up.pdf, this is another version but didn't implement
 public class QGram {
-	public static int distance(String x, String y, int ngram) {
-		if (x.isEmpty() && y.isEmpty()) {
-			return 0;
+	// odd, so multiplying by it never loses bits mod 2^64
+	private static final long BASE = 0x9E3779B97F4A7C15L;
+	// grams up to this long are packed into a long exactly, 16 bits per char
+	private static final int PACKED_LENGTH = Long.SIZE / Character.SIZE;
+
+	/*
+	 * The q-grams of a string as sorted 64 bit fingerprints with a count each.
+	 *
+	 * A gram of up to 4 chars is its chars packed into a long, so equal
+	 * fingerprints are equal grams. Longer grams use a rolling polynomial hash
+	 * mod 2^64 (see RabinKarpStringMatch), which slides one char per step
+	 * without building substrings.
+	 *
+	 * Two profiles are compared by merging the sorted arrays, without
+	 * allocating, so a string compared many times should be profiled once.
+	 */
+	public static final class Profile {
+		private final int ngram;
+		private final long[] grams;
+		private final int[] counts;
+		private final int size;
+
+		private Profile(int ngram, long[] grams, int[] counts, int size) {
+			this.ngram = ngram;
+			this.grams = grams;
+			this.counts = counts;
+			this.size = size;
 		}
-		if (ngram <= 0 || Math.min(x.length(), y.length()) < ngram) {
-			return Integer.MIN_VALUE;
+
+		public static Profile of(String x, int ngram) {
+			if (ngram <= 0) {
+				throw new IllegalArgumentException("The q-gram length must be positive");
+			}
+			int total = Math.max(0, x.length() - ngram + 1);
+			long[] fingerprints = new long[total];
+			if (total > 0) {
+				fingerprint(x, ngram, fingerprints);
+			}
+			Arrays.sort(fingerprints);
+
+			int distinct = 0;
+			int[] counts = new int[total];
+			for (int i = 0; i < total; i++) {
+				if (distinct > 0 && fingerprints[distinct - 1] == fingerprints[i]) {
+					counts[distinct - 1]++;
+				} else {
+					fingerprints[distinct] = fingerprints[i];
+					counts[distinct++] = 1;
+				}
+			}
+			return new Profile(ngram, Arrays.copyOf(fingerprints, distinct), Arrays.copyOf(counts, distinct), total);
 		}
 
-		Map<String, Integer> ngramCount = new HashMap<>();
+		private static void fingerprint(String x, int ngram, long[] out) {
+			long hash = 0;
+			if (ngram <= PACKED_LENGTH) {
+				long mask = ngram == PACKED_LENGTH ? -1L : (1L << (ngram * Character.SIZE)) - 1;
+				for (int i = 0; i < x.length(); i++) {
+					hash = ((hash << Character.SIZE) | x.charAt(i)) & mask;
+					if (i >= ngram - 1) {
+						out[i - ngram + 1] = hash;
+					}
+				}
+				return;
+			}
+
+			long outgoingWeight = 1;
+			for (int i = 1; i < ngram; i++) {
+				outgoingWeight *= BASE;
+			}
+			for (int i = 0; i < x.length(); i++) {
+				if (i >= ngram) {
+					hash -= x.charAt(i - ngram) * outgoingWeight;
+				}
+				hash = hash * BASE + x.charAt(i);
+				if (i >= ngram - 1) {
+					out[i - ngram + 1] = hash;
+				}
+			}
+		}
+
+		public int ngram() {
+			return ngram;
+		}
+
+		// Number of q-grams, counting repeats
+		public int size() {
+			return size;
+		}
+
+		public int distinctSize() {
+			return grams.length;
+		}
 
-		for (int i = 0; i <= x.length() - ngram; i++) {
-			ngramCount.compute(x.substring(i, i + ngram), (k, v) -> v == null ? 1 : v + 1);
+		// Sum over the shared q-grams of the smaller count
+		public int overlap(Profile other) {
+			checkCompatible(other);
+			int overlap = 0;
+			for (int i = 0, j = 0; i < grams.length && j < other.grams.length;) {
+				if (grams[i] == other.grams[j]) {
+					overlap += Math.min(counts[i++], other.counts[j++]);
+				} else if (grams[i] < other.grams[j]) {
+					i++;
+				} else {
+					j++;
+				}
+			}
+			return overlap;
 		}
 
-		for (int i = 0; i <= y.length() - ngram; i++) {
-			ngramCount.compute(y.substring(i, i + ngram), (k, v) -> v == null ? -1 : v - 1);
+		// Number of distinct q-grams both have
+		public int distinctOverlap(Profile other) {
+			checkCompatible(other);
+			int overlap = 0;
+			for (int i = 0, j = 0; i < grams.length && j < other.grams.length;) {
+				if (grams[i] == other.grams[j]) {
+					overlap++;
+					i++;
+					j++;
+				} else if (grams[i] < other.grams[j]) {
+					i++;
+				} else {
+					j++;
+				}
+			}
+			return overlap;
 		}
 
-		int totalDiff = ngramCount.values().stream().mapToInt(count -> Math.abs(count)).sum();
-		return totalDiff;
+		// Sum over every q-gram of the difference in counts
+		public int distance(Profile other) {
+			return size + other.size - 2 * overlap(other);
+		}
+
+		private void checkCompatible(Profile other) {
+			if (ngram != other.ngram) {
+				throw new IllegalArgumentException("Profiles of " + ngram + "-grams and " + other.ngram + "-grams can't be compared");
+			}
+		}
+	}
+
+	public static Profile profile(String x, int ngram) {
+		return Profile.of(x, ngram);
+	}
+
+	public static int distance(Profile x, Profile y) {
+		return x.distance(y);
+	}
+
+	public static int distance(String x, String y, int ngram) {
+		if (x.isEmpty() && y.isEmpty()) {
+			return 0;
+		}
+		if (ngram <= 0 || Math.min(x.length(), y.length()) < ngram) {
+			return Integer.MIN_VALUE;
+		}
+		return distance(profile(x, ngram), profile(y, ngram));
 	}
 }
@@ -0,0 +1,416 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * All pairs of records whose q-gram similarity is at least a threshold,
+ * without comparing every pair (PPJoin).
+ *
+ * Every record becomes a set of tokens, one per q-gram occurrence (the second
+ * "ab" in a record is a different token than the first), so set overlap is
+ * the multiset overlap of the q-grams. Tokens are numbered rarest first and
+ * each record's tokens are sorted by that order. Then:
+ *
+ * - length filter: a pair can only reach the threshold if the sizes are close
+ * - prefix filter: two records that share t tokens share one within the first
+ *   |x| - t + 1 tokens of each, so only those prefixes go in the inverted index
+ * - positional filter: the tokens after a shared token's positions bound how
+ *   much overlap is left, which drops candidates before they are verified
+ *
+ * Candidates that survive are verified by merging their sorted tokens.
+ * Records are sorted by size and every record probes the index for the
+ * smaller ones, which is independent per record, so the probing runs in
+ * parallel on a ForkJoinPool.
+ *
+ * http://www.cse.unsw.edu.au/~weiw/files/WWW08-PPJoin-Final.pdf
+ */
+public class SimilarityJoin {
+	// records per shard are at least this many before splitting stops
+	private static final int MIN_SHARD_RECORDS = 1 << 10;
+	private static final double EPSILON = 1e-9;
+	private static final int PRUNED = -1;
+
+	public enum Measure {
+		JACCARD {
+			@Override
+			double similarity(int overlap, int xSize, int ySize) {
+				return (double) overlap / (xSize + ySize - overlap);
+			}
+
+			@Override
+			int requiredOverlap(double t, int xSize, int ySize) {
+				return ceil(t / (1 + t) * (xSize + ySize));
+			}
+
+			@Override
+			int minSize(double t, int size) {
+				return ceil(t * size);
+			}
+
+			@Override
+			int indexedOverlap(double t, int size) {
+				return ceil(2 * t / (1 + t) * size);
+			}
+		},
+		DICE {
+			@Override
+			double similarity(int overlap, int xSize, int ySize) {
+				return 2.0 * overlap / (xSize + ySize);
+			}
+
+			@Override
+			int requiredOverlap(double t, int xSize, int ySize) {
+				return ceil(t / 2 * (xSize + ySize));
+			}
+
+			@Override
+			int minSize(double t, int size) {
+				return ceil(t / (2 - t) * size);
+			}
+
+			@Override
+			int indexedOverlap(double t, int size) {
+				return ceil(t * size);
+			}
+		},
+		COSINE {
+			@Override
+			double similarity(int overlap, int xSize, int ySize) {
+				return overlap / Math.sqrt((double) xSize * ySize);
+			}
+
+			@Override
+			int requiredOverlap(double t, int xSize, int ySize) {
+				return ceil(t * Math.sqrt((double) xSize * ySize));
+			}
+
+			@Override
+			int minSize(double t, int size) {
+				return ceil(t * t * size);
+			}
+
+			@Override
+			int indexedOverlap(double t, int size) {
+				return ceil(t * size);
+			}
+		};
+
+		abstract double similarity(int overlap, int xSize, int ySize);
+
+		// Overlap a pair needs to reach t
+		abstract int requiredOverlap(double t, int xSize, int ySize);
+
+		// Smallest partner a record of this size can reach t with
+		abstract int minSize(double t, int size);
+
+		// Overlap a record needs with any partner at least its size, sets the indexed prefix
+		abstract int indexedOverlap(double t, int size);
+
+		// Never below 1, a pair without a shared token has similarity 0
+		private static int ceil(double value) {
+			return Math.max(1, (int) Math.ceil(value - EPSILON));
+		}
+	}
+
+	public static class Pair {
+		protected final int first;
+		protected final int second;
+		protected final double similarity;
+
+		public Pair(int first, int second, double similarity) {
+			this.first = first;
+			this.second = second;
+			this.similarity = similarity;
+		}
+
+		// index of the record in the input, first < second
+		public int getFirst() {
+			return first;
+		}
+
+		public int getSecond() {
+			return second;
+		}
+
+		public double getSimilarity() {
+			return similarity;
+		}
+
+		public String toString() {
+			return "(" + first + ", " + second + "): " + similarity;
+		}
+	}
+
+	protected final Measure measure;
+	protected final double threshold;
+	protected final int ngram;
+
+	public SimilarityJoin(Measure measure, double threshold, int ngram) {
+		if (threshold <= 0 || threshold > 1) {
+			throw new IllegalArgumentException("The threshold must be in (0, 1]");
+		} else if (ngram <= 0) {
+			throw new IllegalArgumentException("The q-gram length must be positive");
+		}
+		this.measure = measure;
+		this.threshold = threshold;
+		this.ngram = ngram;
+	}
+
+	public List<Pair> join(List<String> records) {
+		return join(records, ForkJoinPool.commonPool());
+	}
+
+	// Records shorter than the q-gram length have no q-grams and pair with nothing
+	public List<Pair> join(List<String> records, ForkJoinPool pool) {
+		Index index = new Index(records);
+		int shards = (int) Math.max(1, Math.min(pool.getParallelism() * 8L, index.size() / MIN_SHARD_RECORDS));
+		return pool.invoke(new ProbeTask(index, 0, index.size(), shards));
+	}
+
+	/*
+	 * The records as sorted token arrays, in order of size, and the inverted
+	 * index of their prefixes in compressed sparse row form: the postings of
+	 * token w are (record, position) for i in [listStarts[w], listStarts[w + 1]).
+	 */
+	private class Index {
+		final int[][] tokens;
+		// tokens[order].length, kept apart so probing doesn't touch every candidate's tokens
+		final int[] sizes;
+		// original index of the record at each order
+		final int[] recordIds;
+		final int[] listStarts;
+		final int[] postingRecords;
+		final int[] postingPositions;
+		// {overlaps, candidates} arrays of finished leaves, so there is one pair per worker rather than per leaf
+		final ConcurrentLinkedQueue<int[][]> scratch = new ConcurrentLinkedQueue<>();
+
+		Index(List<String> records) {
+			int[][] grams = new int[records.size()][];
+			int tokenCount = tokenize(records, grams);
+
+			// rarest tokens first, so prefixes hit short lists
+			int[] frequencies = new int[tokenCount];
+			int nonEmpty = 0;
+			for (int[] recordTokens : grams) {
+				for (int token : recordTokens) {
+					frequencies[token]++;
+				}
+				nonEmpty += recordTokens.length > 0 ? 1 : 0;
+			}
+			Integer[] byFrequency = new Integer[tokenCount];
+			for (int i = 0; i < tokenCount; i++) {
+				byFrequency[i] = i;
+			}
+			Arrays.sort(byFrequency, (a, b) -> frequencies[a] != frequencies[b] ? Integer.compare(frequencies[a], frequencies[b]) : Integer.compare(a, b));
+			int[] rank = new int[tokenCount];
+			for (int i = 0; i < tokenCount; i++) {
+				rank[byFrequency[i]] = i;
+			}
+
+			Integer[] bySize = new Integer[nonEmpty];
+			for (int i = 0, next = 0; i < grams.length; i++) {
+				if (grams[i].length > 0) {
+					bySize[next++] = i;
+				}
+			}
+			Arrays.sort(bySize, (a, b) -> grams[a].length != grams[b].length ? Integer.compare(grams[a].length, grams[b].length) : Integer.compare(a, b));
+
+			tokens = new int[nonEmpty][];
+			sizes = new int[nonEmpty];
+			recordIds = new int[nonEmpty];
+			listStarts = new int[tokenCount + 1];
+			for (int order = 0; order < nonEmpty; order++) {
+				recordIds[order] = bySize[order];
+				int[] recordTokens = grams[bySize[order]];
+				for (int i = 0; i < recordTokens.length; i++) {
+					recordTokens[i] = rank[recordTokens[i]];
+				}
+				Arrays.sort(recordTokens);
+				tokens[order] = recordTokens;
+				sizes[order] = recordTokens.length;
+				for (int i = 0; i < indexedPrefix(recordTokens.length); i++) {
+					listStarts[recordTokens[i] + 1]++;
+				}
+			}
+			for (int w = 0; w < tokenCount; w++) {
+				listStarts[w + 1] += listStarts[w];
+			}
+
+			// filled in order, so every list is sorted by record and so by size
+			postingRecords = new int[listStarts[tokenCount]];
+			postingPositions = new int[listStarts[tokenCount]];
+			int[] fill = Arrays.copyOf(listStarts, tokenCount);
+			for (int order = 0; order < nonEmpty; order++) {
+				for (int i = 0; i < indexedPrefix(tokens[order].length); i++) {
+					int slot = fill[tokens[order][i]]++;
+					postingRecords[slot] = order;
+					postingPositions[slot] = i;
+				}
+			}
+		}
+
+		// One token per q-gram occurrence, returns the number of distinct tokens
+		private int tokenize(List<String> records, int[][] grams) {
+			Map<String, Integer> tokenIds = new HashMap<>();
+			Map<String, Integer> occurrences = new HashMap<>();
+			for (int r = 0; r < grams.length; r++) {
+				String record = records.get(r);
+				int count = Math.max(0, record.length() - ngram + 1);
+				grams[r] = new int[count];
+				occurrences.clear();
+				for (int i = 0; i < count; i++) {
+					String gram = record.substring(i, i + ngram);
+					int occurrence = occurrences.merge(gram, 1, Integer::sum);
+					// grams all have ngram characters, so the suffix can't make two keys equal
+					String token = occurrence == 1 ? gram : gram + '\0' + occurrence;
+					Integer id = tokenIds.get(token);
+					if (id == null) {
+						id = tokenIds.size();
+						tokenIds.put(token, id);
+					}
+					grams[r][i] = id;
+				}
+			}
+			return tokenIds.size();
+		}
+
+		int size() {
+			return tokens.length;
+		}
+
+		int indexedPrefix(int size) {
+			return size - measure.indexedOverlap(threshold, size) + 1;
+		}
+
+		int probePrefix(int size) {
+			return size - measure.minSize(threshold, size) + 1;
+		}
+	}
+
+	private class ProbeTask extends RecursiveTask<List<Pair>> {
+		private static final long serialVersionUID = 1L;
+
+		private final Index index;
+		private final int from;
+		private final int to;
+		private final int shards;
+
+		ProbeTask(Index index, int from, int to, int shards) {
+			this.index = index;
+			this.from = from;
+			this.to = to;
+			this.shards = shards;
+		}
+
+		@Override
+		protected List<Pair> compute() {
+			if (shards <= 1 || to - from <= 1) {
+				return probe();
+			}
+
+			// later records are longer and probe more, so split by the square of the order
+			int middle = (int) Math.sqrt(((double) from * from + (double) to * to) / 2);
+			middle = Math.min(to - 1, Math.max(from + 1, middle));
+			ProbeTask left = new ProbeTask(index, from, middle, shards / 2);
+			ProbeTask right = new ProbeTask(index, middle, to, shards - shards / 2);
+			left.fork();
+			List<Pair> pairs = new ArrayList<>(right.compute());
+			pairs.addAll(0, left.join());
+			return pairs;
+		}
+
+		private List<Pair> probe() {
+			List<Pair> pairs = new ArrayList<>();
+			int[][] scratch = index.scratch.poll();
+			if (scratch == null) {
+				scratch = new int[][] { new int[index.size()], new int[index.size()] };
+			}
+			// overlap found so far in the prefixes, PRUNED once the positional filter rules a record out
+			int[] overlaps = scratch[0];
+			int[] candidates = scratch[1];
+
+			for (int x = from; x < to; x++) {
+				int[] xTokens = index.tokens[x];
+				int xSize = xTokens.length;
+				int minSize = measure.minSize(threshold, xSize);
+				int candidateCount = 0;
+
+				for (int i = 0; i < index.probePrefix(xSize); i++) {
+					int w = xTokens[i];
+					int end = index.listStarts[w + 1];
+					for (int p = firstOfSize(w, minSize); p < end; p++) {
+						int y = index.postingRecords[p];
+						if (y >= x) {
+							break;
+						} else if (overlaps[y] == PRUNED) {
+							continue;
+						}
+
+						int ySize = index.sizes[y];
+						int j = index.postingPositions[p];
+						int bound = 1 + Math.min(xSize - i - 1, ySize - j - 1);
+						if (overlaps[y] == 0) {
+							candidates[candidateCount++] = y;
+						}
+						boolean reachable = overlaps[y] + bound >= measure.requiredOverlap(threshold, xSize, ySize);
+						overlaps[y] = reachable ? overlaps[y] + 1 : PRUNED;
+					}
+				}
+
+				for (int c = 0; c < candidateCount; c++) {
+					int y = candidates[c];
+					if (overlaps[y] != PRUNED) {
+						verify(x, y, pairs);
+					}
+					overlaps[y] = 0;
+				}
+			}
+			// every overlap is back to 0, so the next leaf can use the arrays as they are
+			index.scratch.add(scratch);
+			return pairs;
+		}
+
+		// First posting of token w whose record has at least minSize tokens
+		private int firstOfSize(int w, int minSize) {
+			int low = index.listStarts[w], high = index.listStarts[w + 1];
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (index.sizes[index.postingRecords[middle]] < minSize) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+		private void verify(int x, int y, List<Pair> pairs) {
+			int[] xTokens = index.tokens[x], yTokens = index.tokens[y];
+			int overlap = 0;
+			for (int i = 0, j = 0; i < xTokens.length && j < yTokens.length;) {
+				if (xTokens[i] == yTokens[j]) {
+					overlap++;
+					i++;
+					j++;
+				} else if (xTokens[i] < yTokens[j]) {
+					i++;
+				} else {
+					j++;
+				}
+			}
+
+			if (overlap >= measure.requiredOverlap(threshold, xTokens.length, yTokens.length)) {
+				int first = Math.min(index.recordIds[x], index.recordIds[y]);
+				int second = Math.max(index.recordIds[x], index.recordIds[y]);
+				pairs.add(new Pair(first, second, measure.similarity(overlap, xTokens.length, yTokens.length)));
+			}
+		}
+	}
+}
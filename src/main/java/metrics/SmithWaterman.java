@@ -1,92 +1,222 @@
 package metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
 /*
  * For Strings
  * 
  * Smith Waterman 
+ *
+ * score() keeps two rows of the table. Long strings can be scored with
+ * stripedScore(), Farrar's query striped layout, or parallelScore(), which
+ * fills tiles of the table an anti-diagonal at a time (see WavefrontScore).
+ * align() returns the alignment itself in linear space: a forward pass finds
+ * where the best alignment ends, a backward pass where it starts, and the
+ * substrings in between are aligned globally with Hirschberg.
  */
 public class SmithWaterman {
+	// ints per stripe, one vector register of 8 ints on AVX2
+	private static final int LANES = 8;
+	// scores the padding past the end of the query, anything from it clamps to 0
+	private static final int PADDING = Integer.MIN_VALUE / 4;
 
 	public static int score(String str1, String str2, int matchWeight, int mismatchWeight, int gapWeight) {
-		final int rowLength = str1.length() + 1;
-		final int colLength = str2.length() + 1;
-		int[][] matrix = new int[rowLength][colLength];
-
-		int max = Integer.MIN_VALUE;
-		for (int row = 1; row < rowLength; row++) {
-			for (int col = 1; col < colLength; col++) {
-				int gValue = str1.charAt(row - 1) == str2.charAt(col - 1) ? matchWeight : mismatchWeight;
-
-				matrix[row][col] = Math.max(matrix[row - 1][col - 1] + gValue,
-						Math.max(matrix[row - 1][col] + gapWeight, matrix[row][col - 1] + gapWeight));
-				if (max < matrix[row][col]) {
-					max = matrix[row][col];
-				}
+		Hirschberg.Scoring scoring = new Hirschberg.Scoring(matchWeight, mismatchWeight, gapWeight, true);
+		int[] previous = new int[str2.length() + 1];
+		int[] current = new int[str2.length() + 1];
 
+		int max = 0; // matrix[0][0] is 0
+		for (int row = 1; row <= str1.length(); row++) {
+			char ch = str1.charAt(row - 1);
+			for (int col = 1; col <= str2.length(); col++) {
+				current[col] = Math.max(0, scoring.cell(previous[col - 1], previous[col], current[col - 1], ch, str2.charAt(col - 1)));
+				max = Math.max(max, current[col]);
 			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return max;
+	}
+
+	public static int parallelScore(String str1, String str2, int matchWeight, int mismatchWeight, int gapWeight) {
+		return parallelScore(str1, str2, matchWeight, mismatchWeight, gapWeight, ForkJoinPool.commonPool());
+	}
+
+	public static int parallelScore(String str1, String str2, int matchWeight, int mismatchWeight, int gapWeight,
+			ForkJoinPool pool) {
+		return WavefrontScore.score(str1, str2, new Hirschberg.Scoring(matchWeight, mismatchWeight, gapWeight, true), true, pool);
+	}
+
+	/*
+	 * Farrar's striped layout (https://doi.org/10.1093/bioinformatics/btl582):
+	 * the query is split into LANES segments of segLength characters and
+	 * stripe i holds query positions i, i + segLength, i + 2 * segLength, ...
+	 * so a column of the table is computed LANES cells at a time with no
+	 * dependency between lanes, in loops the JIT can vectorize. A gap coming
+	 * down from the previous segment is missed by that pass, and a lazy loop
+	 * adds it afterwards, which rarely runs more than once.
+	 *
+	 * Gaps have to cost something (gapWeight <= 0) for the padding to stay
+	 * below the real cells, other weights fall back to score().
+	 */
+	public static int stripedScore(String str1, String str2, int matchWeight, int mismatchWeight, int gapWeight) {
+		if (gapWeight > 0 || str1.isEmpty() || str2.isEmpty()) {
+			return score(str1, str2, matchWeight, mismatchWeight, gapWeight);
 		}
 
-		if (max < 0) { // matrix[0][0] is 0
-			max = 0;
+		final int segLength = (str1.length() + LANES - 1) / LANES;
+		final int stripedLength = segLength * LANES;
+		// one striped profile per distinct query character, the last row for the rest
+		char[] alphabet = distinct(str1);
+		int[] profiles = new int[(alphabet.length + 1) * stripedLength];
+		for (int c = 0; c <= alphabet.length; c++) {
+			for (int i = 0; i < segLength; i++) {
+				for (int lane = 0; lane < LANES; lane++) {
+					int position = lane * segLength + i;
+					int score = position >= str1.length() ? PADDING
+							: c < alphabet.length && str1.charAt(position) == alphabet[c] ? matchWeight : mismatchWeight;
+					profiles[c * stripedLength + i * LANES + lane] = score;
+				}
+			}
 		}
 
+		int[] load = new int[stripedLength];
+		int[] store = new int[stripedLength];
+		int[] h = new int[LANES];
+		int[] f = new int[LANES];
+		int[] best = new int[LANES];
+		for (int col = 0; col < str2.length(); col++) {
+			int index = Arrays.binarySearch(alphabet, str2.charAt(col));
+			int profile = (index < 0 ? alphabet.length : index) * stripedLength;
+
+			// diagonal for stripe 0 is the last stripe of the previous column shifted down a lane
+			h[0] = 0;
+			System.arraycopy(store, stripedLength - LANES, h, 1, LANES - 1);
+			int[] swap = load;
+			load = store;
+			store = swap;
+			Arrays.fill(f, 0);
+
+			for (int i = 0, base = 0; i < segLength; i++, base += LANES) {
+				for (int lane = 0; lane < LANES; lane++) {
+					int value = Math.max(Math.max(h[lane] + profiles[profile + base + lane], load[base + lane] + gapWeight),
+							Math.max(f[lane], 0));
+					store[base + lane] = value;
+					best[lane] = Math.max(best[lane], value);
+					f[lane] = value + gapWeight;
+					h[lane] = load[base + lane];
+				}
+			}
+
+			// lazy F: carry the gaps leaving the bottom of each segment into the next one
+			shiftLanes(f);
+			for (int i = 0; gapEntersStripe(f, store, i * LANES);) {
+				int base = i * LANES;
+				for (int lane = 0; lane < LANES; lane++) {
+					int value = Math.max(store[base + lane], f[lane]);
+					store[base + lane] = value;
+					best[lane] = Math.max(best[lane], value);
+					f[lane] += gapWeight;
+				}
+				if (++i == segLength) {
+					i = 0;
+					shiftLanes(f);
+				}
+			}
+		}
+
+		int max = 0;
+		for (int value : best) {
+			max = Math.max(max, value);
+		}
 		return max;
 	}
 
-	//Just finds one of the possible alignment lengths
-	public static int alignmentLength(String str1, String str2, int matchWeight, int mismatchWeight, int gapWeight) throws IllegalStateException {
-		final int rowLength = str1.length() + 1;
-		final int colLength = str2.length() + 1;
-		int[][] matrix = new int[rowLength][colLength];
-
-		for (int row = 1; row < rowLength; row++) {
-			matrix[row][0] = matrix[row - 1][0] + gapWeight;
+	private static boolean gapEntersStripe(int[] f, int[] store, int base) {
+		for (int lane = 0; lane < LANES; lane++) {
+			if (f[lane] > store[base + lane]) {
+				return true;
+			}
 		}
+		return false;
+	}
+
+	private static void shiftLanes(int[] lanes) {
+		System.arraycopy(lanes, 0, lanes, 1, LANES - 1);
+		lanes[0] = 0;
+	}
 
-		for (int col = 1; col < colLength; col++) {
-			matrix[0][col] = matrix[0][col - 1] + gapWeight;
+	private static char[] distinct(String str) {
+		char[] chars = str.toCharArray();
+		Arrays.sort(chars);
+		int unique = 0;
+		for (int i = 0; i < chars.length; i++) {
+			if (unique == 0 || chars[i] != chars[unique - 1]) {
+				chars[unique++] = chars[i];
+			}
 		}
+		return Arrays.copyOf(chars, unique);
+	}
 
-		int max = Integer.MIN_VALUE;
-		int maxRow = 0;
-		int maxCol = 0;
-		for (int row = 1; row < rowLength; row++) {
-			for (int col = 1; col < colLength; col++) {
-				int gValue = str1.charAt(row - 1) == str2.charAt(col - 1) ? matchWeight : mismatchWeight;
-
-				matrix[row][col] = Math.max(matrix[row - 1][col - 1] + gValue,
-						Math.max(matrix[row - 1][col] + gapWeight, matrix[row][col - 1] + gapWeight));
-				if (matrix[row][col] > max) {
-					maxRow = row;
-					maxCol = col;
+	// The best local alignment, empty with score 0 if nothing scores above 0
+	public static Alignment align(String str1, String str2, int matchWeight, int mismatchWeight, int gapWeight) {
+		Hirschberg.Scoring scoring = new Hirschberg.Scoring(matchWeight, mismatchWeight, gapWeight, true);
+
+		// forward: the first cell with the best score is where the alignment ends
+		int[] previous = new int[str2.length() + 1];
+		int[] current = new int[str2.length() + 1];
+		int max = 0, endRow = 0, endCol = 0;
+		for (int row = 1; row <= str1.length(); row++) {
+			char ch = str1.charAt(row - 1);
+			for (int col = 1; col <= str2.length(); col++) {
+				current[col] = Math.max(0, scoring.cell(previous[col - 1], previous[col], current[col - 1], ch, str2.charAt(col - 1)));
+				if (current[col] > max) {
+					max = current[col];
+					endRow = row;
+					endCol = col;
 				}
 			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		if (max == 0) {
+			return new Alignment("", "", 0, 0, 0, 0, 0);
 		}
 
-		if (max <= 0) {
-			throw new IllegalStateException("Your best score was less than or equal to 0, consider better weights");
+		// backward from the end without clamping: the first cell reaching max is where it starts
+		Arrays.fill(previous, 0);
+		for (int col = 1; col <= endCol; col++) {
+			previous[col] = previous[col - 1] + gapWeight;
 		}
-		
-		int row = maxRow;
-		int col = maxCol;
-		int moves = 0;
-		while (matrix[maxRow][maxCol] != 0) {
-			int diagonal = matrix[row - 1][col - 1];
-			int up = matrix[row - 1][col];
-			int left = matrix[row][col - 1];
-
-			int best = Math.max(diagonal, Math.max(up, left));
-
-			moves++;
-			if (best == diagonal) {
-				row--;
-				col--;
-			} else if (best == up) {
-				row--;
-			} else {
-				col--;
+		int startRow = -1, startCol = -1;
+		for (int row = 1; row <= endRow && startRow < 0; row++) {
+			char ch = str1.charAt(endRow - row);
+			current[0] = previous[0] + gapWeight;
+			for (int col = 1; col <= endCol; col++) {
+				current[col] = scoring.cell(previous[col - 1], previous[col], current[col - 1], ch, str2.charAt(endCol - col));
+				if (current[col] == max) {
+					startRow = endRow - row;
+					startCol = endCol - col;
+					break;
+				}
 			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
 		}
 
-		return moves;
+		return Hirschberg.align(str1, startRow, endRow, str2, startCol, endCol, scoring);
+	}
+
+	//Just finds one of the possible alignment lengths
+	public static int alignmentLength(String str1, String str2, int matchWeight, int mismatchWeight, int gapWeight) throws IllegalStateException {
+		Alignment alignment = align(str1, str2, matchWeight, mismatchWeight, gapWeight);
+		if (alignment.getScore() <= 0) {
+			throw new IllegalStateException("Your best score was less than or equal to 0, consider better weights");
+		}
+		return alignment.length();
 	}
 }
@@ -0,0 +1,189 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.ToDoubleBiFunction;
+
+/*
+ * Vantage point tree, range and nearest neighbor queries under any metric,
+ * including real valued ones the BKTree can't bucket
+ *
+ * Every node picks a vantage point and splits the rest of its items at the
+ * median distance mu to it: the closer half goes inside, the rest outside.
+ * A query at distance d from the vantage point only needs the inside if
+ * d - r <= mu and only the outside if d + r >= mu.
+ *
+ * The tree has no node objects. Bulk loading reorders one array so that
+ * every subtree is a range [from, to) with its vantage point at from, the
+ * inside at [from + 1, split[from]) and the outside at [split[from], to).
+ *
+ * https://dl.acm.org/doi/10.5555/313559.313789
+ */
+public class VPTree<T> {
+	protected final ToDoubleBiFunction<? super T, ? super T> metric;
+	protected final Object[] items;
+	// per subtree, indexed by its first position
+	protected final double[] mu;
+	protected final int[] split;
+
+	public VPTree(Collection<? extends T> items, ToDoubleBiFunction<? super T, ? super T> metric) {
+		this(items, metric, new Random(0));
+	}
+
+	// random picks the vantage points
+	public VPTree(Collection<? extends T> items, ToDoubleBiFunction<? super T, ? super T> metric, Random random) {
+		this.metric = metric;
+		this.items = items.toArray();
+		this.mu = new double[this.items.length];
+		this.split = new int[this.items.length];
+		build(new double[this.items.length], random);
+	}
+
+	@SuppressWarnings("unchecked")
+	private T item(int index) {
+		return (T) items[index];
+	}
+
+	public int size() {
+		return items.length;
+	}
+
+	private void build(double[] distances, Random random) {
+		// ranges still to split, [from, to) pairs
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = 0;
+		stack[top++] = items.length;
+		while (top > 0) {
+			int to = stack[--top], from = stack[--top];
+			if (to - from <= 1) {
+				continue;
+			}
+
+			swap(from, from + random.nextInt(to - from), distances);
+			T vantage = item(from);
+			for (int i = from + 1; i < to; i++) {
+				distances[i] = metric.applyAsDouble(vantage, item(i));
+			}
+
+			int middle = (from + 1 + to) >>> 1;
+			select(from + 1, to - 1, middle, distances);
+			mu[from] = distances[middle];
+			split[from] = middle;
+
+			if (stack.length < top + 4) {
+				stack = Arrays.copyOf(stack, stack.length << 1);
+			}
+			stack[top++] = from + 1;
+			stack[top++] = middle;
+			stack[top++] = middle;
+			stack[top++] = to;
+		}
+	}
+
+	// Quickselect on [low, high] by distance, the kth smallest ends up at k
+	private void select(int low, int high, int k, double[] distances) {
+		while (low < high) {
+			double pivot = distances[(low + high) >>> 1];
+			int i = low, j = high;
+			while (i <= j) {
+				while (distances[i] < pivot) {
+					i++;
+				}
+				while (distances[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(i++, j--, distances);
+				}
+			}
+			if (k <= j) {
+				high = j;
+			} else if (k >= i) {
+				low = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	private void swap(int i, int j, double[] distances) {
+		Object item = items[i];
+		items[i] = items[j];
+		items[j] = item;
+		double distance = distances[i];
+		distances[i] = distances[j];
+		distances[j] = distance;
+	}
+
+	// Every item within maxDistance of query, in no particular order
+	public List<Neighbor<T>> within(T query, double maxDistance) {
+		List<Neighbor<T>> found = new ArrayList<>();
+		within(query, maxDistance, 0, items.length, found);
+		return found;
+	}
+
+	private void within(T query, double maxDistance, int from, int to, List<Neighbor<T>> found) {
+		if (from >= to) {
+			return;
+		}
+		double distance = metric.applyAsDouble(query, item(from));
+		if (distance <= maxDistance) {
+			found.add(new Neighbor<>(item(from), distance));
+		}
+		if (to - from == 1) {
+			return;
+		}
+
+		if (distance - maxDistance <= mu[from]) {
+			within(query, maxDistance, from + 1, split[from], found);
+		}
+		if (distance + maxDistance >= mu[from]) {
+			within(query, maxDistance, split[from], to, found);
+		}
+	}
+
+	// The k nearest items, closest first
+	public List<Neighbor<T>> nearest(T query, int k) {
+		// worst of the best k on top
+		PriorityQueue<Neighbor<T>> best = new PriorityQueue<>(Comparator.comparingDouble((Neighbor<T> n) -> n.distance).reversed());
+		if (k > 0) {
+			nearest(query, k, 0, items.length, best);
+		}
+		List<Neighbor<T>> nearest = new ArrayList<>(best);
+		nearest.sort(Comparator.comparingDouble(Neighbor::getDistance));
+		return nearest;
+	}
+
+	private void nearest(T query, int k, int from, int to, PriorityQueue<Neighbor<T>> best) {
+		if (from >= to) {
+			return;
+		}
+		double distance = metric.applyAsDouble(query, item(from));
+		if (best.size() < k) {
+			best.add(new Neighbor<>(item(from), distance));
+		} else if (distance < best.peek().distance) {
+			best.poll();
+			best.add(new Neighbor<>(item(from), distance));
+		}
+		if (to - from == 1) {
+			return;
+		}
+
+		// the side the query falls in first, it is the likelier one to shrink the radius
+		boolean inside = distance < mu[from];
+		for (int side = 0; side < 2; side++, inside = !inside) {
+			double radius = best.size() < k ? Double.POSITIVE_INFINITY : best.peek().distance;
+			if (inside && distance - radius <= mu[from]) {
+				nearest(query, k, from + 1, split[from], best);
+			} else if (!inside && distance + radius >= mu[from]) {
+				nearest(query, k, split[from], to, best);
+			}
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package metrics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * Alignment scores of long strings on a ForkJoinPool
+ *
+ * The DP table is cut into BLOCK x BLOCK tiles. A tile only needs the row
+ * above it, the column to its left and the corner cell, so every tile on an
+ * anti-diagonal of tiles can be filled at the same time once the previous
+ * anti-diagonal is done.
+ *
+ * Only the boundaries are kept: rowBoundary holds, for every column, the
+ * bottom row of the last tile filled above it, colBoundary the right column
+ * of the last tile filled to the left of each row, and corners the bottom
+ * right cell of every tile. Memory is O(n + m + tiles).
+ */
+final class WavefrontScore {
+	private static final int BLOCK = 1 << 10;
+
+	private final String a;
+	private final String b;
+	private final Hirschberg.Scoring scoring;
+	// local alignment (Smith-Waterman) clamps at 0 and keeps the best cell
+	private final boolean local;
+	private final int rowBlocks;
+	private final int colBlocks;
+	private final int[] rowBoundary;
+	private final int[] colBoundary;
+	private final int[] corners;
+	private final int[] blockBest;
+
+	private WavefrontScore(String a, String b, Hirschberg.Scoring scoring, boolean local) {
+		this.a = a;
+		this.b = b;
+		this.scoring = scoring;
+		this.local = local;
+		rowBlocks = (a.length() + BLOCK - 1) / BLOCK;
+		colBlocks = (b.length() + BLOCK - 1) / BLOCK;
+		rowBoundary = new int[b.length() + 1];
+		colBoundary = new int[a.length() + 1];
+		for (int col = 1; col <= b.length(); col++) {
+			rowBoundary[col] = local ? 0 : rowBoundary[col - 1] + scoring.gapWeight;
+		}
+		for (int row = 1; row <= a.length(); row++) {
+			colBoundary[row] = local ? 0 : colBoundary[row - 1] + scoring.gapWeight;
+		}
+		corners = new int[(rowBlocks + 1) * (colBlocks + 1)];
+		blockBest = new int[rowBlocks * colBlocks];
+	}
+
+	static int score(String a, String b, Hirschberg.Scoring scoring, boolean local, ForkJoinPool pool) {
+		if (a.isEmpty() || b.isEmpty()) {
+			return local ? 0 : (a.length() + b.length()) * scoring.gapWeight;
+		}
+
+		WavefrontScore wavefront = new WavefrontScore(a, b, scoring, local);
+		for (int diagonal = 0; diagonal < wavefront.rowBlocks + wavefront.colBlocks - 1; diagonal++) {
+			int from = Math.max(0, diagonal - wavefront.colBlocks + 1);
+			int to = Math.min(wavefront.rowBlocks - 1, diagonal);
+			if (from == to) {
+				wavefront.fill(from, diagonal - from);
+			} else {
+				pool.invoke(wavefront.new DiagonalTask(diagonal, from, to));
+			}
+		}
+
+		if (!local) {
+			return wavefront.rowBoundary[b.length()];
+		}
+		int best = 0;
+		for (int value : wavefront.blockBest) {
+			best = Math.max(best, value);
+		}
+		return best;
+	}
+
+	// The tiles (row, diagonal - row) for row in [from, to]
+	private class DiagonalTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final int diagonal;
+		private final int from;
+		private final int to;
+
+		DiagonalTask(int diagonal, int from, int to) {
+			this.diagonal = diagonal;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (from == to) {
+				fill(from, diagonal - from);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new DiagonalTask(diagonal, from, middle), new DiagonalTask(diagonal, middle + 1, to));
+		}
+	}
+
+	private void fill(int rowBlock, int colBlock) {
+		final int firstRow = rowBlock * BLOCK + 1, lastRow = Math.min(a.length(), firstRow + BLOCK - 1);
+		final int firstCol = colBlock * BLOCK + 1, lastCol = Math.min(b.length(), firstCol + BLOCK - 1);
+		final int width = lastCol - firstCol + 1;
+
+		// row[k] is the cell in column firstCol + k - 1, row[0] the one left of the tile
+		int[] row = new int[width + 1];
+		row[0] = corner(rowBlock, colBlock);
+		System.arraycopy(rowBoundary, firstCol, row, 1, width);
+
+		int best = 0;
+		for (int r = firstRow; r <= lastRow; r++) {
+			char x = a.charAt(r - 1);
+			int diagonal = row[0];
+			int left = colBoundary[r];
+			row[0] = left;
+			for (int k = 1; k <= width; k++) {
+				int up = row[k];
+				int value = scoring.cell(diagonal, up, left, x, b.charAt(firstCol + k - 2));
+				if (local) {
+					value = Math.max(value, 0);
+					best = Math.max(best, value);
+				}
+				row[k] = value;
+				diagonal = up;
+				left = value;
+			}
+			colBoundary[r] = left;
+		}
+
+		System.arraycopy(row, 1, rowBoundary, firstCol, width);
+		corners[(rowBlock + 1) * (colBlocks + 1) + colBlock + 1] = row[width];
+		blockBest[rowBlock * colBlocks + colBlock] = best;
+	}
+
+	// The cell up and left of the tile
+	private int corner(int rowBlock, int colBlock) {
+		if (local && (rowBlock == 0 || colBlock == 0)) {
+			return 0;
+		} else if (rowBlock == 0) {
+			return colBlock * BLOCK * scoring.gapWeight;
+		} else if (colBlock == 0) {
+			return rowBlock * BLOCK * scoring.gapWeight;
+		}
+		return corners[rowBlock * (colBlocks + 1) + colBlock];
+	}
+}
@@ -0,0 +1,48 @@
+package nlp.ir;
+
+/*
+ * Okapi BM25: the term frequency saturates (k1) and is normalized by the
+ * document length relative to the average (b).
+ *
+ * idf = ln(1 + (N - df + 0.5) / (df + 0.5)), which is never negative
+ * score = idf * f * (k1 + 1) / (f + k1 * (1 - b + b * dl / avgdl))
+ */
+public class BM25Similarity implements Similarity {
+	public static final double DEFAULT_K1 = 1.2;
+	public static final double DEFAULT_B = 0.75;
+
+	protected final double k1;
+	protected final double b;
+
+	public BM25Similarity() {
+		this(DEFAULT_K1, DEFAULT_B);
+	}
+
+	public BM25Similarity(double k1, double b) {
+		if (k1 < 0 || b < 0 || b > 1) {
+			throw new IllegalArgumentException("k1 must be non-negative and b in [0, 1]");
+		}
+		this.k1 = k1;
+		this.b = b;
+	}
+
+	@Override
+	public TermScorer scorer(int docFrequency, int totalDocs, double averageDocLength) {
+		double idf = Math.log(1 + (totalDocs - docFrequency + 0.5) / (docFrequency + 0.5));
+		double lengthWeight = averageDocLength > 0 ? k1 * b / averageDocLength : 0;
+		double baseWeight = k1 * (1 - b);
+
+		return new TermScorer() {
+			@Override
+			public double score(int frequency, int docLength) {
+				return idf * frequency * (k1 + 1) / (frequency + baseWeight + lengthWeight * docLength);
+			}
+
+			@Override
+			public double maxScore(int maxFrequency) {
+				// increases with the frequency and is largest for an empty document
+				return score(maxFrequency, 0);
+			}
+		};
+	}
+}
@@ -1,15 +1,49 @@
 package nlp.ir;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 
 public class BooleanMatrixTester {
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 		//This tests the indexed boolean matrix 
 		List<String> pgs = getLongParagraphs(2);
 		IndexedQueryHandler qh = new IndexedQueryHandler(pgs);
-		System.out.println(qh.query("for & ! ( drug | approach ) "));
+		System.out.println(Arrays.toString(qh.queryDocIDs("for & ! ( drug | approach ) ")));
+		checkTokenizeFile();
+	}
+
+	// The byte path of Tokenizer.tokenizeFile has to give the tokens of splitting every line
+	protected static void checkTokenizeFile() throws IOException {
+		StringBuilder text = new StringBuilder(" leading  double\r\ntrailing  \r\n\r\n   \r\nlone\rreturn\n\nnew line\r\n"
+				+ "caf\u00e9 na\u00efve \u00fcber\r\n");
+		Random random = new Random(1);
+		String pieces = "ab,  \r\n\u00e9";
+		for (int i = 0; i < 200_000; i++) {
+			text.append(pieces.charAt(random.nextInt(pieces.length())));
+		}
+		text.append("no line break at the end");
+
+		Path file = Files.createTempFile("tokenizer", ".txt");
+		try {
+			Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+			for (String delimiter : new String[] { " ", "," }) {
+				Tokenizer tokenizer = new Tokenizer(delimiter);
+				List<String> lines = tokenizer.tokenizeFileLines(file.toString());
+				if (!lines.equals(tokenizer.tokenizeFileBytes(file.toString()))) {
+					throw new IllegalStateException("tokenizeFileBytes differs from tokenizeFileLines on '" + delimiter + "'");
+				}
+			}
+			System.out.println("tokenizeFile: ok");
+		} finally {
+			Files.delete(file);
+		}
 	}
 
 	protected static List<String> getLongParagraphs(int paragraph) {
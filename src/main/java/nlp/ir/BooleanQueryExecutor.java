@@ -0,0 +1,315 @@
+package nlp.ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Stack;
+
+/*
+ * Evaluates boolean queries (&, |, !, parentheses) directly on postings.
+ *
+ * On a positional index the operands can also be "exact phrases", and two
+ * terms or phrases can be joined by NEAR/k to require them to be at most k
+ * positions apart. NEAR binds tighter than every other operator.
+ *
+ * The query is parsed into a tree where chains of the same operator are
+ * flattened, then planned into cursors:
+ * - AND intersects its positive operands rarest first and turns its negated
+ *   operands into exclusions, so a NOT inside an AND never touches the whole
+ *   collection
+ * - OR is a k-way merge of its operands
+ * - a NOT on its own is the complement against the live doc IDs
+ *
+ * Cursors are lazy, so nested operators skip through each other instead of
+ * materializing intermediate results.
+ */
+public class BooleanQueryExecutor {
+	private static final String NOT_OP = "!";
+	private static final String OR_OP = "|";
+	private static final String AND_OP = "&";
+	private static final String NEAR_OP_PREFIX = "NEAR/";
+	private static final String PHRASE_MARK = "\"";
+
+	private static final String OPEN_PAREN_MARK = "(";
+	private static final String CLOSE_PAREN_MARK = ")";
+
+	private static final String IGNORE = "";
+
+	protected final PostingsSource index;
+	protected final int[] liveDocs;
+
+	// liveDocs are all of the sorted doc IDs in the index, used by NOT
+	public BooleanQueryExecutor(PostingsSource index, int[] liveDocs) {
+		this.index = index;
+		this.liveDocs = liveDocs;
+	}
+
+	public PostingsCursor execute(String query) {
+		return parse(query).cursor();
+	}
+
+	public int[] search(String query) {
+		PostingsCursor cursor = execute(query);
+		int[] results = new int[Math.max(1, Math.min(cursor.cost(), liveDocs.length))];
+		int size = 0;
+		for (int doc = cursor.nextDoc(); doc != PostingsCursor.NO_MORE_DOCS; doc = cursor.nextDoc()) {
+			if (size == results.length) {
+				results = Arrays.copyOf(results, size << 1);
+			}
+			results[size++] = doc;
+		}
+		return Arrays.copyOf(results, size);
+	}
+
+	protected Node parse(String query) {
+		String[] wordsAndOps = query.split(" ");
+		Stack<String> ops = new Stack<>();
+		Stack<Node> operands = new Stack<>();
+
+		for (int i = 0; i < wordsAndOps.length; i++) {
+			String token = wordsAndOps[i];
+			if (token.equals(IGNORE)) {
+				continue;
+			} else if (token.startsWith(PHRASE_MARK)) {
+				i = parsePhrase(wordsAndOps, i, operands);
+			} else if (token.equals(OPEN_PAREN_MARK)) {
+				ops.push(token);
+			} else if (token.equals(CLOSE_PAREN_MARK)) {
+				while (!ops.peek().equals(OPEN_PAREN_MARK)) {
+					applyOp(ops.pop(), operands);
+				}
+				ops.pop(); // (
+			} else if (token.equals(NOT_OP)) {
+				// prefix operator, nothing to its left can be applied yet
+				ops.push(token);
+			} else if (isNearOp(token)) {
+				// only an earlier NEAR binds as tightly
+				while (!ops.isEmpty() && isNearOp(ops.peek())) {
+					applyOp(ops.pop(), operands);
+				}
+				ops.push(token);
+			} else if (isBinaryOp(token)) {
+				while (!ops.isEmpty() && !ops.peek().equals(OPEN_PAREN_MARK)) {
+					applyOp(ops.pop(), operands);
+				}
+				ops.push(token);
+			} else {
+				operands.push(new TermNode(token));
+			}
+		}
+
+		while (!ops.isEmpty()) {
+			applyOp(ops.pop(), operands);
+		}
+		return operands.pop();
+	}
+
+	// Collects the words up to the closing quote and returns the index of its token
+	private int parsePhrase(String[] tokens, int start, Stack<Node> operands) {
+		List<String> terms = new ArrayList<>();
+		String token = tokens[start].substring(PHRASE_MARK.length());
+		for (int i = start; i < tokens.length; i++) {
+			if (i > start) {
+				token = tokens[i];
+			}
+
+			boolean last = token.endsWith(PHRASE_MARK);
+			if (last) {
+				token = token.substring(0, token.length() - PHRASE_MARK.length());
+			}
+			if (!token.equals(IGNORE)) {
+				terms.add(token);
+			}
+
+			if (last) {
+				if (terms.isEmpty()) {
+					throw new IllegalArgumentException("Empty phrase");
+				}
+				operands.push(terms.size() == 1 ? new TermNode(terms.get(0)) : new PhraseNode(terms));
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Phrase is missing its closing quote");
+	}
+
+	private void applyOp(String op, Stack<Node> operands) {
+		if (op.equals(NOT_OP)) {
+			operands.push(not(operands.pop()));
+		} else if (isNearOp(op)) {
+			Node right = operands.pop();
+			Node left = operands.pop();
+			operands.push(new NearNode(left, right, Integer.parseInt(op.substring(NEAR_OP_PREFIX.length()))));
+		} else {
+			Node right = operands.pop();
+			Node left = operands.pop();
+			operands.push(op.equals(AND_OP) ? new AndNode(left, right) : new OrNode(left, right));
+		}
+	}
+
+	private boolean isNearOp(String input) {
+		if (!input.startsWith(NEAR_OP_PREFIX) || input.length() == NEAR_OP_PREFIX.length()) {
+			return false;
+		}
+		for (int i = NEAR_OP_PREFIX.length(); i < input.length(); i++) {
+			if (!Character.isDigit(input.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isBinaryOp(String input) {
+		return input.equals(OR_OP) || input.equals(AND_OP);
+	}
+
+	private Node not(Node node) {
+		return node instanceof NotNode ? ((NotNode) node).child : new NotNode(node);
+	}
+
+	protected abstract static class Node {
+		abstract PostingsCursor cursor();
+	}
+
+	// A node whose matches have positions, which NEAR can combine
+	protected abstract static class PositionalNode extends Node {
+		// number of consecutive positions a match covers
+		abstract int length();
+	}
+
+	protected class TermNode extends PositionalNode {
+		protected final String term;
+
+		TermNode(String term) {
+			this.term = term;
+		}
+
+		@Override
+		PostingsCursor cursor() {
+			return index.getPostingsCursor(term);
+		}
+
+		@Override
+		int length() {
+			return 1;
+		}
+	}
+
+	protected class PhraseNode extends PositionalNode {
+		protected final List<String> terms;
+
+		PhraseNode(List<String> terms) {
+			this.terms = terms;
+		}
+
+		@Override
+		PostingsCursor cursor() {
+			List<PostingsCursor> cursors = new ArrayList<>(terms.size());
+			for (String term : terms) {
+				cursors.add(index.getPostingsCursor(term));
+			}
+			return new PhraseCursor(cursors);
+		}
+
+		@Override
+		int length() {
+			return terms.size();
+		}
+	}
+
+	protected class NearNode extends Node {
+		protected final PositionalNode left;
+		protected final PositionalNode right;
+		protected final int maxDistance;
+
+		NearNode(Node left, Node right, int maxDistance) {
+			if (!(left instanceof PositionalNode) || !(right instanceof PositionalNode)) {
+				throw new IllegalArgumentException("NEAR can only join terms and phrases");
+			}
+			this.left = (PositionalNode) left;
+			this.right = (PositionalNode) right;
+			this.maxDistance = maxDistance;
+		}
+
+		@Override
+		PostingsCursor cursor() {
+			return new NearCursor(left.cursor(), left.length(), right.cursor(), right.length(), maxDistance);
+		}
+	}
+
+	protected class NotNode extends Node {
+		protected final Node child;
+
+		NotNode(Node child) {
+			this.child = child;
+		}
+
+		@Override
+		PostingsCursor cursor() {
+			return new ComplementCursor(liveDocs, child.cursor());
+		}
+	}
+
+	protected class AndNode extends Node {
+		protected final List<Node> children = new ArrayList<>();
+
+		AndNode(Node left, Node right) {
+			add(left);
+			add(right);
+		}
+
+		private void add(Node child) {
+			if (child instanceof AndNode) {
+				children.addAll(((AndNode) child).children);
+			} else {
+				children.add(child);
+			}
+		}
+
+		@Override
+		PostingsCursor cursor() {
+			List<PostingsCursor> required = new ArrayList<>();
+			List<PostingsCursor> excluded = new ArrayList<>();
+			for (Node child : children) {
+				if (child instanceof NotNode) {
+					excluded.add(((NotNode) child).child.cursor());
+				} else {
+					required.add(child.cursor());
+				}
+			}
+
+			if (required.isEmpty()) {
+				// !a & !b == !(a | b)
+				return new ComplementCursor(liveDocs, new DisjunctionCursor(excluded));
+			} else if (required.size() == 1 && excluded.isEmpty()) {
+				return required.get(0);
+			}
+			return new ConjunctionCursor(required, excluded);
+		}
+	}
+
+	protected class OrNode extends Node {
+		protected final List<Node> children = new ArrayList<>();
+
+		OrNode(Node left, Node right) {
+			add(left);
+			add(right);
+		}
+
+		private void add(Node child) {
+			if (child instanceof OrNode) {
+				children.addAll(((OrNode) child).children);
+			} else {
+				children.add(child);
+			}
+		}
+
+		@Override
+		PostingsCursor cursor() {
+			List<PostingsCursor> cursors = new ArrayList<>(children.size());
+			for (Node child : children) {
+				cursors.add(child.cursor());
+			}
+			return new DisjunctionCursor(cursors);
+		}
+	}
+}
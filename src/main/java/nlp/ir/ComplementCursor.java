@@ -0,0 +1,50 @@
+package nlp.ir;
+
+/*
+ * NOT: every live doc ID that the excluded cursor does not match.
+ */
+public class ComplementCursor implements PostingsCursor {
+	protected final PostingsCursor liveDocs;
+	protected final PostingsCursor excluded;
+	protected int docID = -1;
+
+	public ComplementCursor(int[] liveDocs, PostingsCursor excluded) {
+		this.liveDocs = new IntArrayPostingsCursor(liveDocs);
+		this.excluded = excluded;
+	}
+
+	@Override
+	public int docID() {
+		return docID;
+	}
+
+	@Override
+	public int nextDoc() {
+		return docID = doNext(liveDocs.nextDoc());
+	}
+
+	@Override
+	public int advance(int target) {
+		return docID = doNext(liveDocs.advance(target));
+	}
+
+	private int doNext(int doc) {
+		while (doc != NO_MORE_DOCS) {
+			int excludedDoc = excluded.docID();
+			if (excludedDoc < doc) {
+				excludedDoc = excluded.advance(doc);
+			}
+
+			if (excludedDoc != doc) {
+				return doc;
+			}
+			doc = liveDocs.nextDoc();
+		}
+		return NO_MORE_DOCS;
+	}
+
+	@Override
+	public int cost() {
+		return liveDocs.cost();
+	}
+}
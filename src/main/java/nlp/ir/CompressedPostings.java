@@ -0,0 +1,332 @@
+package nlp.ir;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/*
+ * An immutable, compressed postings list.
+ *
+ * Sorted doc IDs are turned into gaps and split into blocks of BLOCK_SIZE
+ * which are compressed independently by a PostingsCodec. The last doc ID of
+ * every block is kept uncompressed as skip data, so a cursor can jump over
+ * whole blocks without decoding them and only decodes one block at a time.
+ *
+ * Frequencies, when given, follow the doc gaps of their block and are only
+ * decoded the first time a cursor asks for one in that block.
+ *
+ * Positions, when given, are kept apart from the doc IDs as variable byte gaps
+ * within each document, with the offset of every block's first posting. A
+ * cursor only touches them when nextPosition() is called, and then skips the
+ * postings before the current one by their frequencies without decoding them.
+ */
+public class CompressedPostings {
+	public static final int BLOCK_SIZE = 128;
+
+	protected final PostingsCodec codec;
+	protected final byte[] data;
+	protected final int[] blockOffsets;
+	protected final int[] lastDocIDs;
+	protected final int size;
+	protected final boolean hasFrequencies;
+	// null when positions were not indexed
+	protected final byte[] positionData;
+	protected final int[] positionOffsets;
+
+	public CompressedPostings(int[] docIDs, PostingsCodec codec) {
+		this(docIDs, null, docIDs.length, codec);
+	}
+
+	public CompressedPostings(int[] docIDs, int size, PostingsCodec codec) {
+		this(docIDs, null, size, codec);
+	}
+
+	// docIDs must be sorted, unique and non-negative, frequencies positive or null
+	public CompressedPostings(int[] docIDs, int[] frequencies, int size, PostingsCodec codec) {
+		this(docIDs, frequencies, null, size, codec);
+	}
+
+	// positions holds frequencies[i] sorted positions for every posting i in turn, or is null
+	public CompressedPostings(int[] docIDs, int[] frequencies, int[] positions, int size, PostingsCodec codec) {
+		if (positions != null && frequencies == null) {
+			throw new IllegalArgumentException("Positions need frequencies");
+		}
+		this.codec = codec;
+		this.size = size;
+		this.hasFrequencies = frequencies != null;
+
+		int numBlocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		blockOffsets = new int[numBlocks];
+		lastDocIDs = new int[numBlocks];
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int[] gaps = new int[BLOCK_SIZE];
+		int previous = 0;
+		for (int block = 0; block < numBlocks; block++) {
+			int start = block * BLOCK_SIZE;
+			int count = Math.min(BLOCK_SIZE, size - start);
+			for (int i = 0; i < count; i++) {
+				int docID = docIDs[start + i];
+				if (docID < previous) {
+					throw new IllegalArgumentException("Doc IDs must be sorted and non-negative");
+				}
+				gaps[i] = docID - previous;
+				previous = docID;
+			}
+
+			blockOffsets[block] = out.size();
+			lastDocIDs[block] = previous;
+			codec.encode(gaps, count, out);
+
+			if (hasFrequencies) {
+				for (int i = 0; i < count; i++) {
+					gaps[i] = frequencies[start + i] - 1;
+				}
+				codec.encode(gaps, count, out);
+			}
+		}
+		data = out.toByteArray();
+
+		if (positions == null) {
+			positionData = null;
+			positionOffsets = null;
+			return;
+		}
+
+		positionOffsets = new int[numBlocks];
+		ByteArrayOutputStream positionOut = new ByteArrayOutputStream();
+		int position = 0;
+		for (int i = 0; i < size; i++) {
+			if (i % BLOCK_SIZE == 0) {
+				positionOffsets[i / BLOCK_SIZE] = positionOut.size();
+			}
+			int previousPosition = 0;
+			for (int j = 0; j < frequencies[i]; j++) {
+				int current = positions[position++];
+				if (current < previousPosition) {
+					throw new IllegalArgumentException("Positions must be sorted and non-negative");
+				}
+				VariableByteCodec.write(current - previousPosition, positionOut);
+				previousPosition = current;
+			}
+		}
+		positionData = positionOut.toByteArray();
+	}
+
+	public boolean hasPositions() {
+		return positionData != null;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int sizeInBytes() {
+		int bytes = data.length + (blockOffsets.length + lastDocIDs.length) * Integer.BYTES;
+		return positionData == null ? bytes : bytes + positionData.length + positionOffsets.length * Integer.BYTES;
+	}
+
+	public PostingsCursor cursor() {
+		return new BlockCursor();
+	}
+
+	public int[] toArray() {
+		int[] docIDs = new int[size];
+		PostingsCursor cursor = cursor();
+		for (int i = 0; i < size; i++) {
+			docIDs[i] = cursor.nextDoc();
+		}
+		return docIDs;
+	}
+
+	public int[] toFrequencyArray() {
+		int[] frequencies = new int[size];
+		PostingsCursor cursor = cursor();
+		for (int i = 0; i < size; i++) {
+			cursor.nextDoc();
+			frequencies[i] = cursor.freq();
+		}
+		return frequencies;
+	}
+
+	// Every position of every posting in turn, null when positions were not indexed
+	public int[] toPositionArray() {
+		if (positionData == null) {
+			return null;
+		}
+
+		int[] positions = new int[16];
+		int count = 0;
+		PostingsCursor cursor = cursor();
+		for (int i = 0; i < size; i++) {
+			cursor.nextDoc();
+			int frequency = cursor.freq();
+			if (count + frequency > positions.length) {
+				positions = Arrays.copyOf(positions, Math.max(count + frequency, positions.length << 1));
+			}
+			for (int j = 0; j < frequency; j++) {
+				positions[count++] = cursor.nextPosition();
+			}
+		}
+		return Arrays.copyOf(positions, count);
+	}
+
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+
+	protected class BlockCursor implements PostingsCursor {
+		private final int[] buffer = new int[BLOCK_SIZE];
+		private int[] freqBuffer;
+		private int freqOffset;
+		private boolean freqsDecoded;
+		// positions of the posting at positionPosting start at positionPointer
+		private int positionPosting = -1;
+		private int positionPointer;
+		private int readPointer;
+		private int lastPosition;
+		private int block = -1;
+		private int blockSize = 0;
+		private int indexInBlock = -1;
+		private int docID = -1;
+
+		private void loadBlock(int newBlock) {
+			block = newBlock;
+			blockSize = Math.min(BLOCK_SIZE, size - block * BLOCK_SIZE);
+			freqOffset = codec.decode(data, blockOffsets[block], buffer, blockSize);
+			freqsDecoded = false;
+
+			int previous = block == 0 ? 0 : lastDocIDs[block - 1];
+			for (int i = 0; i < blockSize; i++) {
+				previous += buffer[i];
+				buffer[i] = previous;
+			}
+			indexInBlock = -1;
+		}
+
+		@Override
+		public int docID() {
+			return docID;
+		}
+
+		@Override
+		public int nextDoc() {
+			if (docID == NO_MORE_DOCS) {
+				return docID;
+			}
+
+			if (++indexInBlock >= blockSize) {
+				if (block + 1 >= lastDocIDs.length) {
+					return docID = NO_MORE_DOCS;
+				}
+				loadBlock(block + 1);
+				indexInBlock = 0;
+			}
+			return docID = buffer[indexInBlock];
+		}
+
+		@Override
+		public int advance(int target) {
+			if (docID == NO_MORE_DOCS) {
+				return docID;
+			}
+			// always moves past the current doc, like nextDoc()
+			target = Math.max(target, docID + 1);
+
+			if (block < 0 || lastDocIDs[block] < target) {
+				int nextBlock = findBlock(target, block + 1);
+				if (nextBlock == lastDocIDs.length) {
+					return docID = NO_MORE_DOCS;
+				}
+				loadBlock(nextBlock);
+			}
+
+			// the target is inside the current block
+			do {
+				indexInBlock++;
+			} while (buffer[indexInBlock] < target);
+			return docID = buffer[indexInBlock];
+		}
+
+		// First block at or after from whose last doc ID is >= target
+		private int findBlock(int target, int from) {
+			int low = from;
+			int high = lastDocIDs.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (lastDocIDs[mid] < target) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return low;
+		}
+
+		@Override
+		public int freq() {
+			if (!hasFrequencies) {
+				return 1;
+			}
+			decodeFrequencies();
+			return freqBuffer[indexInBlock] + 1;
+		}
+
+		private void decodeFrequencies() {
+			if (!freqsDecoded) {
+				if (freqBuffer == null) {
+					freqBuffer = new int[BLOCK_SIZE];
+				}
+				codec.decode(data, freqOffset, freqBuffer, blockSize);
+				freqsDecoded = true;
+			}
+		}
+
+		@Override
+		public int nextPosition() {
+			if (positionData == null) {
+				return PostingsCursor.super.nextPosition();
+			}
+
+			int posting = block * BLOCK_SIZE + indexInBlock;
+			if (posting != positionPosting) {
+				int blockStart = block * BLOCK_SIZE;
+				if (positionPosting < blockStart) {
+					positionPosting = blockStart;
+					positionPointer = positionOffsets[block];
+				}
+
+				decodeFrequencies();
+				while (positionPosting < posting) {
+					positionPointer = skip(positionPointer, freqBuffer[positionPosting - blockStart] + 1);
+					positionPosting++;
+				}
+				readPointer = positionPointer;
+				lastPosition = 0;
+			}
+
+			int value = 0;
+			int shift = 0;
+			int b;
+			while (((b = positionData[readPointer++]) & 0x80) == 0) {
+				value |= b << shift;
+				shift += 7;
+			}
+			return lastPosition += value | ((b & 0x7F) << shift);
+		}
+
+		// Skips count variable byte values by looking for their last bytes
+		private int skip(int pointer, int count) {
+			while (count > 0) {
+				if ((positionData[pointer++] & 0x80) != 0) {
+					count--;
+				}
+			}
+			return pointer;
+		}
+
+		@Override
+		public int cost() {
+			return size;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package nlp.ir;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Intersection (AND) of cursors with optional exclusions (AND NOT).
+ *
+ * The cursors are ordered by cost so the rarest one leads. Every candidate of
+ * the lead is checked by advancing (galloping / skipping) the other cursors to
+ * it, and any cursor that overshoots becomes the next target of the lead. The
+ * excluded cursors are only advanced to the candidates that survived.
+ */
+public class ConjunctionCursor implements PostingsCursor {
+	protected final PostingsCursor lead;
+	protected final PostingsCursor[] others;
+	protected final PostingsCursor[] excluded;
+	protected int docID = -1;
+
+	public ConjunctionCursor(List<PostingsCursor> required, List<PostingsCursor> excluded) {
+		PostingsCursor[] sorted = required.toArray(new PostingsCursor[0]);
+		Arrays.sort(sorted, Comparator.comparingInt(PostingsCursor::cost));
+		lead = sorted[0];
+		others = Arrays.copyOfRange(sorted, 1, sorted.length);
+		this.excluded = excluded.toArray(new PostingsCursor[0]);
+	}
+
+	@Override
+	public int docID() {
+		return docID;
+	}
+
+	@Override
+	public int nextDoc() {
+		return docID = doNext(lead.nextDoc());
+	}
+
+	@Override
+	public int advance(int target) {
+		return docID = doNext(lead.advance(target));
+	}
+
+	private int doNext(int doc) {
+		candidates: while (doc != NO_MORE_DOCS) {
+			for (PostingsCursor other : others) {
+				int otherDoc = other.docID();
+				if (otherDoc < doc) {
+					otherDoc = other.advance(doc);
+				}
+
+				if (otherDoc > doc) {
+					doc = lead.advance(otherDoc);
+					continue candidates;
+				}
+			}
+
+			for (PostingsCursor exclude : excluded) {
+				int excludedDoc = exclude.docID();
+				if (excludedDoc < doc) {
+					excludedDoc = exclude.advance(doc);
+				}
+
+				if (excludedDoc == doc) {
+					doc = lead.nextDoc();
+					continue candidates;
+				}
+			}
+			return doc;
+		}
+		return NO_MORE_DOCS;
+	}
+
+	@Override
+	public int cost() {
+		return lead.cost();
+	}
+}
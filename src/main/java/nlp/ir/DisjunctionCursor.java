@@ -0,0 +1,69 @@
+package nlp.ir;
+
+import java.util.List;
+
+/*
+ * Union (OR) of cursors, merged k ways through a min-heap ordered by each
+ * cursor's current doc ID.
+ */
+public class DisjunctionCursor implements PostingsCursor {
+	protected final PostingsCursor[] heap;
+	protected final int cost;
+	protected int docID = -1;
+
+	public DisjunctionCursor(List<PostingsCursor> cursors) {
+		heap = cursors.toArray(new PostingsCursor[0]);
+		long totalCost = 0;
+		for (PostingsCursor cursor : heap) {
+			totalCost += cursor.cost();
+		}
+		cost = (int) Math.min(totalCost, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int docID() {
+		return docID;
+	}
+
+	@Override
+	public int nextDoc() {
+		return advance(docID + 1);
+	}
+
+	@Override
+	public int advance(int target) {
+		if (docID == NO_MORE_DOCS || heap.length == 0) {
+			return docID = NO_MORE_DOCS;
+		}
+
+		target = Math.max(target, docID + 1);
+		while (heap[0].docID() < target) {
+			heap[0].advance(target);
+			siftDown(0);
+		}
+		return docID = heap[0].docID();
+	}
+
+	private void siftDown(int index) {
+		PostingsCursor cursor = heap[index];
+		int doc = cursor.docID();
+		int child;
+		while ((child = 2 * index + 1) < heap.length) {
+			if (child + 1 < heap.length && heap[child + 1].docID() < heap[child].docID()) {
+				child++;
+			}
+
+			if (heap[child].docID() >= doc) {
+				break;
+			}
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = cursor;
+	}
+
+	@Override
+	public int cost() {
+		return cost;
+	}
+}
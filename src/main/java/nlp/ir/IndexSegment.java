@@ -0,0 +1,304 @@
+package nlp.ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/*
+ * An immutable, partial index: terms in their natural (String.compareTo) order,
+ * each with its sorted and unique doc IDs and, optionally, the frequency of the
+ * term in each of those documents.
+ *
+ * Segments are built independently (e.g. one per worker or per memory budget)
+ * and combined with a k-way merge over their sorted terms.
+ */
+public class IndexSegment {
+	protected final String[] terms;
+	protected final int[][] postings;
+	// null when frequencies were not recorded
+	protected final int[][] frequencies;
+
+	public IndexSegment(String[] terms, int[][] postings) {
+		this(terms, postings, null);
+	}
+
+	public IndexSegment(String[] terms, int[][] postings, int[][] frequencies) {
+		this.terms = terms;
+		this.postings = postings;
+		this.frequencies = frequencies;
+	}
+
+	public static IndexSegment build(List<Document> documents) {
+		Map<String, FrequencyList> termPostings = new HashMap<>();
+		for (Document document : documents) {
+			for (String token : document.tokens) {
+				termPostings.computeIfAbsent(token, k -> new FrequencyList()).add(document.docID);
+			}
+		}
+
+		String[] terms = termPostings.keySet().toArray(new String[0]);
+		Arrays.sort(terms);
+		int[][] postings = new int[terms.length][];
+		int[][] frequencies = new int[terms.length][];
+		for (int i = 0; i < terms.length; i++) {
+			termPostings.get(terms[i]).toSortedPostings(i, postings, frequencies);
+		}
+		return new IndexSegment(terms, postings, frequencies);
+	}
+
+	public int size() {
+		return terms.length;
+	}
+
+	public String getTerm(int index) {
+		return terms[index];
+	}
+
+	public int[] getPostings(int index) {
+		return postings[index];
+	}
+
+	// null when the segment has no frequencies
+	public int[] getFrequencies(int index) {
+		return frequencies == null ? null : frequencies[index];
+	}
+
+	public boolean hasFrequencies() {
+		return frequencies != null;
+	}
+
+	public static IndexSegment merge(List<IndexSegment> segments) {
+		// heap entries are {segment, index of its current term}
+		PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, segments.size()),
+				(o1, o2) -> segments.get(o1[0]).terms[o1[1]].compareTo(segments.get(o2[0]).terms[o2[1]]));
+		for (int segment = 0; segment < segments.size(); segment++) {
+			if (segments.get(segment).size() > 0) {
+				heap.add(new int[] { segment, 0 });
+			}
+		}
+
+		// frequencies only survive if every segment has them
+		boolean withFrequencies = true;
+		for (IndexSegment segment : segments) {
+			withFrequencies &= segment.hasFrequencies();
+		}
+
+		List<String> terms = new ArrayList<>();
+		List<int[]> postings = new ArrayList<>();
+		List<int[]> frequencies = new ArrayList<>();
+		while (!heap.isEmpty()) {
+			int[] top = heap.poll();
+			IndexSegment segment = segments.get(top[0]);
+			String term = segment.terms[top[1]];
+			int[] merged = segment.postings[top[1]];
+			int[] mergedFrequencies = withFrequencies ? segment.frequencies[top[1]] : null;
+			advance(heap, segments, top);
+
+			while (!heap.isEmpty() && segments.get(heap.peek()[0]).terms[heap.peek()[1]].equals(term)) {
+				int[] next = heap.poll();
+				segment = segments.get(next[0]);
+				if (withFrequencies) {
+					int[][] result = union(merged, mergedFrequencies, segment.postings[next[1]],
+							segment.frequencies[next[1]]);
+					merged = result[0];
+					mergedFrequencies = result[1];
+				} else {
+					merged = union(merged, segment.postings[next[1]]);
+				}
+				advance(heap, segments, next);
+			}
+			terms.add(term);
+			postings.add(merged);
+			frequencies.add(mergedFrequencies);
+		}
+		return new IndexSegment(terms.toArray(new String[0]), postings.toArray(new int[0][]),
+				withFrequencies ? frequencies.toArray(new int[0][]) : null);
+	}
+
+	private static void advance(PriorityQueue<int[]> heap, List<IndexSegment> segments, int[] entry) {
+		if (++entry[1] < segments.get(entry[0]).size()) {
+			heap.add(entry);
+		}
+	}
+
+	protected static int[] union(int[] postings1, int[] postings2) {
+		int[] merged = new int[postings1.length + postings2.length];
+		int i = 0, j = 0, k = 0;
+		while (i < postings1.length && j < postings2.length) {
+			if (postings1[i] < postings2[j]) {
+				merged[k++] = postings1[i++];
+			} else if (postings1[i] > postings2[j]) {
+				merged[k++] = postings2[j++];
+			} else {
+				merged[k++] = postings1[i++];
+				j++;
+			}
+		}
+		while (i < postings1.length) {
+			merged[k++] = postings1[i++];
+		}
+		while (j < postings2.length) {
+			merged[k++] = postings2[j++];
+		}
+		return k == merged.length ? merged : Arrays.copyOf(merged, k);
+	}
+
+	// Union where the frequencies of a doc ID found in both lists are added up
+	protected static int[][] union(int[] postings1, int[] frequencies1, int[] postings2, int[] frequencies2) {
+		int[] merged = new int[postings1.length + postings2.length];
+		int[] mergedFrequencies = new int[merged.length];
+		int i = 0, j = 0, k = 0;
+		while (i < postings1.length && j < postings2.length) {
+			if (postings1[i] < postings2[j]) {
+				mergedFrequencies[k] = frequencies1[i];
+				merged[k++] = postings1[i++];
+			} else if (postings1[i] > postings2[j]) {
+				mergedFrequencies[k] = frequencies2[j];
+				merged[k++] = postings2[j++];
+			} else {
+				mergedFrequencies[k] = frequencies1[i] + frequencies2[j++];
+				merged[k++] = postings1[i++];
+			}
+		}
+		while (i < postings1.length) {
+			mergedFrequencies[k] = frequencies1[i];
+			merged[k++] = postings1[i++];
+		}
+		while (j < postings2.length) {
+			mergedFrequencies[k] = frequencies2[j];
+			merged[k++] = postings2[j++];
+		}
+		return k == merged.length ? new int[][] { merged, mergedFrequencies }
+				: new int[][] { Arrays.copyOf(merged, k), Arrays.copyOf(mergedFrequencies, k) };
+	}
+
+	public InvertedIndexMatrix toInvertedIndex() {
+		InvertedIndexMatrix index = new InvertedIndexMatrix();
+		for (int i = 0; i < terms.length; i++) {
+			index.addPostings(terms[i], postings[i], getFrequencies(i));
+		}
+		return index;
+	}
+
+	public static class Document {
+		protected final int docID;
+		protected final List<String> tokens;
+
+		public Document(int docID, List<String> tokens) {
+			this.docID = docID;
+			this.tokens = tokens;
+		}
+
+		public int getDocID() {
+			return docID;
+		}
+
+		public List<String> getTokens() {
+			return tokens;
+		}
+	}
+
+	/*
+	 * Collects the postings of a term with the position of every occurrence.
+	 * All occurrences in a document have to be added together, in order.
+	 */
+	protected static class PositionList {
+		private int[] docIDs = new int[4];
+		private int[] frequencies = new int[4];
+		private int size = 0;
+		private int[] positions = new int[4];
+		private int positionCount = 0;
+
+		// Returns true if the occurrence started a new posting
+		boolean add(int docID, int position) {
+			if (positionCount == positions.length) {
+				positions = Arrays.copyOf(positions, positionCount << 1);
+			}
+			positions[positionCount++] = position;
+
+			if (size > 0 && docIDs[size - 1] == docID) {
+				frequencies[size - 1]++;
+				return false;
+			}
+			if (size == docIDs.length) {
+				docIDs = Arrays.copyOf(docIDs, size << 1);
+				frequencies = Arrays.copyOf(frequencies, size << 1);
+			}
+			docIDs[size] = docID;
+			frequencies[size++] = 1;
+			return true;
+		}
+
+		// Returns {doc IDs, frequencies, positions} sorted by doc ID, the positions move with their postings
+		int[][] toSortedPostings() {
+			int[] positionStarts = new int[size];
+			long[] order = new long[size];
+			for (int i = 0, start = 0; i < size; i++) {
+				positionStarts[i] = start;
+				start += frequencies[i];
+				order[i] = ((long) docIDs[i] << 32) | i;
+			}
+			Arrays.sort(order);
+
+			int[] sortedDocIDs = new int[size];
+			int[] sortedFrequencies = new int[size];
+			int[] sortedPositions = new int[positionCount];
+			int positionIndex = 0;
+			for (int i = 0; i < size; i++) {
+				int from = (int) order[i];
+				sortedDocIDs[i] = docIDs[from];
+				sortedFrequencies[i] = frequencies[from];
+				System.arraycopy(positions, positionStarts[from], sortedPositions, positionIndex, frequencies[from]);
+				positionIndex += frequencies[from];
+			}
+			return new int[][] { sortedDocIDs, sortedFrequencies, sortedPositions };
+		}
+	}
+
+	// Counts how often each doc ID was added, for building postings with frequencies
+	protected static class FrequencyList {
+		private int[] values = new int[4];
+		private int[] counts = new int[4];
+		private int size = 0;
+
+		void add(int value) {
+			if (size > 0 && values[size - 1] == value) {
+				counts[size - 1]++;
+				return;
+			}
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size << 1);
+				counts = Arrays.copyOf(counts, size << 1);
+			}
+			values[size] = value;
+			counts[size++] = 1;
+		}
+
+		// Stores the sorted, unique doc IDs and their summed counts at index
+		void toSortedPostings(int index, int[][] postings, int[][] frequencies) {
+			long[] pairs = new long[size];
+			for (int i = 0; i < size; i++) {
+				pairs[i] = ((long) values[i] << 32) | counts[i];
+			}
+			Arrays.sort(pairs);
+
+			int[] docIDs = new int[size];
+			int[] docFrequencies = new int[size];
+			int unique = 0;
+			for (long pair : pairs) {
+				int docID = (int) (pair >> 32);
+				if (unique > 0 && docIDs[unique - 1] == docID) {
+					docFrequencies[unique - 1] += (int) pair;
+				} else {
+					docIDs[unique] = docID;
+					docFrequencies[unique++] = (int) pair;
+				}
+			}
+			postings[index] = unique == size ? docIDs : Arrays.copyOf(docIDs, unique);
+			frequencies[index] = unique == size ? docFrequencies : Arrays.copyOf(docFrequencies, unique);
+		}
+	}
+}
@@ -86,6 +86,62 @@ public class IndexedDictionaryHandler {
 		return matrix;
 	}
 
+	public RoaringIncidentMatrix processRoaringIncidentMatrix() {
+		RoaringIncidentMatrix matrix = null;
+
+		if (isProcessed) {
+			matrix = new RoaringIncidentMatrix(getNumWords(), getNumDoucments());
+
+			Map<String, Integer> rowOfWord = new HashMap<>(getNumWords() * 2);
+			for (int wordIdx = 0; wordIdx < getNumWords(); wordIdx++) {
+				rowOfWord.put(collectedWords.get(wordIdx), wordIdx);
+			}
+
+			// documents are visited in order so every row is only appended to
+			for (int docIdx = 0; docIdx < getNumDoucments(); docIdx++) {
+				for (String word : filesProcessedWords.get(docIdx)) {
+					matrix.set(rowOfWord.get(word), docIdx, true);
+				}
+			}
+			matrix.runOptimize();
+		}
+
+		return matrix;
+	}
+
+	// Doc IDs are the positions of the documents in fileNames
+	public InvertedIndexMatrix processInvertedIndex() {
+		InvertedIndexMatrix index = null;
+
+		if (isProcessed) {
+			index = new InvertedIndexMatrix();
+			for (int docIdx = 0; docIdx < getNumDoucments(); docIdx++) {
+				for (String word : filesProcessedWords.get(docIdx)) {
+					index.add(word, docIdx);
+				}
+			}
+		}
+
+		return index;
+	}
+
+	// Records the position of every word in its document for phrase and NEAR queries
+	public InvertedIndexMatrix processPositionalIndex() {
+		InvertedIndexMatrix index = null;
+
+		if (isProcessed) {
+			index = new InvertedIndexMatrix(true);
+			for (int docIdx = 0; docIdx < getNumDoucments(); docIdx++) {
+				List<String> words = filesProcessedWords.get(docIdx);
+				for (int position = 0; position < words.size(); position++) {
+					index.add(words.get(position), docIdx, position);
+				}
+			}
+		}
+
+		return index;
+	}
+
 	public void clearProcessedInfo() {
 		initDefault();
 	}
@@ -0,0 +1,116 @@
+package nlp.ir;
+
+/*
+ * Cursor over an uncompressed, sorted int[] of doc IDs.
+ *
+ * advance() gallops forward (1, 2, 4, ...) from the current position and then
+ * binary searches the last jump, so skipping k entries costs O(log k).
+ */
+public class IntArrayPostingsCursor implements PostingsCursor {
+	protected final int[] postings;
+	// frequency of each posting, null when every frequency is 1
+	protected final int[] frequencies;
+	// positions of every posting one after another, null when not indexed
+	protected final int[] positions;
+	protected final int size;
+	protected int index = -1;
+
+	// positions start at positionStart for the posting at positionPosting
+	private int positionPosting = 0;
+	private int positionStart = 0;
+	private int nextPositionIndex = 0;
+
+	public IntArrayPostingsCursor(int[] postings) {
+		this(postings, postings.length);
+	}
+
+	public IntArrayPostingsCursor(int[] postings, int size) {
+		this(postings, null, size);
+	}
+
+	public IntArrayPostingsCursor(int[] postings, int[] frequencies, int size) {
+		this(postings, frequencies, null, size);
+	}
+
+	public IntArrayPostingsCursor(int[] postings, int[] frequencies, int[] positions, int size) {
+		if (positions != null && frequencies == null) {
+			throw new IllegalArgumentException("Positions need frequencies");
+		}
+		this.postings = postings;
+		this.frequencies = frequencies;
+		this.positions = positions;
+		this.size = size;
+	}
+
+	@Override
+	public int docID() {
+		if (index < 0) {
+			return -1;
+		}
+		return index < size ? postings[index] : NO_MORE_DOCS;
+	}
+
+	@Override
+	public int nextDoc() {
+		if (index < size) {
+			index++;
+		}
+		return docID();
+	}
+
+	@Override
+	public int advance(int target) {
+		int low = index + 1;
+		if (low >= size) {
+			index = size;
+			return NO_MORE_DOCS;
+		}
+
+		int step = 1;
+		int high = low;
+		while (high < size && postings[high] < target) {
+			low = high + 1;
+			high += step;
+			step <<= 1;
+		}
+		high = Math.min(high, size - 1);
+
+		// first index in [low, high] with postings[index] >= target
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (postings[mid] < target) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		index = low;
+		return docID();
+	}
+
+	@Override
+	public int freq() {
+		return frequencies == null ? 1 : frequencies[index];
+	}
+
+	@Override
+	public int nextPosition() {
+		if (positions == null) {
+			return PostingsCursor.super.nextPosition();
+		}
+
+		if (positionPosting != index) {
+			// only the frequencies of the skipped postings are summed up
+			while (positionPosting < index) {
+				positionStart += frequencies[positionPosting++];
+			}
+			nextPositionIndex = positionStart;
+		}
+		return positions[nextPositionIndex++];
+	}
+
+	@Override
+	public int cost() {
+		return size;
+	}
+}
@@ -1,38 +1,237 @@
 package nlp.ir;
 import java.util.*;
 
-public class InvertedIndexMatrix {
+/*
+ * Terms are looked up through a hash map while a sorted view of the terms is
+ * only rebuilt when it is asked for after new terms have been added.
+ *
+ * Postings are kept in growable int arrays. Doc IDs are usually added in
+ * increasing order, so an add is an append; anything out of order is sorted
+ * and deduplicated lazily the next time the postings are read. Every posting
+ * carries the term's frequency in that document, and the index keeps the
+ * length of every document, both of which ranked retrieval needs. A positional
+ * index also keeps the positions of the term in every document for phrase and
+ * proximity queries.
+ *
+ * Once indexing is done the postings can be compressed with compress(codec),
+ * after which they are read through block cursors.
+ */
+public class InvertedIndexMatrix implements RankingSource {
+	private static final int INITIAL_POSTINGS_CAPACITY = 4;
+
+	// first letter ignoring case, then the natural ordering of the term
+	protected static final Comparator<TermItem> TERM_ORDER = (o1, o2) -> {
+		int comp = Character.compare(Character.toLowerCase(o1.term.charAt(0)),
+				Character.toLowerCase(o2.term.charAt(0)));
+		return comp != 0 ? comp : o1.term.compareTo(o2.term);
+	};
+
 	protected static class TermItem {
 		protected String term;
-		protected int frequency = 0;
-		protected List<Integer> postings = new LinkedList<>();
-		
+		protected int[] postings = new int[INITIAL_POSTINGS_CAPACITY];
+		// occurrences of the term in each posting's document
+		protected int[] frequencies = new int[INITIAL_POSTINGS_CAPACITY];
+		protected int size = 0;
+		// positions of every posting one after another, null unless positional
+		protected int[] positions;
+		protected int positionCount = 0;
+		protected int maxFrequency = 0;
+		protected boolean isSorted = true;
+		protected CompressedPostings compressed;
+
 		public TermItem(String term, int docID) {
 			this.term = term;
 			addPosting(docID);
 		}
 
-		// adds in order
+		public TermItem(String term, int docID, int position) {
+			this.term = term;
+			this.positions = new int[INITIAL_POSTINGS_CAPACITY];
+			addPosting(docID, position);
+		}
+
+		// postings must already be sorted and unique, frequencies may be null
+		protected TermItem(String term, int[] postings, int[] frequencies) {
+			this.term = term;
+			this.size = postings.length;
+			if (size == 0) {
+				return;
+			}
+
+			this.postings = postings;
+			if (frequencies == null) {
+				this.frequencies = new int[size];
+				Arrays.fill(this.frequencies, 1);
+				maxFrequency = 1;
+			} else {
+				this.frequencies = frequencies;
+				for (int i = 0; i < size; i++) {
+					maxFrequency = Math.max(maxFrequency, frequencies[i]);
+				}
+			}
+		}
+
 		protected void addPosting(int docID) {
-			if (postings.contains(docID)) {
+			addFrequency(docID, 1);
+		}
+
+		protected void addPosting(int docID, int position) {
+			addFrequency(docID, 1);
+			if (positionCount == positions.length) {
+				positions = Arrays.copyOf(positions, positionCount << 1);
+			}
+			positions[positionCount++] = position;
+			if (isSorted && frequencies[size - 1] > 1 && positions[positionCount - 2] > position) {
+				isSorted = false;
+			}
+		}
+
+		protected void addFrequency(int docID, int frequency) {
+			if (compressed != null) {
+				decompress();
+			}
+
+			if (size > 0 && isSorted) {
+				int last = postings[size - 1];
+				if (last == docID) {
+					frequencies[size - 1] += frequency;
+					maxFrequency = Math.max(maxFrequency, frequencies[size - 1]);
+					return;
+				} else if (last > docID) {
+					isSorted = false;
+				}
+			}
+
+			if (size == postings.length) {
+				postings = Arrays.copyOf(postings, size << 1);
+				frequencies = Arrays.copyOf(frequencies, size << 1);
+			}
+			postings[size] = docID;
+			frequencies[size++] = frequency;
+			maxFrequency = Math.max(maxFrequency, frequency);
+		}
+
+		// sorts and merges duplicates that were added out of order
+		protected void compact() {
+			if (isSorted) {
+				return;
+			} else if (positions != null) {
+				compactPositions();
 				return;
 			}
 
-			int insertIndex = 0;
-			while (insertIndex < postings.size() && postings.get(insertIndex) < docID) {
-				insertIndex++;
+			// doc ID in the high half so the pairs sort by doc ID
+			long[] pairs = new long[size];
+			for (int i = 0; i < size; i++) {
+				pairs[i] = ((long) postings[i] << 32) | frequencies[i];
+			}
+			Arrays.sort(pairs);
+
+			int unique = 0;
+			for (int i = 0; i < size; i++) {
+				int docID = (int) (pairs[i] >> 32);
+				int frequency = (int) pairs[i];
+				if (unique > 0 && postings[unique - 1] == docID) {
+					frequencies[unique - 1] += frequency;
+				} else {
+					postings[unique] = docID;
+					frequencies[unique++] = frequency;
+				}
+				maxFrequency = Math.max(maxFrequency, frequencies[unique - 1]);
+			}
+			size = unique;
+			isSorted = true;
+		}
+
+		// Like compact(), but the positions have to move with their postings
+		private void compactPositions() {
+			int[] positionStarts = new int[size];
+			long[] order = new long[size];
+			int start = 0;
+			for (int i = 0; i < size; i++) {
+				positionStarts[i] = start;
+				start += frequencies[i];
+				// doc ID in the high half, ties keep the order they were added in
+				order[i] = ((long) postings[i] << 32) | i;
+			}
+			Arrays.sort(order);
+
+			int[] sortedPostings = new int[postings.length];
+			int[] sortedFrequencies = new int[postings.length];
+			int[] sortedPositions = new int[positions.length];
+			int unique = 0;
+			int position = 0;
+			int docStart = 0;
+			for (long entry : order) {
+				int docID = (int) (entry >> 32);
+				int index = (int) entry;
+				if (unique > 0 && sortedPostings[unique - 1] == docID) {
+					sortedFrequencies[unique - 1] += frequencies[index];
+				} else {
+					sortedPostings[unique] = docID;
+					sortedFrequencies[unique++] = frequencies[index];
+					docStart = position;
+				}
+				System.arraycopy(positions, positionStarts[index], sortedPositions, position, frequencies[index]);
+				position += frequencies[index];
+				Arrays.sort(sortedPositions, docStart, position);
+				maxFrequency = Math.max(maxFrequency, sortedFrequencies[unique - 1]);
+			}
+			postings = sortedPostings;
+			frequencies = sortedFrequencies;
+			positions = sortedPositions;
+			size = unique;
+			isSorted = true;
+		}
+
+		protected void compress(PostingsCodec codec) {
+			if (compressed != null) {
+				decompress();
 			}
+			compact();
+			compressed = new CompressedPostings(postings, frequencies, positions, size, codec);
+			postings = null;
+			frequencies = null;
+			positions = null;
+		}
 
-			postings.add(insertIndex, docID);
-			frequency++;
+		protected void decompress() {
+			postings = compressed.toArray();
+			frequencies = compressed.toFrequencyArray();
+			positions = compressed.toPositionArray();
+			positionCount = positions == null ? 0 : positions.length;
+			size = postings.length;
+			compressed = null;
 		}
 
 		protected int getPosting(int index) {
-			if (index < 0 || index >= frequency) {
+			if (index < 0 || index >= getDocFrequency()) {
 				return -1;
 			}
 
-			return postings.get(index);
+			return compressed != null ? compressed.toArray()[index] : postings[index];
+		}
+
+		protected int[] getPostings() {
+			if (compressed != null) {
+				return compressed.toArray();
+			}
+			compact();
+			return Arrays.copyOf(postings, size);
+		}
+
+		protected PostingsCursor getPostingsCursor() {
+			if (compressed != null) {
+				return compressed.cursor();
+			}
+			compact();
+			return new IntArrayPostingsCursor(postings, frequencies, positions, size);
+		}
+
+		// Upper bound on the frequency of the term in any one document
+		public int getMaxFrequency() {
+			compact();
+			return maxFrequency;
 		}
 
 		public String getTerm() {
@@ -40,87 +239,177 @@ public class InvertedIndexMatrix {
 		}
 
 		public int getDocFrequency() {
-			return frequency;
+			if (compressed != null) {
+				return compressed.size();
+			}
+			compact();
+			return size;
 		}
 
 		public String toString() {
-			return "Term: " + getTerm() + " Doc Freq: " + getDocFrequency() + " postings: [" + postings.toString()
-					+ "]";
+			return "Term: " + getTerm() + " Doc Freq: " + getDocFrequency() + " postings: ["
+					+ Arrays.toString(getPostings()) + "]";
 		}
 	}
 
-	// Will be an ordered dictionary
-	protected List<TermItem> dictionary;
+	protected Map<String, TermItem> dictionary;
+	// Ordered view of the dictionary, rebuilt on demand
+	protected List<TermItem> sortedTerms;
+	protected boolean isSorted;
+
 	protected List<Integer> docIDs;
+	protected Set<Integer> seenDocIDs;
+
+	// number of tokens in each document, indexed by doc ID
+	protected int[] docLengths;
+	protected long totalDocLength;
+
+	// a positional index records where in the document every term occurs
+	protected final boolean positional;
 
 	public InvertedIndexMatrix() {
-		dictionary = new ArrayList<>();
-		docIDs =  new ArrayList<>();
+		this(false);
+	}
+
+	public InvertedIndexMatrix(boolean positional) {
+		this.positional = positional;
+		dictionary = new HashMap<>();
+		sortedTerms = new ArrayList<>();
+		isSorted = true;
+		docIDs = new ArrayList<>();
+		seenDocIDs = new HashSet<>();
+		docLengths = new int[INITIAL_POSTINGS_CAPACITY];
+		totalDocLength = 0;
 	}
 
 	public void addAll(List<Term> terms) {
-		terms.stream().forEach(term -> add(term.getTerm(), term.getDocID()));
+		for (Term term : terms) {
+			if (positional) {
+				add(term.getTerm(), term.getDocID(), term.getPosition());
+			} else {
+				add(term.getTerm(), term.getDocID());
+			}
+		}
 	}
 
 	public void addAll(List<String> words, List<Integer> docIDs) {
 		if (words.size() == docIDs.size()) {
-			for (int i = 0; i < words.size(); i++) {
-				add(words.get(i), docIDs.get(i));
+			Iterator<String> wordIter = words.iterator();
+			Iterator<Integer> docIter = docIDs.iterator();
+			while (wordIter.hasNext()) {
+				add(wordIter.next(), docIter.next());
 			}
 		}
 	}
-	
+
 	private void addDocID(int docID) {
-		if (!docIDs.contains(docID)) {
+		if (seenDocIDs.add(docID)) {
 			docIDs.add(docID);
 		}
 	}
-	
+
+	private void addDocLength(int docID, int tokens) {
+		if (docID < 0) {
+			throw new IllegalArgumentException("Doc IDs must be non-negative");
+		}
+		if (docID >= docLengths.length) {
+			docLengths = Arrays.copyOf(docLengths, Math.max(docID + 1, docLengths.length << 1));
+		}
+		docLengths[docID] += tokens;
+		totalDocLength += tokens;
+	}
+
 	public int getDocID(int index) {
 		return docIDs.get(index);
 	}
-	
+
+	@Override
 	public int totalDocIDs() {
 		return docIDs.size();
 	}
 
+	@Override
+	public int getDocLength(int docID) {
+		return docID >= 0 && docID < docLengths.length ? docLengths[docID] : 0;
+	}
+
+	@Override
+	public double getAverageDocLength() {
+		return docIDs.isEmpty() ? 0 : (double) totalDocLength / docIDs.size();
+	}
+
+	public boolean isPositional() {
+		return positional;
+	}
+
 	public void add(String word, int docID) {
-		if (contains(word)) {
-			TermItem item = get(word);
+		if (positional) {
+			throw new IllegalStateException("A positional index needs the position of every term");
+		}
+		addDocLength(docID, 1);
+		TermItem item = dictionary.get(word);
+		if (item == null) {
+			dictionary.put(word, new TermItem(word, docID));
+			isSorted = false;
+		} else {
 			item.addPosting(docID);
+		}
+		addDocID(docID);
+	}
+
+	// position is the index of the term within its document
+	public void add(String word, int docID, int position) {
+		if (!positional) {
+			add(word, docID);
 			return;
+		} else if (position < 0) {
+			throw new IllegalArgumentException("Positions must be non-negative");
 		}
 
-		//Could use iterative binary search
-		char firstLetter = Character.toLowerCase(word.charAt(0));
-		int insertIndex = -1;
-
-		for (int i = 0; i < totalWords(); i++) {
-			TermItem currItem = dictionary.get(i);
-			String itemWord = currItem.getTerm();
-			String itemWordLowercased = itemWord.toLowerCase();
-			char itemFirstLetter = itemWordLowercased.charAt(0);
-
-			if (itemFirstLetter < firstLetter) {
-				continue;
-			} else if (itemFirstLetter == firstLetter) {
-				int comparison = itemWord.compareTo(word);
-				if (comparison < 0) {
-					continue;
-				} else { //don't need to worry abotu checking if it's a match because that's already checked
-					insertIndex = i;
-					break;
-				}
-			} else {
-				insertIndex = i;
-				break;
+		addDocLength(docID, 1);
+		TermItem item = dictionary.get(word);
+		if (item == null) {
+			dictionary.put(word, new TermItem(word, docID, position));
+			isSorted = false;
+		} else {
+			item.addPosting(docID, position);
+		}
+		addDocID(docID);
+	}
+
+	public void addPostings(String word, int[] postings) {
+		addPostings(word, postings, null);
+	}
+
+	// Bulk add of sorted, unique doc IDs, e.g. from a merged IndexSegment.
+	// Without frequencies every posting counts as a single occurrence.
+	public void addPostings(String word, int[] postings, int[] frequencies) {
+		if (positional) {
+			throw new IllegalStateException("Postings without positions cannot be added to a positional index");
+		}
+		for (int i = 0; i < postings.length; i++) {
+			addDocLength(postings[i], frequencies == null ? 1 : frequencies[i]);
+		}
+
+		TermItem item = dictionary.get(word);
+		if (item == null) {
+			dictionary.put(word, new TermItem(word, postings, frequencies));
+			isSorted = false;
+		} else {
+			for (int i = 0; i < postings.length; i++) {
+				item.addFrequency(postings[i], frequencies == null ? 1 : frequencies[i]);
 			}
 		}
 
-		TermItem newItem = new TermItem(word, docID);
-		insertIndex = insertIndex == -1 ? totalWords() : insertIndex;
-		dictionary.add(insertIndex, newItem);
-		addDocID(docID);
+		for (int docID : postings) {
+			addDocID(docID);
+		}
+	}
+
+	@Override
+	public int getMaxFrequency(String word) {
+		TermItem item = dictionary.get(word);
+		return item == null ? 0 : item.getMaxFrequency();
 	}
 
 	public int totalWords() {
@@ -128,38 +417,46 @@ public class InvertedIndexMatrix {
 	}
 
 	public boolean contains(String word) {
-		TermItem item = get(word);
-		return item != null;
+		return dictionary.containsKey(word);
 	}
 
+	@Override
 	public int getDocFrequency(String word) {
-		TermItem item = get(word);
+		TermItem item = dictionary.get(word);
 		return item == null ? 0 : item.getDocFrequency();
 	}
 
-	private TermItem get(String word) {
-		char firstLetter = word.toLowerCase().charAt(0);
-		for (TermItem item : dictionary) {
-			String term = item.getTerm();
-			char termFirstLetter = term.toLowerCase().charAt(0);
-			if (termFirstLetter < firstLetter) {
-				continue;
-			} else if (termFirstLetter == firstLetter) {
-				if (term.equals(word)) {
-					return item;
-				}
-			} else {
-				break;
-			}
+	@Override
+	public PostingsCursor getPostingsCursor(String word) {
+		TermItem item = dictionary.get(word);
+		return item == null ? new IntArrayPostingsCursor(new int[0]) : item.getPostingsCursor();
+	}
+
+	// Compresses every postings list, terms added afterwards are decompressed again
+	public void compress(PostingsCodec codec) {
+		for (TermItem item : dictionary.values()) {
+			item.compress(codec);
+		}
+	}
+
+	protected TermItem get(String word) {
+		return dictionary.get(word);
+	}
+
+	protected List<TermItem> getSortedTerms() {
+		if (!isSorted) {
+			sortedTerms = new ArrayList<>(dictionary.values());
+			sortedTerms.sort(TERM_ORDER);
+			isSorted = true;
 		}
-		return null;
+		return sortedTerms;
 	}
 
 	public String toString() {
-		String results = "Dictionary has " + totalWords() + " words\n";
-		for (TermItem item : dictionary) {
-			results += item.toString() + "\n";
+		StringBuilder results = new StringBuilder("Dictionary has " + totalWords() + " words\n");
+		for (TermItem item : getSortedTerms()) {
+			results.append(item.toString()).append("\n");
 		}
-		return results;
+		return results.toString();
 	}
 }
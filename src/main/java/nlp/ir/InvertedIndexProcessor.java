@@ -1,53 +1,134 @@
 package nlp.ir;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+/*
+ * Collects tokenized documents and turns them into an InvertedIndexMatrix.
+ *
+ * create() indexes on the calling thread. createParallel() splits the
+ * documents into shards on a ForkJoinPool, every worker builds a sorted
+ * IndexSegment of its shard and the segments are k-way merged into the index.
+ *
+ * When created with a directory and a memory budget the documents are not
+ * kept at all: they are indexed SPIMI style, spilling segments to disk, and
+ * createOnDisk() merges them into one memory-mapped segment.
+ */
 public class InvertedIndexProcessor {
-	List<Integer> docsProcessed = new LinkedList<>();
-	List<Term> terms = new LinkedList<>();
-	private boolean isSorted = false;
+	// documents per shard are at least this many tokens before splitting stops
+	private static final int MIN_SHARD_TOKENS = 1 << 14;
+
+	Set<Integer> docsProcessed = new HashSet<>();
+	List<IndexSegment.Document> documents = new ArrayList<>();
+	private long totalTokens = 0;
+	private SpimiIndexWriter spillWriter;
+
+	public InvertedIndexProcessor() {
+	}
+
+	public InvertedIndexProcessor(Path directory, long memoryBudgetBytes) throws IOException {
+		spillWriter = new SpimiIndexWriter(directory, memoryBudgetBytes);
+	}
 
 	public void clear() {
-		terms = new LinkedList<>();
-		docsProcessed = new LinkedList<>();
-		isSorted = false;
+		documents = new ArrayList<>();
+		docsProcessed = new HashSet<>();
+		totalTokens = 0;
+		if (spillWriter != null) {
+			try {
+				spillWriter.close();
+				spillWriter = new SpimiIndexWriter(spillWriter.directory, spillWriter.memoryBudgetBytes);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
 	}
 
+	// Only the first document with a doc ID is indexed, in memory and on disk alike
 	public void process(List<String> tokens, int docID) {
-		if (!docsProcessed.contains(docID)) {
-			tokens.stream().forEach(token -> terms.add(new Term(token, docID)));
-			isSorted = false;
+		if (!docsProcessed.add(docID)) {
+			return;
+		}
+
+		if (spillWriter != null) {
+			try {
+				spillWriter.addDocument(docID, tokens);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		} else {
+			documents.add(new IndexSegment.Document(docID, tokens));
+			totalTokens += tokens.size();
 		}
 	}
 
-	// sort aphebetically (order ex: a > I > i > Z) then by docID (greatest to
-	// least)
-	private void sortTerms() {
-		Comparator<Term> comp = (o1, o2) -> {
-			String firstTerm = o1.getTerm();
-			String firstTermLower = firstTerm.toLowerCase();
+	public InvertedIndexMatrix create() {
+		checkInMemory();
+		InvertedIndexMatrix matrix = new InvertedIndexMatrix();
+		for (IndexSegment.Document document : documents) {
+			for (String token : document.getTokens()) {
+				matrix.add(token, document.getDocID());
+			}
+		}
+		return matrix;
+	}
 
-			String secondTerm = o2.getTerm();
-			String secondTermLower = secondTerm.toLowerCase();
+	public InvertedIndexMatrix createParallel() {
+		return createParallel(ForkJoinPool.commonPool());
+	}
 
-			int comp1 = firstTermLower.compareTo(secondTermLower);
-			if (comp1 != 0) {
-				return comp1;
-			}
+	public InvertedIndexMatrix createParallel(ForkJoinPool pool) {
+		checkInMemory();
+		int shards = (int) Math.max(1, Math.min(pool.getParallelism() * 4L, totalTokens / MIN_SHARD_TOKENS));
+		List<IndexSegment> segments = pool.invoke(new SegmentTask(documents, shards));
+		return IndexSegment.merge(segments).toInvertedIndex();
+	}
 
-			// want higher doc ID's to go first
-			return o2.getDocID() - o1.getDocID();
-		};
+	// Merges the spilled segments into a single segment at path
+	public MappedIndexSegment createOnDisk(Path path) throws IOException {
+		if (spillWriter == null) {
+			throw new IllegalStateException("The processor was not created with a spill directory");
+		}
+		return spillWriter.finish(path);
+	}
 
-		Collections.sort(terms, comp);
+	private void checkInMemory() {
+		if (spillWriter != null) {
+			throw new IllegalStateException("Documents were spilled to disk, use createOnDisk");
+		}
 	}
 
-	public InvertedIndexMatrix create() {
-		if (!isSorted) {
-			sortTerms();
+	// Splits the documents in half until there is one shard left per task
+	private static class SegmentTask extends RecursiveTask<List<IndexSegment>> {
+		private static final long serialVersionUID = 1L;
+
+		private final List<IndexSegment.Document> documents;
+		private final int shards;
+
+		SegmentTask(List<IndexSegment.Document> documents, int shards) {
+			this.documents = documents;
+			this.shards = shards;
+		}
+
+		@Override
+		protected List<IndexSegment> compute() {
+			if (shards <= 1 || documents.size() <= 1) {
+				List<IndexSegment> segments = new ArrayList<>(1);
+				segments.add(IndexSegment.build(documents));
+				return segments;
+			}
+
+			int middle = documents.size() / 2;
+			SegmentTask left = new SegmentTask(documents.subList(0, middle), shards / 2);
+			SegmentTask right = new SegmentTask(documents.subList(middle, documents.size()), shards - shards / 2);
+			left.fork();
+			List<IndexSegment> segments = new ArrayList<>(right.compute());
+			segments.addAll(0, left.join());
+			return segments;
 		}
-		InvertedIndexMatrix matrix = new InvertedIndexMatrix();
-		matrix.addAll(terms);
-		return matrix;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,718 @@
+package nlp.ir;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/*
+ * An immutable index segment on disk that is read through a MappedByteBuffer,
+ * so opening it costs nothing and only the pages touched by a query are loaded.
+ *
+ * File layout (big endian):
+ * - header: magic, term count, doc count, total doc length, docs offset,
+ *   dictionary offset, term index offset
+ * - postings of every term: a skip table of (last doc ID, data offset,
+ *   positions offset) per block of BLOCK_SIZE doc IDs, then every block as the
+ *   variable byte encoded doc ID gaps followed by the frequencies - 1, then the
+ *   positions of every posting as variable byte encoded gaps within the doc
+ * - docs: the sorted doc IDs in the segment, followed by their lengths
+ * - dictionary: (term length, UTF-8 term, doc frequency, max frequency,
+ *   postings offset) in term order
+ * - term index: offset of every dictionary entry, for binary search
+ *
+ * A single mapping is limited to 2GB, so that is also the limit of a segment.
+ */
+public class MappedIndexSegment implements RankingSource, Closeable {
+	public static final int BLOCK_SIZE = 128;
+
+	private static final int MAGIC = 0x49445832;
+	private static final int HEADER_SIZE = 3 * Integer.BYTES + 4 * Long.BYTES;
+	private static final int SKIP_ENTRY_SIZE = 3 * Integer.BYTES;
+
+	protected final Path path;
+	protected final FileChannel channel;
+	protected final MappedByteBuffer buffer;
+	protected final int termCount;
+	protected final int docCount;
+	protected final long totalDocLength;
+	protected final int docsOffset;
+	protected final int dictionaryOffset;
+	protected final int termIndexOffset;
+
+	protected MappedIndexSegment(Path path) throws IOException {
+		this.path = path;
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		if (channel.size() > Integer.MAX_VALUE) {
+			channel.close();
+			throw new IOException("Segment is larger than a single mapping: " + path);
+		}
+
+		buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		if (buffer.getInt(0) != MAGIC) {
+			channel.close();
+			throw new IOException("Not an index segment: " + path);
+		}
+		termCount = buffer.getInt(4);
+		docCount = buffer.getInt(8);
+		totalDocLength = buffer.getLong(12);
+		docsOffset = (int) buffer.getLong(20);
+		dictionaryOffset = (int) buffer.getLong(28);
+		termIndexOffset = (int) buffer.getLong(36);
+	}
+
+	public static MappedIndexSegment open(Path path) throws IOException {
+		return new MappedIndexSegment(path);
+	}
+
+	public Path getPath() {
+		return path;
+	}
+
+	public int totalWords() {
+		return termCount;
+	}
+
+	@Override
+	public int totalDocIDs() {
+		return docCount;
+	}
+
+	@Override
+	public double getAverageDocLength() {
+		return docCount == 0 ? 0 : (double) totalDocLength / docCount;
+	}
+
+	@Override
+	public int getDocLength(int docID) {
+		int low = 0;
+		int high = docCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int doc = buffer.getInt(docsOffset + mid * Integer.BYTES);
+			if (doc < docID) {
+				low = mid + 1;
+			} else if (doc > docID) {
+				high = mid - 1;
+			} else {
+				return buffer.getInt(docsOffset + (docCount + mid) * Integer.BYTES);
+			}
+		}
+		return 0;
+	}
+
+	public int[] getLiveDocs() {
+		int[] docs = new int[docCount];
+		for (int i = 0; i < docCount; i++) {
+			docs[i] = buffer.getInt(docsOffset + i * Integer.BYTES);
+		}
+		return docs;
+	}
+
+	// Lengths of the docs returned by getLiveDocs(), in the same order
+	protected int[] getDocLengths() {
+		int[] lengths = new int[docCount];
+		for (int i = 0; i < docCount; i++) {
+			lengths[i] = buffer.getInt(docsOffset + (docCount + i) * Integer.BYTES);
+		}
+		return lengths;
+	}
+
+	public boolean contains(String term) {
+		return find(term) >= 0;
+	}
+
+	@Override
+	public int getDocFrequency(String term) {
+		int index = find(term);
+		return index < 0 ? 0 : buffer.getInt(afterTerm(entryOffset(index)));
+	}
+
+	@Override
+	public int getMaxFrequency(String term) {
+		int index = find(term);
+		return index < 0 ? 0 : buffer.getInt(afterTerm(entryOffset(index)) + Integer.BYTES);
+	}
+
+	@Override
+	public PostingsCursor getPostingsCursor(String term) {
+		int index = find(term);
+		if (index < 0) {
+			return new IntArrayPostingsCursor(new int[0]);
+		}
+		return cursor(index);
+	}
+
+	public String getTerm(int index) {
+		int entry = entryOffset(index);
+		byte[] bytes = new byte[buffer.getInt(entry)];
+		buffer.get(entry + Integer.BYTES, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	protected PostingsCursor cursor(int index) {
+		int position = afterTerm(entryOffset(index));
+		int docFrequency = buffer.getInt(position);
+		long postingsOffset = buffer.getLong(position + 2 * Integer.BYTES);
+		return new MappedCursor((int) postingsOffset, docFrequency);
+	}
+
+	// Returns {doc IDs, frequencies, positions} of the term at index
+	protected int[][] getPostings(int index) {
+		PostingsCursor cursor = cursor(index);
+		int[] docIDs = new int[cursor.cost()];
+		int[] frequencies = new int[docIDs.length];
+		int[] positions = new int[docIDs.length];
+		int positionCount = 0;
+		for (int i = 0; i < docIDs.length; i++) {
+			docIDs[i] = cursor.nextDoc();
+			frequencies[i] = cursor.freq();
+			if (positionCount + frequencies[i] > positions.length) {
+				positions = Arrays.copyOf(positions, Math.max(positionCount + frequencies[i], positions.length << 1));
+			}
+			for (int j = 0; j < frequencies[i]; j++) {
+				positions[positionCount++] = cursor.nextPosition();
+			}
+		}
+		return new int[][] { docIDs, frequencies, Arrays.copyOf(positions, positionCount) };
+	}
+
+	// Binary search over the term index, -1 if not found
+	private int find(String term) {
+		byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+		int low = 0;
+		int high = termCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int comp = compareTerm(entryOffset(mid), bytes);
+			if (comp < 0) {
+				low = mid + 1;
+			} else if (comp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Compares the UTF-8 term of the entry with bytes in place, in the
+	 * String.compareTo order the terms were written in. UTF-8 bytes sort by
+	 * code point, which only differs from UTF-16 order between a
+	 * supplementary character (lead byte 0xF0 and up) and one in
+	 * U+E000..U+FFFF (lead byte 0xEE or 0xEF), so those two lead bytes are
+	 * moved above the others.
+	 */
+	private int compareTerm(int entry, byte[] bytes) {
+		int length = buffer.getInt(entry);
+		int start = entry + Integer.BYTES;
+		int common = Math.min(length, bytes.length);
+		for (int i = 0; i < common; i++) {
+			int x = buffer.get(start + i) & 0xFF;
+			int y = bytes[i] & 0xFF;
+			if (x != y) {
+				if (x >= 0xEE && y >= 0xEE) {
+					if ((x & 0xFE) == 0xEE) {
+						x += 0xE;
+					}
+					if ((y & 0xFE) == 0xEE) {
+						y += 0xE;
+					}
+				}
+				return x - y;
+			}
+		}
+		return length - bytes.length;
+	}
+
+	private int entryOffset(int index) {
+		return dictionaryOffset + buffer.getInt(termIndexOffset + index * Integer.BYTES);
+	}
+
+	private int afterTerm(int entry) {
+		return entry + Integer.BYTES + buffer.getInt(entry);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	public void delete() throws IOException {
+		close();
+		Files.deleteIfExists(path);
+	}
+
+	// postings[i] is {doc IDs, frequencies, positions} of terms[i], docs are sorted and docLengths follow them
+	public static MappedIndexSegment write(String[] terms, int[][][] postings, int[] docs, int[] docLengths, Path path)
+			throws IOException {
+		try (Writer writer = new Writer(path)) {
+			for (int i = 0; i < terms.length; i++) {
+				writer.add(terms[i], postings[i][0], postings[i][1], postings[i][2]);
+			}
+			writer.finish(docs, docLengths);
+		}
+		return open(path);
+	}
+
+	/*
+	 * k-way merge of the sorted terms of every segment into a new segment. A doc
+	 * ID that is in more than one segment keeps the postings and length of the
+	 * first of them, like a writer keeps the first document with a doc ID.
+	 */
+	public static MappedIndexSegment merge(List<MappedIndexSegment> segments, Path path) throws IOException {
+		// heap entries are {segment, index of its current term}, equal terms come out in segment order
+		String[] currentTerms = new String[segments.size()];
+		PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, segments.size()), (o1, o2) -> {
+			int comp = currentTerms[o1[0]].compareTo(currentTerms[o2[0]]);
+			return comp != 0 ? comp : Integer.compare(o1[0], o2[0]);
+		});
+		for (int segment = 0; segment < segments.size(); segment++) {
+			if (segments.get(segment).totalWords() > 0) {
+				currentTerms[segment] = segments.get(segment).getTerm(0);
+				heap.add(new int[] { segment, 0 });
+			}
+		}
+
+		int[][] docs = { new int[0], new int[0] };
+		for (MappedIndexSegment segment : segments) {
+			docs = union(docs, new int[][] { segment.getLiveDocs(), segment.getDocLengths() });
+		}
+
+		try (Writer writer = new Writer(path)) {
+			while (!heap.isEmpty()) {
+				int[] top = heap.poll();
+				String term = currentTerms[top[0]];
+				int[][] postings = segments.get(top[0]).getPostings(top[1]);
+				advance(heap, segments, currentTerms, top);
+
+				while (!heap.isEmpty() && currentTerms[heap.peek()[0]].equals(term)) {
+					int[] next = heap.poll();
+					postings = union(postings, segments.get(next[0]).getPostings(next[1]));
+					advance(heap, segments, currentTerms, next);
+				}
+				writer.add(term, postings[0], postings[1], postings[2]);
+			}
+			writer.finish(docs[0], docs[1]);
+		}
+		return open(path);
+	}
+
+	/*
+	 * Merges {doc IDs, values} or {doc IDs, frequencies, positions} by doc ID,
+	 * a doc ID in both keeps the entry of first. Positions move with the
+	 * frequencies that count them.
+	 */
+	private static int[][] union(int[][] first, int[][] second) {
+		boolean positional = first.length == 3;
+		int[] a = first[0];
+		int[] b = second[0];
+		int[] docIDs = new int[a.length + b.length];
+		int[] values = new int[docIDs.length];
+		int[] positions = positional ? new int[first[2].length + second[2].length] : null;
+		int i = 0;
+		int j = 0;
+		int size = 0;
+		int firstPosition = 0;
+		int secondPosition = 0;
+		int positionCount = 0;
+		while (i < a.length || j < b.length) {
+			if (j == b.length || (i < a.length && a[i] <= b[j])) {
+				if (j < b.length && a[i] == b[j]) {
+					secondPosition += positional ? second[1][j] : 0;
+					j++;
+				}
+				docIDs[size] = a[i];
+				values[size] = first[1][i++];
+				if (positional) {
+					System.arraycopy(first[2], firstPosition, positions, positionCount, values[size]);
+					firstPosition += values[size];
+					positionCount += values[size];
+				}
+			} else {
+				docIDs[size] = b[j];
+				values[size] = second[1][j++];
+				if (positional) {
+					System.arraycopy(second[2], secondPosition, positions, positionCount, values[size]);
+					secondPosition += values[size];
+					positionCount += values[size];
+				}
+			}
+			size++;
+		}
+
+		docIDs = Arrays.copyOf(docIDs, size);
+		values = Arrays.copyOf(values, size);
+		return positional ? new int[][] { docIDs, values, Arrays.copyOf(positions, positionCount) }
+				: new int[][] { docIDs, values };
+	}
+
+	private static void advance(PriorityQueue<int[]> heap, List<MappedIndexSegment> segments, String[] currentTerms,
+			int[] entry) {
+		if (++entry[1] < segments.get(entry[0]).totalWords()) {
+			currentTerms[entry[0]] = segments.get(entry[0]).getTerm(entry[1]);
+			heap.add(entry);
+		}
+	}
+
+	/*
+	 * Streams terms (in order) and their postings to a segment file. Dictionary
+	 * entries are spooled to a temporary file so only the term index offsets
+	 * stay in memory.
+	 */
+	protected static class Writer implements Closeable {
+		private final Path path;
+		private final Path dictionaryPath;
+		private final CountingOutputStream postingsCount;
+		private final DataOutputStream postingsOut;
+		private final CountingOutputStream dictionaryCount;
+		private final DataOutputStream dictionaryOut;
+		private int[] termIndex = new int[16];
+		private int termCount = 0;
+		private boolean finished = false;
+
+		Writer(Path path) throws IOException {
+			this.path = path;
+			dictionaryPath = path.resolveSibling(path.getFileName() + ".dict.tmp");
+			postingsCount = new CountingOutputStream(Files.newOutputStream(path));
+			postingsOut = new DataOutputStream(new BufferedOutputStream(postingsCount));
+			postingsOut.write(new byte[HEADER_SIZE]);
+			dictionaryCount = new CountingOutputStream(Files.newOutputStream(dictionaryPath));
+			dictionaryOut = new DataOutputStream(new BufferedOutputStream(dictionaryCount));
+		}
+
+		void add(String term, int[] postings, int[] frequencies, int[] positions) throws IOException {
+			postingsOut.flush();
+			long postingsOffset = postingsCount.count;
+			writePostings(postings, frequencies, positions);
+
+			if (termCount == termIndex.length) {
+				termIndex = Arrays.copyOf(termIndex, termCount << 1);
+			}
+			dictionaryOut.flush();
+			termIndex[termCount++] = (int) dictionaryCount.count;
+
+			int maxFrequency = 0;
+			for (int frequency : frequencies) {
+				maxFrequency = Math.max(maxFrequency, frequency);
+			}
+			byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+			dictionaryOut.writeInt(bytes.length);
+			dictionaryOut.write(bytes);
+			dictionaryOut.writeInt(postings.length);
+			dictionaryOut.writeInt(maxFrequency);
+			dictionaryOut.writeLong(postingsOffset);
+		}
+
+		private void writePostings(int[] postings, int[] frequencies, int[] positions) throws IOException {
+			int numBlocks = (postings.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			byte[][] blocks = new byte[numBlocks][];
+			int[] positionOffsets = new int[numBlocks];
+			ByteArrayOutputStream positionsOut = new ByteArrayOutputStream();
+			int previous = 0;
+			int position = 0;
+			for (int block = 0; block < numBlocks; block++) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				int end = Math.min(postings.length, (block + 1) * BLOCK_SIZE);
+				for (int i = block * BLOCK_SIZE; i < end; i++) {
+					VariableByteCodec.write(postings[i] - previous, out);
+					previous = postings[i];
+				}
+
+				positionOffsets[block] = positionsOut.size();
+				for (int i = block * BLOCK_SIZE; i < end; i++) {
+					VariableByteCodec.write(frequencies[i] - 1, out);
+					int lastPosition = 0;
+					for (int j = 0; j < frequencies[i]; j++) {
+						VariableByteCodec.write(positions[position] - lastPosition, positionsOut);
+						lastPosition = positions[position++];
+					}
+				}
+				blocks[block] = out.toByteArray();
+			}
+
+			int dataLength = 0;
+			for (byte[] block : blocks) {
+				dataLength += block.length;
+			}
+			int dataOffset = 0;
+			for (int block = 0; block < numBlocks; block++) {
+				postingsOut.writeInt(postings[Math.min(postings.length, (block + 1) * BLOCK_SIZE) - 1]);
+				postingsOut.writeInt(dataOffset);
+				postingsOut.writeInt(dataLength + positionOffsets[block]);
+				dataOffset += blocks[block].length;
+			}
+			for (byte[] block : blocks) {
+				postingsOut.write(block);
+			}
+			positionsOut.writeTo(postingsOut);
+		}
+
+		void finish(int[] docs, int[] docLengths) throws IOException {
+			postingsOut.flush();
+			long docsOffset = postingsCount.count;
+			long totalDocLength = 0;
+			for (int doc : docs) {
+				postingsOut.writeInt(doc);
+			}
+			for (int length : docLengths) {
+				postingsOut.writeInt(length);
+				totalDocLength += length;
+			}
+
+			dictionaryOut.close();
+			postingsOut.flush();
+			long dictionaryOffset = postingsCount.count;
+			Files.copy(dictionaryPath, postingsOut);
+
+			postingsOut.flush();
+			long termIndexOffset = postingsCount.count;
+			for (int i = 0; i < termCount; i++) {
+				postingsOut.writeInt(termIndex[i]);
+			}
+			postingsOut.close();
+
+			try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+				file.writeInt(MAGIC);
+				file.writeInt(termCount);
+				file.writeInt(docs.length);
+				file.writeLong(totalDocLength);
+				file.writeLong(docsOffset);
+				file.writeLong(dictionaryOffset);
+				file.writeLong(termIndexOffset);
+			}
+			finished = true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			dictionaryOut.close();
+			postingsOut.close();
+			Files.deleteIfExists(dictionaryPath);
+			if (!finished) {
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+
+	private static class CountingOutputStream extends OutputStream {
+		private final OutputStream out;
+		private long count = 0;
+
+		CountingOutputStream(OutputStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+	/*
+	 * Decodes one block of the mapped postings at a time, skipping blocks through
+	 * the skip table. Frequencies and positions are only decoded when asked for.
+	 */
+	protected class MappedCursor implements PostingsCursor {
+		private final int skipTableOffset;
+		private final int dataOffset;
+		private final int numBlocks;
+		private final int docFrequency;
+		private final int[] block = new int[BLOCK_SIZE];
+		private final int[] frequencies = new int[BLOCK_SIZE];
+		private int frequenciesOffset;
+		private boolean frequenciesDecoded;
+		// positions of the posting at positionPosting start at positionPointer
+		private int positionPosting = -1;
+		private int positionPointer;
+		private int readPointer;
+		private int lastPosition;
+		// where readValue() reads next
+		private int pointer;
+		private int blockIndex = -1;
+		private int blockSize = 0;
+		private int indexInBlock = -1;
+		private int docID = -1;
+
+		MappedCursor(int postingsOffset, int docFrequency) {
+			this.docFrequency = docFrequency;
+			numBlocks = (docFrequency + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			skipTableOffset = postingsOffset;
+			dataOffset = postingsOffset + numBlocks * SKIP_ENTRY_SIZE;
+		}
+
+		private int lastDocID(int blockIndex) {
+			return buffer.getInt(skipTableOffset + blockIndex * SKIP_ENTRY_SIZE);
+		}
+
+		private void loadBlock(int newBlock) {
+			blockIndex = newBlock;
+			blockSize = Math.min(BLOCK_SIZE, docFrequency - newBlock * BLOCK_SIZE);
+			pointer = dataOffset + buffer.getInt(skipTableOffset + newBlock * SKIP_ENTRY_SIZE + Integer.BYTES);
+			int previous = newBlock == 0 ? 0 : lastDocID(newBlock - 1);
+			for (int i = 0; i < blockSize; i++) {
+				previous += readValue();
+				block[i] = previous;
+			}
+			frequenciesOffset = pointer;
+			frequenciesDecoded = false;
+			indexInBlock = -1;
+		}
+
+		// Reads the variable byte encoded value at pointer and moves past it
+		private int readValue() {
+			int value = 0;
+			int shift = 0;
+			int b;
+			while (((b = buffer.get(pointer++)) & 0x80) == 0) {
+				value |= b << shift;
+				shift += 7;
+			}
+			return value | ((b & 0x7F) << shift);
+		}
+
+		@Override
+		public int docID() {
+			return docID;
+		}
+
+		@Override
+		public int nextDoc() {
+			if (docID == NO_MORE_DOCS) {
+				return docID;
+			}
+
+			if (++indexInBlock >= blockSize) {
+				if (blockIndex + 1 >= numBlocks) {
+					return docID = NO_MORE_DOCS;
+				}
+				loadBlock(blockIndex + 1);
+				indexInBlock = 0;
+			}
+			return docID = block[indexInBlock];
+		}
+
+		@Override
+		public int advance(int target) {
+			if (docID == NO_MORE_DOCS) {
+				return docID;
+			}
+			target = Math.max(target, docID + 1);
+
+			if (blockIndex < 0 || lastDocID(blockIndex) < target) {
+				int next = findBlock(target, blockIndex + 1);
+				if (next == numBlocks) {
+					return docID = NO_MORE_DOCS;
+				}
+				loadBlock(next);
+			}
+
+			do {
+				indexInBlock++;
+			} while (block[indexInBlock] < target);
+			return docID = block[indexInBlock];
+		}
+
+		// First block at or after from whose last doc ID is >= target
+		private int findBlock(int target, int from) {
+			int low = from;
+			int high = numBlocks - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (lastDocID(mid) < target) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return low;
+		}
+
+		@Override
+		public int freq() {
+			decodeFrequencies();
+			return frequencies[indexInBlock];
+		}
+
+		private void decodeFrequencies() {
+			if (!frequenciesDecoded) {
+				pointer = frequenciesOffset;
+				for (int i = 0; i < blockSize; i++) {
+					frequencies[i] = readValue() + 1;
+				}
+				frequenciesDecoded = true;
+			}
+		}
+
+		@Override
+		public int nextPosition() {
+			int posting = blockIndex * BLOCK_SIZE + indexInBlock;
+			if (posting != positionPosting) {
+				int blockStart = blockIndex * BLOCK_SIZE;
+				if (positionPosting < blockStart) {
+					positionPosting = blockStart;
+					positionPointer = dataOffset
+							+ buffer.getInt(skipTableOffset + blockIndex * SKIP_ENTRY_SIZE + 2 * Integer.BYTES);
+				}
+
+				decodeFrequencies();
+				while (positionPosting < posting) {
+					positionPointer = skip(positionPointer, frequencies[positionPosting - blockStart]);
+					positionPosting++;
+				}
+				readPointer = positionPointer;
+				lastPosition = 0;
+			}
+
+			pointer = readPointer;
+			lastPosition += readValue();
+			readPointer = pointer;
+			return lastPosition;
+		}
+
+		// Skips count variable byte values by looking for their last bytes
+		private int skip(int from, int count) {
+			while (count > 0) {
+				if ((buffer.get(from++) & 0x80) != 0) {
+					count--;
+				}
+			}
+			return from;
+		}
+
+		@Override
+		public int cost() {
+			return docFrequency;
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package nlp.ir;
+
+import java.util.Arrays;
+
+/*
+ * Documents where two terms (or phrases) occur within k positions of each
+ * other, in either order. The distance is counted from the end of the first
+ * one to the start of the second, so adjacent terms are 1 apart.
+ *
+ * Both position lists are merged like in a merge sort. For a position of one
+ * side the closest positions of the other side are its neighbours in the
+ * merged order, so a single pass finds the closest pair.
+ */
+public class NearCursor extends PositionMatchCursor {
+	protected final int leftLength;
+	protected final int rightLength;
+	protected final int maxDistance;
+	protected int[] leftPositions = new int[4];
+	protected int[] rightPositions = new int[4];
+
+	// the lengths are the number of terms of each side, 1 for a term
+	public NearCursor(PostingsCursor left, int leftLength, PostingsCursor right, int rightLength, int maxDistance) {
+		super(Arrays.asList(left, right));
+		this.leftLength = leftLength;
+		this.rightLength = rightLength;
+		this.maxDistance = maxDistance;
+	}
+
+	@Override
+	protected boolean matches() {
+		PostingsCursor left = cursors[0];
+		PostingsCursor right = cursors[1];
+		leftPositions = readPositions(left, leftPositions);
+		rightPositions = readPositions(right, rightPositions);
+		int leftCount = left.freq();
+		int rightCount = right.freq();
+
+		int i = 0, j = 0;
+		while (i < leftCount && j < rightCount) {
+			int leftPosition = leftPositions[i];
+			int rightPosition = rightPositions[j];
+			int distance = leftPosition <= rightPosition ? rightPosition - (leftPosition + leftLength - 1)
+					: leftPosition - (rightPosition + rightLength - 1);
+			if (distance <= maxDistance) {
+				return true;
+			}
+
+			if (leftPosition <= rightPosition) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,120 @@
+package nlp.ir;
+
+import java.io.ByteArrayOutputStream;
+
+/*
+ * Patched Frame of Reference (PFor) encoding.
+ *
+ * Every value of a block is bit-packed with the same width b, picked so the
+ * block is as small as possible. Values that need more than b bits are
+ * exceptions: their low b bits are packed like the rest and their high bits
+ * are written after the packed data together with their position.
+ *
+ * Block layout: [b][exception count][packed low bits][(position, high bits)...]
+ *
+ * http://www.cs.cmu.edu/~jinyangl/papers/pfordelta.pdf
+ */
+public class PForDeltaCodec implements PostingsCodec {
+	private static final int MAX_BLOCK_SIZE = 0xFF;
+
+	@Override
+	public void encode(int[] values, int count, ByteArrayOutputStream out) {
+		if (count > MAX_BLOCK_SIZE) {
+			throw new IllegalArgumentException("A PFor block holds at most " + MAX_BLOCK_SIZE + " values");
+		}
+
+		int bitWidth = bestBitWidth(values, count);
+		int exceptions = 0;
+		for (int i = 0; i < count; i++) {
+			if (bitLength(values[i]) > bitWidth) {
+				exceptions++;
+			}
+		}
+		out.write(bitWidth);
+		out.write(exceptions);
+
+		long mask = mask(bitWidth);
+		long buffer = 0;
+		int bufferedBits = 0;
+		for (int i = 0; i < count; i++) {
+			buffer |= (values[i] & mask) << bufferedBits;
+			bufferedBits += bitWidth;
+			while (bufferedBits >= 8) {
+				out.write((int) buffer);
+				buffer >>>= 8;
+				bufferedBits -= 8;
+			}
+		}
+		if (bufferedBits > 0) {
+			out.write((int) buffer);
+		}
+
+		for (int i = 0; i < count && exceptions > 0; i++) {
+			if (bitLength(values[i]) > bitWidth) {
+				out.write(i);
+				VariableByteCodec.write(values[i] >>> bitWidth, out);
+			}
+		}
+	}
+
+	@Override
+	public int decode(byte[] in, int offset, int[] values, int count) {
+		int bitWidth = in[offset++] & 0xFF;
+		int exceptions = in[offset++] & 0xFF;
+
+		long mask = mask(bitWidth);
+		long buffer = 0;
+		int bufferedBits = 0;
+		for (int i = 0; i < count; i++) {
+			while (bufferedBits < bitWidth) {
+				buffer |= (in[offset++] & 0xFFL) << bufferedBits;
+				bufferedBits += 8;
+			}
+			values[i] = (int) (buffer & mask);
+			buffer >>>= bitWidth;
+			bufferedBits -= bitWidth;
+		}
+
+		for (int i = 0; i < exceptions; i++) {
+			int position = in[offset++] & 0xFF;
+			int high = 0;
+			int shift = 0;
+			int b;
+			while (((b = in[offset++]) & 0x80) == 0) {
+				high |= b << shift;
+				shift += 7;
+			}
+			high |= (b & 0x7F) << shift;
+			values[position] |= high << bitWidth;
+		}
+		return offset;
+	}
+
+	// Picks the width that minimizes packed bits plus the cost of the exceptions
+	private static int bestBitWidth(int[] values, int count) {
+		int bestWidth = 32;
+		int bestCost = Integer.MAX_VALUE;
+		for (int width = 0; width <= 32; width++) {
+			int cost = (count * width + 7) / 8;
+			for (int i = 0; i < count && cost < bestCost; i++) {
+				if (bitLength(values[i]) > width) {
+					cost += 1 + VariableByteCodec.size(values[i] >>> width);
+				}
+			}
+
+			if (cost < bestCost) {
+				bestCost = cost;
+				bestWidth = width;
+			}
+		}
+		return bestWidth;
+	}
+
+	private static int bitLength(int value) {
+		return 32 - Integer.numberOfLeadingZeros(value);
+	}
+
+	private static long mask(int bitWidth) {
+		return (1L << bitWidth) - 1;
+	}
+}
@@ -0,0 +1,73 @@
+package nlp.ir;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Documents where the terms occur next to each other in the given order.
+ *
+ * The positions of every term are merged against the positions of the first
+ * one: a phrase starts at p when the i-th term occurs at p + i. Since all of
+ * the position lists are sorted, each of them is walked once.
+ *
+ * freq() is the number of times the phrase occurs and nextPosition() returns
+ * where each occurrence starts.
+ */
+public class PhraseCursor extends PositionMatchCursor {
+	protected final int[][] positions;
+	protected final int[] counts;
+	protected final int[] pointers;
+	protected int[] starts = new int[4];
+	protected int startCount = 0;
+	protected int nextStart = 0;
+
+	// terms in the order of the phrase
+	public PhraseCursor(List<PostingsCursor> terms) {
+		super(terms);
+		positions = new int[cursors.length][4];
+		counts = new int[cursors.length];
+		pointers = new int[cursors.length];
+	}
+
+	@Override
+	protected boolean matches() {
+		for (int i = 0; i < cursors.length; i++) {
+			positions[i] = readPositions(cursors[i], positions[i]);
+			counts[i] = cursors[i].freq();
+		}
+
+		startCount = 0;
+		nextStart = 0;
+		Arrays.fill(pointers, 0);
+		starts: for (int first = 0; first < counts[0]; first++) {
+			int start = positions[0][first];
+			for (int i = 1; i < cursors.length; i++) {
+				int wanted = start + i;
+				while (pointers[i] < counts[i] && positions[i][pointers[i]] < wanted) {
+					pointers[i]++;
+				}
+				if (pointers[i] == counts[i]) {
+					break starts;
+				} else if (positions[i][pointers[i]] != wanted) {
+					continue starts;
+				}
+			}
+
+			if (startCount == starts.length) {
+				starts = Arrays.copyOf(starts, startCount << 1);
+			}
+			starts[startCount++] = start;
+		}
+		return startCount > 0;
+	}
+
+	@Override
+	public int freq() {
+		return startCount;
+	}
+
+	@Override
+	public int nextPosition() {
+		return starts[nextStart++];
+	}
+}
@@ -0,0 +1,65 @@
+package nlp.ir;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Matches documents on the positions of several terms.
+ *
+ * The terms are intersected on doc IDs first, and only the documents that
+ * contain all of them have their positions read and checked, so positions of
+ * documents that are skipped are never decoded.
+ */
+public abstract class PositionMatchCursor implements PostingsCursor {
+	protected final PostingsCursor[] cursors;
+	protected final ConjunctionCursor approximation;
+	protected int docID = -1;
+
+	protected PositionMatchCursor(List<PostingsCursor> cursors) {
+		this.cursors = cursors.toArray(new PostingsCursor[0]);
+		this.approximation = new ConjunctionCursor(cursors, Collections.emptyList());
+	}
+
+	// Every cursor is on the same doc
+	protected abstract boolean matches();
+
+	@Override
+	public int docID() {
+		return docID;
+	}
+
+	@Override
+	public int nextDoc() {
+		return docID = confirm(approximation.nextDoc());
+	}
+
+	@Override
+	public int advance(int target) {
+		return docID = confirm(approximation.advance(target));
+	}
+
+	private int confirm(int doc) {
+		while (doc != NO_MORE_DOCS && !matches()) {
+			doc = approximation.nextDoc();
+		}
+		return doc;
+	}
+
+	@Override
+	public int cost() {
+		return approximation.cost();
+	}
+
+	// Reads the positions of the cursor's current doc into buffer, growing it if needed
+	protected static int[] readPositions(PostingsCursor cursor, int[] buffer) {
+		int frequency = cursor.freq();
+		if (buffer.length < frequency) {
+			buffer = Arrays.copyOf(buffer, Math.max(frequency, buffer.length << 1));
+		}
+		for (int i = 0; i < frequency; i++) {
+			buffer[i] = cursor.nextPosition();
+		}
+		return buffer;
+	}
+}
@@ -0,0 +1,14 @@
+package nlp.ir;
+
+import java.io.ByteArrayOutputStream;
+
+/*
+ * Compresses blocks of small non-negative integers, e.g. the gaps between
+ * sorted doc IDs.
+ */
+public interface PostingsCodec {
+	void encode(int[] values, int count, ByteArrayOutputStream out);
+
+	// Decodes count values into values and returns the offset after the block
+	int decode(byte[] in, int offset, int[] values, int count);
+}
@@ -0,0 +1,33 @@
+package nlp.ir;
+
+/*
+ * Walks the sorted doc IDs of a single term.
+ *
+ * A cursor starts before the first document, so nextDoc() or advance() must be
+ * called before docID() returns a real document.
+ */
+public interface PostingsCursor {
+	int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+	// The current doc ID, -1 before the first call and NO_MORE_DOCS once exhausted
+	int docID();
+
+	int nextDoc();
+
+	// Moves to the first doc ID >= target and returns it
+	int advance(int target);
+
+	// Occurrences of the term in the current doc, 1 when frequencies are not recorded
+	default int freq() {
+		return 1;
+	}
+
+	// Next position of the term in the current doc, to be called at most freq() times.
+	// Positions are only decoded when asked for.
+	default int nextPosition() {
+		throw new UnsupportedOperationException("Positions are not indexed");
+	}
+
+	// Total number of doc IDs in the postings list
+	int cost();
+}
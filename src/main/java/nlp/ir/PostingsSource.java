@@ -0,0 +1,12 @@
+package nlp.ir;
+
+/*
+ * Anything that can hand out the postings of a term, e.g. an in-memory
+ * InvertedIndexMatrix.
+ */
+public interface PostingsSource {
+	// An exhausted cursor is returned for unknown terms
+	PostingsCursor getPostingsCursor(String term);
+
+	int getDocFrequency(String term);
+}
@@ -0,0 +1,17 @@
+package nlp.ir;
+
+/*
+ * A PostingsSource with the collection statistics that ranking needs, e.g. an
+ * in-memory InvertedIndexMatrix or a MappedIndexSegment on disk.
+ */
+public interface RankingSource extends PostingsSource {
+	int totalDocIDs();
+
+	double getAverageDocLength();
+
+	// Number of tokens in the document, 0 for unknown documents
+	int getDocLength(int docID);
+
+	// Highest frequency of the term in any document, 0 for unknown terms
+	int getMaxFrequency(String term);
+}
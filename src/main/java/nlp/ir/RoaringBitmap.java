@@ -0,0 +1,754 @@
+package nlp.ir;
+
+import java.util.Arrays;
+
+/*
+ * A compressed set of non-negative ints (Roaring bitmap).
+ *
+ * Values are split by their high 16 bits into chunks, each chunk is stored in
+ * whichever container is smallest for its contents:
+ * - array: sorted chars, for sparse chunks (at most 4096 values)
+ * - bitmap: 1024 longs, for dense chunks
+ * - run: (start, length - 1) pairs, for chunks made of long runs
+ *
+ * AND, OR and AND NOT work chunk by chunk, bitmap against bitmap being plain
+ * word loops the JIT can vectorize. Cardinality is tracked per container so
+ * it never needs to materialize the set.
+ *
+ * https://arxiv.org/pdf/1603.06549.pdf
+ */
+public class RoaringBitmap {
+	private static final int INITIAL_CAPACITY = 4;
+
+	protected char[] keys = new char[INITIAL_CAPACITY];
+	protected Container[] containers = new Container[INITIAL_CAPACITY];
+	protected int size = 0;
+
+	public static RoaringBitmap of(int... values) {
+		RoaringBitmap bitmap = new RoaringBitmap();
+		for (int value : values) {
+			bitmap.add(value);
+		}
+		return bitmap;
+	}
+
+	public void add(int value) {
+		char key = high(value);
+		int index = indexOf(key);
+		if (index >= 0) {
+			containers[index] = containers[index].add(low(value));
+		} else {
+			insert(-index - 1, key, new ArrayContainer().add(low(value)));
+		}
+	}
+
+	public void remove(int value) {
+		int index = indexOf(high(value));
+		if (index >= 0) {
+			Container container = containers[index].remove(low(value));
+			if (container.cardinality() == 0) {
+				delete(index);
+			} else {
+				containers[index] = container;
+			}
+		}
+	}
+
+	public boolean contains(int value) {
+		int index = indexOf(high(value));
+		return index >= 0 && containers[index].contains(low(value));
+	}
+
+	public long getCardinality() {
+		long cardinality = 0;
+		for (int i = 0; i < size; i++) {
+			cardinality += containers[i].cardinality();
+		}
+		return cardinality;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		keys = new char[INITIAL_CAPACITY];
+		containers = new Container[INITIAL_CAPACITY];
+		size = 0;
+	}
+
+	// Converts every container to its smallest representation
+	public void runOptimize() {
+		for (int i = 0; i < size; i++) {
+			containers[i] = containers[i].optimize();
+		}
+	}
+
+	public long sizeInBytes() {
+		long bytes = (long) size * (Character.BYTES + Long.BYTES);
+		for (int i = 0; i < size; i++) {
+			bytes += containers[i].sizeInBytes();
+		}
+		return bytes;
+	}
+
+	public static RoaringBitmap and(RoaringBitmap x1, RoaringBitmap x2) {
+		RoaringBitmap result = new RoaringBitmap();
+		int i = 0, j = 0;
+		while (i < x1.size && j < x2.size) {
+			if (x1.keys[i] < x2.keys[j]) {
+				i++;
+			} else if (x1.keys[i] > x2.keys[j]) {
+				j++;
+			} else {
+				Container container = x1.containers[i].and(x2.containers[j]);
+				if (container.cardinality() > 0) {
+					result.append(x1.keys[i], container);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	public static RoaringBitmap or(RoaringBitmap x1, RoaringBitmap x2) {
+		RoaringBitmap result = new RoaringBitmap();
+		int i = 0, j = 0;
+		while (i < x1.size || j < x2.size) {
+			if (j == x2.size || (i < x1.size && x1.keys[i] < x2.keys[j])) {
+				result.append(x1.keys[i], x1.containers[i].copy());
+				i++;
+			} else if (i == x1.size || x1.keys[i] > x2.keys[j]) {
+				result.append(x2.keys[j], x2.containers[j].copy());
+				j++;
+			} else {
+				result.append(x1.keys[i], x1.containers[i].or(x2.containers[j]));
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	public static RoaringBitmap andNot(RoaringBitmap x1, RoaringBitmap x2) {
+		RoaringBitmap result = new RoaringBitmap();
+		int i = 0, j = 0;
+		while (i < x1.size) {
+			if (j == x2.size || x1.keys[i] < x2.keys[j]) {
+				result.append(x1.keys[i], x1.containers[i].copy());
+				i++;
+			} else if (x1.keys[i] > x2.keys[j]) {
+				j++;
+			} else {
+				Container container = x1.containers[i].andNot(x2.containers[j]);
+				if (container.cardinality() > 0) {
+					result.append(x1.keys[i], container);
+				}
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	// Size of the intersection without building it
+	public static long andCardinality(RoaringBitmap x1, RoaringBitmap x2) {
+		long cardinality = 0;
+		int i = 0, j = 0;
+		while (i < x1.size && j < x2.size) {
+			if (x1.keys[i] < x2.keys[j]) {
+				i++;
+			} else if (x1.keys[i] > x2.keys[j]) {
+				j++;
+			} else {
+				cardinality += x1.containers[i].andCardinality(x2.containers[j]);
+				i++;
+				j++;
+			}
+		}
+		return cardinality;
+	}
+
+	public PostingsCursor cursor() {
+		return new RoaringCursor();
+	}
+
+	public int[] toArray() {
+		int[] values = new int[(int) getCardinality()];
+		PostingsCursor cursor = cursor();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = cursor.nextDoc();
+		}
+		return values;
+	}
+
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+
+	private int indexOf(char key) {
+		// appends are the common case when building in order
+		if (size > 0 && keys[size - 1] == key) {
+			return size - 1;
+		}
+		return Arrays.binarySearch(keys, 0, size, key);
+	}
+
+	private void append(char key, Container container) {
+		insert(size, key, container);
+	}
+
+	private void insert(int index, char key, Container container) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size << 1);
+			containers = Arrays.copyOf(containers, size << 1);
+		}
+		System.arraycopy(keys, index, keys, index + 1, size - index);
+		System.arraycopy(containers, index, containers, index + 1, size - index);
+		keys[index] = key;
+		containers[index] = container;
+		size++;
+	}
+
+	private void delete(int index) {
+		System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+		System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+		containers[--size] = null;
+	}
+
+	private static char high(int value) {
+		return (char) (value >>> 16);
+	}
+
+	private static char low(int value) {
+		return (char) value;
+	}
+
+	protected class RoaringCursor implements PostingsCursor {
+		private final int cost = (int) Math.min(getCardinality(), Integer.MAX_VALUE);
+		private int index = 0;
+		private int docID = -1;
+
+		@Override
+		public int docID() {
+			return docID;
+		}
+
+		@Override
+		public int nextDoc() {
+			return advance(docID + 1);
+		}
+
+		@Override
+		public int advance(int target) {
+			if (docID == NO_MORE_DOCS) {
+				return docID;
+			}
+
+			target = Math.max(target, docID + 1);
+			char key = high(target);
+			while (index < size && keys[index] < key) {
+				index++;
+			}
+
+			int from = index < size && keys[index] == key ? low(target) : 0;
+			while (index < size) {
+				int next = containers[index].next(from);
+				if (next >= 0) {
+					return docID = (keys[index] << 16) | next;
+				}
+				index++;
+				from = 0;
+			}
+			return docID = NO_MORE_DOCS;
+		}
+
+		@Override
+		public int cost() {
+			return cost;
+		}
+	}
+
+	protected abstract static class Container {
+		static final int MAX_ARRAY_SIZE = 4096;
+		static final int BITMAP_BYTES = BitmapContainer.WORDS * Long.BYTES;
+
+		abstract Container add(char value);
+
+		abstract Container remove(char value);
+
+		abstract boolean contains(char value);
+
+		abstract int cardinality();
+
+		// The first value >= from, or -1
+		abstract int next(int from);
+
+		abstract int numberOfRuns();
+
+		abstract int sizeInBytes();
+
+		abstract Container copy();
+
+		abstract BitmapContainer toBitmap();
+
+		Container and(Container other) {
+			if (this instanceof ArrayContainer) {
+				return ((ArrayContainer) this).filter(other, true);
+			} else if (other instanceof ArrayContainer) {
+				return ((ArrayContainer) other).filter(this, true);
+			}
+			return toBitmap().andWords(other.toBitmap()).optimize();
+		}
+
+		int andCardinality(Container other) {
+			if (!(this instanceof ArrayContainer) && other instanceof ArrayContainer) {
+				return other.andCardinality(this);
+			} else if (this instanceof ArrayContainer) {
+				ArrayContainer array = (ArrayContainer) this;
+				int count = 0;
+				for (int i = 0; i < array.cardinality; i++) {
+					if (other.contains(array.content[i])) {
+						count++;
+					}
+				}
+				return count;
+			}
+
+			long[] words = toBitmap().words;
+			long[] otherWords = other.toBitmap().words;
+			int count = 0;
+			for (int i = 0; i < BitmapContainer.WORDS; i++) {
+				count += Long.bitCount(words[i] & otherWords[i]);
+			}
+			return count;
+		}
+
+		Container or(Container other) {
+			if (this instanceof ArrayContainer && other instanceof ArrayContainer) {
+				return ((ArrayContainer) this).union((ArrayContainer) other);
+			} else if (other instanceof ArrayContainer) {
+				return other.or(this);
+			}
+
+			BitmapContainer result = (BitmapContainer) other.toBitmap().copy();
+			if (this instanceof ArrayContainer) {
+				ArrayContainer array = (ArrayContainer) this;
+				for (int i = 0; i < array.cardinality; i++) {
+					result.set(array.content[i]);
+				}
+				return result;
+			}
+			return result.orWords(toBitmap()).optimize();
+		}
+
+		Container andNot(Container other) {
+			if (this instanceof ArrayContainer) {
+				return ((ArrayContainer) this).filter(other, false);
+			}
+
+			BitmapContainer result = (BitmapContainer) toBitmap().copy();
+			if (other instanceof ArrayContainer) {
+				ArrayContainer array = (ArrayContainer) other;
+				for (int i = 0; i < array.cardinality; i++) {
+					result.clear(array.content[i]);
+				}
+				return result.optimize();
+			}
+			return result.andNotWords(other.toBitmap()).optimize();
+		}
+
+		// Picks whichever of the three representations is the smallest
+		Container optimize() {
+			int cardinality = cardinality();
+			int arrayBytes = cardinality * Character.BYTES;
+			int runBytes = numberOfRuns() * 2 * Character.BYTES;
+
+			if (runBytes < Math.min(arrayBytes, BITMAP_BYTES)) {
+				return this instanceof RunContainer ? this : RunContainer.from(this);
+			} else if (cardinality <= MAX_ARRAY_SIZE) {
+				return this instanceof ArrayContainer ? this : ArrayContainer.from(this);
+			}
+			return toBitmap();
+		}
+	}
+
+	protected static class ArrayContainer extends Container {
+		char[] content = new char[INITIAL_CAPACITY];
+		int cardinality = 0;
+
+		static ArrayContainer from(Container container) {
+			ArrayContainer array = new ArrayContainer();
+			array.content = new char[Math.max(INITIAL_CAPACITY, container.cardinality())];
+			for (int value = container.next(0); value >= 0; value = container.next(value + 1)) {
+				array.content[array.cardinality++] = (char) value;
+			}
+			return array;
+		}
+
+		@Override
+		Container add(char value) {
+			int index = cardinality > 0 && content[cardinality - 1] < value ? -cardinality - 1
+					: Arrays.binarySearch(content, 0, cardinality, value);
+			if (index >= 0) {
+				return this;
+			}
+
+			if (cardinality == MAX_ARRAY_SIZE) {
+				return toBitmap().add(value);
+			}
+
+			index = -index - 1;
+			if (cardinality == content.length) {
+				content = Arrays.copyOf(content, Math.min(cardinality << 1, MAX_ARRAY_SIZE));
+			}
+			System.arraycopy(content, index, content, index + 1, cardinality - index);
+			content[index] = value;
+			cardinality++;
+			return this;
+		}
+
+		@Override
+		Container remove(char value) {
+			int index = Arrays.binarySearch(content, 0, cardinality, value);
+			if (index >= 0) {
+				System.arraycopy(content, index + 1, content, index, cardinality - index - 1);
+				cardinality--;
+			}
+			return this;
+		}
+
+		@Override
+		boolean contains(char value) {
+			return Arrays.binarySearch(content, 0, cardinality, value) >= 0;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		int next(int from) {
+			if (from > Character.MAX_VALUE) {
+				return -1;
+			}
+			int index = Arrays.binarySearch(content, 0, cardinality, (char) from);
+			if (index < 0) {
+				index = -index - 1;
+			}
+			return index < cardinality ? content[index] : -1;
+		}
+
+		@Override
+		int numberOfRuns() {
+			int runs = cardinality > 0 ? 1 : 0;
+			for (int i = 1; i < cardinality; i++) {
+				if (content[i] != content[i - 1] + 1) {
+					runs++;
+				}
+			}
+			return runs;
+		}
+
+		@Override
+		int sizeInBytes() {
+			return content.length * Character.BYTES;
+		}
+
+		@Override
+		Container copy() {
+			ArrayContainer copy = new ArrayContainer();
+			copy.content = Arrays.copyOf(content, Math.max(INITIAL_CAPACITY, cardinality));
+			copy.cardinality = cardinality;
+			return copy;
+		}
+
+		@Override
+		BitmapContainer toBitmap() {
+			BitmapContainer bitmap = new BitmapContainer();
+			for (int i = 0; i < cardinality; i++) {
+				bitmap.set(content[i]);
+			}
+			return bitmap;
+		}
+
+		// Keeps the values that are (or are not) in other
+		Container filter(Container other, boolean keepContained) {
+			ArrayContainer result = new ArrayContainer();
+			result.content = new char[Math.max(INITIAL_CAPACITY, cardinality)];
+			for (int i = 0; i < cardinality; i++) {
+				if (other.contains(content[i]) == keepContained) {
+					result.content[result.cardinality++] = content[i];
+				}
+			}
+			return result;
+		}
+
+		Container union(ArrayContainer other) {
+			char[] merged = new char[cardinality + other.cardinality];
+			int i = 0, j = 0, k = 0;
+			while (i < cardinality && j < other.cardinality) {
+				if (content[i] < other.content[j]) {
+					merged[k++] = content[i++];
+				} else if (content[i] > other.content[j]) {
+					merged[k++] = other.content[j++];
+				} else {
+					merged[k++] = content[i++];
+					j++;
+				}
+			}
+			while (i < cardinality) {
+				merged[k++] = content[i++];
+			}
+			while (j < other.cardinality) {
+				merged[k++] = other.content[j++];
+			}
+
+			ArrayContainer result = new ArrayContainer();
+			result.content = merged.length == 0 ? new char[INITIAL_CAPACITY] : merged;
+			result.cardinality = k;
+			return k > MAX_ARRAY_SIZE ? result.toBitmap() : result;
+		}
+	}
+
+	protected static class BitmapContainer extends Container {
+		static final int WORDS = (Character.MAX_VALUE + 1) / Long.SIZE;
+
+		long[] words = new long[WORDS];
+		int cardinality = 0;
+
+		@Override
+		Container add(char value) {
+			set(value);
+			return this;
+		}
+
+		void set(char value) {
+			long before = words[value >>> 6];
+			long after = before | (1L << value);
+			words[value >>> 6] = after;
+			cardinality += (int) ((before ^ after) >>> value);
+		}
+
+		void clear(char value) {
+			long before = words[value >>> 6];
+			long after = before & ~(1L << value);
+			words[value >>> 6] = after;
+			cardinality -= (int) ((before ^ after) >>> value);
+		}
+
+		@Override
+		Container remove(char value) {
+			clear(value);
+			return cardinality <= MAX_ARRAY_SIZE ? ArrayContainer.from(this) : this;
+		}
+
+		@Override
+		boolean contains(char value) {
+			return (words[value >>> 6] & (1L << value)) != 0;
+		}
+
+		@Override
+		int cardinality() {
+			return cardinality;
+		}
+
+		@Override
+		int next(int from) {
+			int wordIndex = from >>> 6;
+			if (wordIndex >= WORDS) {
+				return -1;
+			}
+
+			long word = words[wordIndex] & (-1L << from);
+			while (word == 0) {
+				if (++wordIndex == WORDS) {
+					return -1;
+				}
+				word = words[wordIndex];
+			}
+			return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+		}
+
+		@Override
+		int numberOfRuns() {
+			int runs = 0;
+			long previousTop = 0;
+			for (long word : words) {
+				// a run starts wherever a one follows a zero
+				runs += Long.bitCount(word & ~((word << 1) | previousTop));
+				previousTop = word >>> 63;
+			}
+			return runs;
+		}
+
+		@Override
+		int sizeInBytes() {
+			return BITMAP_BYTES;
+		}
+
+		@Override
+		Container copy() {
+			BitmapContainer copy = new BitmapContainer();
+			copy.words = words.clone();
+			copy.cardinality = cardinality;
+			return copy;
+		}
+
+		@Override
+		BitmapContainer toBitmap() {
+			return this;
+		}
+
+		BitmapContainer andWords(BitmapContainer other) {
+			BitmapContainer result = new BitmapContainer();
+			long[] resultWords = result.words;
+			for (int i = 0; i < WORDS; i++) {
+				resultWords[i] = words[i] & other.words[i];
+			}
+			result.cardinality = bitCount(resultWords);
+			return result;
+		}
+
+		// modifies this container
+		BitmapContainer orWords(BitmapContainer other) {
+			for (int i = 0; i < WORDS; i++) {
+				words[i] |= other.words[i];
+			}
+			cardinality = bitCount(words);
+			return this;
+		}
+
+		// modifies this container
+		BitmapContainer andNotWords(BitmapContainer other) {
+			for (int i = 0; i < WORDS; i++) {
+				words[i] &= ~other.words[i];
+			}
+			cardinality = bitCount(words);
+			return this;
+		}
+
+		private static int bitCount(long[] words) {
+			int count = 0;
+			for (long word : words) {
+				count += Long.bitCount(word);
+			}
+			return count;
+		}
+	}
+
+	protected static class RunContainer extends Container {
+		// start and length - 1 of each run
+		char[] runs;
+		int numberOfRuns;
+
+		static RunContainer from(Container container) {
+			RunContainer result = new RunContainer();
+			result.runs = new char[Math.max(2, container.numberOfRuns() * 2)];
+			int value = container.next(0);
+			while (value >= 0) {
+				int start = value;
+				int end = value;
+				while ((value = container.next(end + 1)) == end + 1) {
+					end = value;
+				}
+				result.runs[2 * result.numberOfRuns] = (char) start;
+				result.runs[2 * result.numberOfRuns + 1] = (char) (end - start);
+				result.numberOfRuns++;
+			}
+			return result;
+		}
+
+		@Override
+		Container add(char value) {
+			if (contains(value)) {
+				return this;
+			}
+			return toBitmap().add(value).optimize();
+		}
+
+		@Override
+		Container remove(char value) {
+			if (!contains(value)) {
+				return this;
+			}
+			return toBitmap().remove(value).optimize();
+		}
+
+		@Override
+		boolean contains(char value) {
+			int run = findRun(value);
+			return run >= 0 && value - runs[2 * run] <= runs[2 * run + 1];
+		}
+
+		// Index of the last run starting at or before value, -1 if none
+		private int findRun(int value) {
+			int low = 0;
+			int high = numberOfRuns - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				if (runs[2 * mid] <= value) {
+					low = mid + 1;
+				} else {
+					high = mid - 1;
+				}
+			}
+			return high;
+		}
+
+		@Override
+		int cardinality() {
+			int cardinality = numberOfRuns;
+			for (int i = 0; i < numberOfRuns; i++) {
+				cardinality += runs[2 * i + 1];
+			}
+			return cardinality;
+		}
+
+		@Override
+		int next(int from) {
+			int run = Math.max(0, findRun(from));
+			for (; run < numberOfRuns; run++) {
+				int start = runs[2 * run];
+				int end = start + runs[2 * run + 1];
+				if (from <= end) {
+					return Math.max(from, start);
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		int numberOfRuns() {
+			return numberOfRuns;
+		}
+
+		@Override
+		int sizeInBytes() {
+			return runs.length * Character.BYTES;
+		}
+
+		@Override
+		Container copy() {
+			RunContainer copy = new RunContainer();
+			copy.runs = runs.clone();
+			copy.numberOfRuns = numberOfRuns;
+			return copy;
+		}
+
+		@Override
+		BitmapContainer toBitmap() {
+			BitmapContainer bitmap = new BitmapContainer();
+			for (int i = 0; i < numberOfRuns; i++) {
+				int start = runs[2 * i];
+				int end = start + runs[2 * i + 1];
+				for (int value = start; value <= end; value++) {
+					bitmap.set((char) value);
+				}
+			}
+			return bitmap;
+		}
+	}
+}
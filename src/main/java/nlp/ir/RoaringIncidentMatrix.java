@@ -0,0 +1,78 @@
+package nlp.ir;
+/*
+ * An incidence matrix where every row (word) is a RoaringBitmap of the columns
+ * (documents) it appears in, so memory grows with the number of occurrences
+ * instead of words * documents.
+ * 
+ * This implementation does not check boundaries 
+ */
+public class RoaringIncidentMatrix {
+	protected RoaringBitmap[] incidenceMatrix;
+	protected final int rows;
+	protected final int cols;
+
+	public RoaringIncidentMatrix(final int numWords, final int numSources) {
+		rows = numWords;
+		cols = numSources;
+		incidenceMatrix = new RoaringBitmap[rows];
+		reset();
+	}
+
+	public void set(int row, int col, boolean value) {
+		if (value) {
+			incidenceMatrix[row].add(col);
+		} else {
+			incidenceMatrix[row].remove(col);
+		}
+	}
+
+	public boolean get(int row, int col) {
+		return incidenceMatrix[row].contains(col);
+	}
+
+	// Materializes the row, prefer getRow
+	public boolean[] get(int row) {
+		boolean[] incidentRow = new boolean[cols];
+		PostingsCursor cursor = incidenceMatrix[row].cursor();
+		for (int col = cursor.nextDoc(); col != PostingsCursor.NO_MORE_DOCS; col = cursor.nextDoc()) {
+			incidentRow[col] = true;
+		}
+		return incidentRow;
+	}
+
+	public RoaringBitmap getRow(int row) {
+		return incidenceMatrix[row];
+	}
+
+	public long getCardinality(int row) {
+		return incidenceMatrix[row].getCardinality();
+	}
+
+	public int getNumRows() {
+		return rows;
+	}
+
+	public int getNumCols() {
+		return cols;
+	}
+
+	public void runOptimize() {
+		for (RoaringBitmap row : incidenceMatrix) {
+			row.runOptimize();
+		}
+	}
+
+	public long sizeInBytes() {
+		long bytes = 0;
+		for (RoaringBitmap row : incidenceMatrix) {
+			bytes += row.sizeInBytes();
+		}
+		return bytes;
+	}
+
+	public void reset() {
+		for (int row = 0; row < rows; row++) {
+			incidenceMatrix[row] = new RoaringBitmap();
+		}
+	}
+}
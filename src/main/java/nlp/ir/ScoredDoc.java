@@ -0,0 +1,23 @@
+package nlp.ir;
+
+public class ScoredDoc {
+	protected final int docID;
+	protected final double score;
+
+	public ScoredDoc(int docID, double score) {
+		this.docID = docID;
+		this.score = score;
+	}
+
+	public int getDocID() {
+		return docID;
+	}
+
+	public double getScore() {
+		return score;
+	}
+
+	public String toString() {
+		return "Doc: " + docID + " Score: " + score;
+	}
+}
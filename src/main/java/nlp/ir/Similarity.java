@@ -0,0 +1,17 @@
+package nlp.ir;
+
+/*
+ * Scores how well a document matches a single query term. The score of a
+ * document is the sum of the scores of the query terms it contains.
+ */
+public interface Similarity {
+	// Collection statistics are fixed per term, so they are folded in up front
+	TermScorer scorer(int docFrequency, int totalDocs, double averageDocLength);
+
+	interface TermScorer {
+		double score(int frequency, int docLength);
+
+		// Upper bound of score() for any document, used to skip documents
+		double maxScore(int maxFrequency);
+	}
+}
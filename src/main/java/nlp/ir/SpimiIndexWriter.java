@@ -0,0 +1,145 @@
+package nlp.ir;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Single-pass in-memory indexing (SPIMI) with a memory budget.
+ *
+ * Postings, with the frequency and positions of the term in every document,
+ * are collected in a hash map until their estimated size goes over the
+ * budget, then the terms are sorted and written out as an immutable
+ * MappedIndexSegment and the map starts over. finish() merges all of the
+ * spilled segments into one final segment.
+ *
+ * https://nlp.stanford.edu/IR-book/html/htmledition/single-pass-in-memory-indexing-1.html
+ */
+public class SpimiIndexWriter implements Closeable {
+	// rough heap cost of a new term (String, map entry, postings list), of one posting and of one position
+	private static final long TERM_OVERHEAD_BYTES = 160;
+	private static final long POSTING_BYTES = 8;
+	private static final long POSITION_BYTES = 4;
+
+	protected final Path directory;
+	protected final long memoryBudgetBytes;
+	protected final List<MappedIndexSegment> segments = new ArrayList<>();
+
+	// every doc ID added so far, across flushes
+	private final BitSet addedDocs = new BitSet();
+	private Map<String, IndexSegment.PositionList> postings = new HashMap<>();
+	private int[] docs = new int[16];
+	private int[] docLengths = new int[16];
+	private int docCount = 0;
+	private long usedBytes = 0;
+
+	public SpimiIndexWriter(Path directory, long memoryBudgetBytes) throws IOException {
+		if (memoryBudgetBytes <= 0) {
+			throw new IllegalArgumentException("The memory budget must be positive");
+		}
+		this.directory = Files.createDirectories(directory);
+		this.memoryBudgetBytes = memoryBudgetBytes;
+	}
+
+	// A doc ID that was already added is ignored, like InvertedIndexProcessor does in memory
+	public void addDocument(int docID, List<String> tokens) throws IOException {
+		if (docID < 0) {
+			throw new IllegalArgumentException("Doc IDs must be non-negative");
+		} else if (addedDocs.get(docID)) {
+			return;
+		}
+		addedDocs.set(docID);
+
+		for (int position = 0; position < tokens.size(); position++) {
+			String token = tokens.get(position);
+			IndexSegment.PositionList list = postings.get(token);
+			if (list == null) {
+				list = new IndexSegment.PositionList();
+				postings.put(token, list);
+				usedBytes += TERM_OVERHEAD_BYTES + 2L * token.length();
+			}
+			if (list.add(docID, position)) {
+				usedBytes += POSTING_BYTES;
+			}
+			usedBytes += POSITION_BYTES;
+		}
+
+		if (docCount == docs.length) {
+			docs = Arrays.copyOf(docs, docCount << 1);
+			docLengths = Arrays.copyOf(docLengths, docCount << 1);
+		}
+		docs[docCount] = docID;
+		docLengths[docCount++] = tokens.size();
+		usedBytes += 2 * Integer.BYTES;
+
+		if (usedBytes > memoryBudgetBytes) {
+			flush();
+		}
+	}
+
+	public int totalSegments() {
+		return segments.size();
+	}
+
+	// Writes the in-memory postings to a new segment
+	public void flush() throws IOException {
+		if (docCount == 0) {
+			return;
+		}
+
+		String[] terms = postings.keySet().toArray(new String[0]);
+		Arrays.sort(terms);
+		int[][][] termPostings = new int[terms.length][][];
+		for (int i = 0; i < terms.length; i++) {
+			termPostings[i] = postings.get(terms[i]).toSortedPostings();
+		}
+
+		// doc IDs are non-negative, so the pairs sort by doc ID
+		long[] pairs = new long[docCount];
+		for (int i = 0; i < docCount; i++) {
+			pairs[i] = ((long) docs[i] << 32) | docLengths[i];
+		}
+		Arrays.sort(pairs);
+		int[] segmentDocs = new int[docCount];
+		int[] segmentDocLengths = new int[docCount];
+		for (int i = 0; i < docCount; i++) {
+			segmentDocs[i] = (int) (pairs[i] >> 32);
+			segmentDocLengths[i] = (int) pairs[i];
+		}
+
+		Path path = directory.resolve("segment_" + segments.size() + ".idx");
+		segments.add(MappedIndexSegment.write(terms, termPostings, segmentDocs, segmentDocLengths, path));
+
+		postings = new HashMap<>();
+		docs = new int[16];
+		docLengths = new int[16];
+		docCount = 0;
+		usedBytes = 0;
+	}
+
+	// Flushes what is left and merges every segment into path
+	public MappedIndexSegment finish(Path path) throws IOException {
+		flush();
+		MappedIndexSegment merged = MappedIndexSegment.merge(segments, path);
+		for (MappedIndexSegment segment : segments) {
+			segment.delete();
+		}
+		segments.clear();
+		return merged;
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (MappedIndexSegment segment : segments) {
+			segment.delete();
+		}
+		segments.clear();
+	}
+}
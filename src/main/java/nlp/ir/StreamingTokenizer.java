@@ -0,0 +1,229 @@
+package nlp.ir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Splits UTF-8 text on ASCII delimiter bytes without building a String per
+ * token.
+ *
+ * Every byte of a multi-byte UTF-8 sequence has its high bit set, so an ASCII
+ * delimiter can never be part of one and token boundaries are found on the raw
+ * bytes. Each token is handed to a TokenHandler as a span of the current
+ * buffer, and only decoded when the handler calls toString() on it.
+ *
+ * Files are either read through a FileChannel into one reused buffer, or
+ * memory mapped a window at a time, so memory stays constant however large the
+ * file is (a buffer only grows for a token longer than itself).
+ */
+public class StreamingTokenizer {
+	private static final String DEFAULT_DELIMITERS = " \t\n\r\f";
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+	private static final long DEFAULT_MAP_SIZE = 1L << 28;
+
+	public interface TokenHandler {
+		// The token is only valid during the call
+		void token(Token token);
+	}
+
+	// A span of bytes in the buffer currently being tokenized
+	public static class Token {
+		private ByteBuffer buffer;
+		private int start;
+		private int length;
+		private long offset;
+		private byte[] scratch = new byte[0];
+
+		private void set(ByteBuffer buffer, int start, int length, long offset) {
+			this.buffer = buffer;
+			this.start = start;
+			this.length = length;
+			this.offset = offset;
+		}
+
+		// Byte offset of the token in the input
+		public long getOffset() {
+			return offset;
+		}
+
+		// Length of the token in bytes
+		public int getLength() {
+			return length;
+		}
+
+		public byte byteAt(int index) {
+			return buffer.get(start + index);
+		}
+
+		public void copyTo(byte[] dest, int destOffset) {
+			buffer.get(start, dest, destOffset, length);
+		}
+
+		public boolean contentEquals(byte[] bytes) {
+			if (bytes.length != length) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (buffer.get(start + i) != bytes[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		// Decodes the token, malformed UTF-8 is replaced
+		public String toString() {
+			if (buffer.hasArray()) {
+				return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+			}
+			if (scratch.length < length) {
+				scratch = new byte[Math.max(length, scratch.length << 1)];
+			}
+			copyTo(scratch, 0);
+			return new String(scratch, 0, length, StandardCharsets.UTF_8);
+		}
+	}
+
+	protected final boolean[] isDelimiter = new boolean[256];
+	protected final int bufferSize;
+
+	public StreamingTokenizer() {
+		this(DEFAULT_DELIMITERS);
+	}
+
+	public StreamingTokenizer(String delimiters) {
+		this(delimiters, DEFAULT_BUFFER_SIZE);
+	}
+
+	// Every delimiter must be an ASCII character
+	public StreamingTokenizer(String delimiters, int bufferSize) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("The buffer size must be positive");
+		}
+		for (int i = 0; i < delimiters.length(); i++) {
+			char delimiter = delimiters.charAt(i);
+			if (delimiter >= 128) {
+				throw new IllegalArgumentException("Delimiters must be ASCII: " + delimiter);
+			}
+			isDelimiter[delimiter] = true;
+		}
+		this.bufferSize = bufferSize;
+	}
+
+	// Reads the channel from its current position to the end, returns the number of tokens
+	public long tokenize(FileChannel channel, TokenHandler handler) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+		Token token = new Token();
+		long tokens = 0;
+		// input offset of buffer position 0
+		long bufferOffset = channel.position();
+
+		while (true) {
+			int read = channel.read(buffer);
+			boolean endOfInput = read < 0;
+			int limit = buffer.position();
+			int tokenStart = -1;
+			byte[] bytes = buffer.array();
+
+			for (int i = 0; i < limit; i++) {
+				if (isDelimiter[bytes[i] & 0xFF]) {
+					if (tokenStart >= 0) {
+						token.set(buffer, tokenStart, i - tokenStart, bufferOffset + tokenStart);
+						handler.token(token);
+						tokens++;
+						tokenStart = -1;
+					}
+				} else if (tokenStart < 0) {
+					tokenStart = i;
+				}
+			}
+
+			if (endOfInput) {
+				if (tokenStart >= 0) {
+					token.set(buffer, tokenStart, limit - tokenStart, bufferOffset + tokenStart);
+					handler.token(token);
+					tokens++;
+				}
+				return tokens;
+			}
+
+			// keep the unfinished token at the front of the buffer
+			int keep = tokenStart < 0 ? limit : tokenStart;
+			if (keep == 0 && limit == buffer.capacity()) {
+				// one token fills the whole buffer
+				ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() << 1);
+				buffer.flip();
+				larger.put(buffer);
+				buffer = larger;
+			} else {
+				buffer.limit(limit).position(keep);
+				buffer.compact();
+				bufferOffset += keep;
+			}
+		}
+	}
+
+	public long tokenize(Path path, TokenHandler handler) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return tokenize(channel, handler);
+		}
+	}
+
+	public long tokenizeMapped(Path path, TokenHandler handler) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return tokenizeMapped(channel, handler, DEFAULT_MAP_SIZE);
+		}
+	}
+
+	// Maps the file mapSize bytes at a time, a window starts at the token the last one cut off
+	public long tokenizeMapped(FileChannel channel, TokenHandler handler, long mapSize) throws IOException {
+		Token token = new Token();
+		long tokens = 0;
+		long fileSize = channel.size();
+		long windowStart = 0;
+		long windowSize = Math.min(mapSize, Integer.MAX_VALUE);
+
+		while (windowStart < fileSize) {
+			int limit = (int) Math.min(windowSize, fileSize - windowStart);
+			boolean lastWindow = windowStart + limit == fileSize;
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, limit);
+			int tokenStart = -1;
+
+			for (int i = 0; i < limit; i++) {
+				if (isDelimiter[buffer.get(i) & 0xFF]) {
+					if (tokenStart >= 0) {
+						token.set(buffer, tokenStart, i - tokenStart, windowStart + tokenStart);
+						handler.token(token);
+						tokens++;
+						tokenStart = -1;
+					}
+				} else if (tokenStart < 0) {
+					tokenStart = i;
+				}
+			}
+
+			if (tokenStart < 0) {
+				windowStart += limit;
+			} else if (lastWindow) {
+				token.set(buffer, tokenStart, limit - tokenStart, windowStart + tokenStart);
+				handler.token(token);
+				tokens++;
+				windowStart += limit;
+			} else if (tokenStart == 0) {
+				// one token fills the whole window
+				if (windowSize == Integer.MAX_VALUE) {
+					throw new IOException("Token at " + windowStart + " is longer than a mapping allows");
+				}
+				windowSize = Math.min(windowSize << 1, Integer.MAX_VALUE);
+			} else {
+				windowStart += tokenStart;
+			}
+		}
+		return tokens;
+	}
+}
@@ -2,10 +2,17 @@ package nlp.ir;
 public class Term {
 	public String term;
 	public int docID;
+	public int position;
 
 	public Term(String term, int docID) {
+		this(term, docID, -1);
+	}
+
+	// position is the index of the term within its document
+	public Term(String term, int docID, int position) {
 		this.term = term;
 		this.docID = docID;
+		this.position = position;
 	}
 
 	public String getTerm() {
@@ -15,8 +22,12 @@ public class Term {
 	public int getDocID() {
 		return docID;
 	}
+
+	public int getPosition() {
+		return position;
+	}
 	
 	public String toString() {
-		return "Term: " + term + " docID: " + docID; 
+		return "Term: " + term + " docID: " + docID + (position < 0 ? "" : " position: " + position);
 	}
 }
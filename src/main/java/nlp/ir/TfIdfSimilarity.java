@@ -0,0 +1,26 @@
+package nlp.ir;
+
+/*
+ * Log-scaled term frequency times inverse document frequency.
+ *
+ * idf = ln(1 + N / df)
+ * score = (1 + ln f) * idf
+ */
+public class TfIdfSimilarity implements Similarity {
+	@Override
+	public TermScorer scorer(int docFrequency, int totalDocs, double averageDocLength) {
+		double idf = Math.log(1 + (double) totalDocs / Math.max(1, docFrequency));
+
+		return new TermScorer() {
+			@Override
+			public double score(int frequency, int docLength) {
+				return (1 + Math.log(frequency)) * idf;
+			}
+
+			@Override
+			public double maxScore(int maxFrequency) {
+				return score(Math.max(1, maxFrequency), 0);
+			}
+		};
+	}
+}
@@ -3,6 +3,13 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
@@ -10,6 +17,7 @@ import java.util.List;
 public class Tokenizer {
 	private static final String DEFAULT_DELIMITER = " ";
 	private static final String NEWLINE_DELIMITER = "\n";
+	private static final int FILE_BUFFER_SIZE = 1 << 16;
 
 	protected String delimiter;
 
@@ -36,6 +44,14 @@ public class Tokenizer {
 	}
 
 	protected List<String> tokenizeFile(String filename) throws IOException {
+		if (isSingleAsciiDelimiter() && isAsciiCompatible(Charset.defaultCharset())) {
+			return tokenizeFileBytes(filename);
+		}
+		return tokenizeFileLines(filename);
+	}
+
+	// Splits every line with the delimiter as a regex
+	protected List<String> tokenizeFileLines(String filename) throws IOException {
 		File file = new File(filename);
 		BufferedReader br = new BufferedReader(new FileReader(file));
 		List<String> words = new LinkedList<>();
@@ -47,4 +63,88 @@ public class Tokenizer {
 		br.close();
 		return words;
 	}
+
+	/*
+	 * The same tokens as tokenizeFileLines, found on the bytes without a String
+	 * per line or a regex. Lines end at \n, \r or \r\n like readLine(), and
+	 * like String.split an empty line is one empty token and the empty tokens
+	 * at the end of a line are dropped.
+	 */
+	protected List<String> tokenizeFileBytes(String filename) throws IOException {
+		Charset charset = Charset.defaultCharset();
+		byte delimiterByte = (byte) delimiter.charAt(0);
+		List<String> words = new ArrayList<>();
+		ByteBuffer buffer = ByteBuffer.allocate(FILE_BUFFER_SIZE);
+		byte[] bytes = buffer.array();
+		byte[] token = new byte[64];
+		int tokenLength = 0;
+		// empty tokens on the line so far, only kept if a non-empty one follows
+		int emptyTokens = 0;
+		boolean emptyLine = true;
+		boolean afterReturn = false;
+
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+			int read;
+			while ((read = channel.read(buffer)) >= 0) {
+				for (int i = 0; i < read; i++) {
+					byte b = bytes[i];
+					if (b == '\n' && afterReturn) {
+						afterReturn = false;
+						continue;
+					}
+					afterReturn = b == '\r';
+
+					if (b == '\n' || b == '\r') {
+						if (emptyLine) {
+							words.add("");
+						} else if (tokenLength > 0) {
+							addToken(words, emptyTokens, token, tokenLength, charset);
+						}
+						tokenLength = 0;
+						emptyTokens = 0;
+						emptyLine = true;
+					} else if (b == delimiterByte) {
+						emptyLine = false;
+						if (tokenLength > 0) {
+							addToken(words, emptyTokens, token, tokenLength, charset);
+							tokenLength = 0;
+							emptyTokens = 0;
+						} else {
+							emptyTokens++;
+						}
+					} else {
+						emptyLine = false;
+						if (tokenLength == token.length) {
+							token = Arrays.copyOf(token, tokenLength << 1);
+						}
+						token[tokenLength++] = b;
+					}
+				}
+				buffer.clear();
+			}
+		}
+		// readLine() does not return an empty line after the last line break
+		if (tokenLength > 0) {
+			addToken(words, emptyTokens, token, tokenLength, charset);
+		}
+		return words;
+	}
+
+	private static void addToken(List<String> words, int emptyTokens, byte[] token, int length, Charset charset) {
+		for (int i = 0; i < emptyTokens; i++) {
+			words.add("");
+		}
+		words.add(new String(token, 0, length, charset));
+	}
+
+	// a single ASCII character that is not special in a regex can be split on as a byte
+	private boolean isSingleAsciiDelimiter() {
+		return delimiter.length() == 1 && delimiter.charAt(0) < 128 && ".$|()[{^?*+\\".indexOf(delimiter.charAt(0)) < 0;
+	}
+
+	// ASCII bytes are always whole characters in these, so tokens can be decoded on their own
+	private static boolean isAsciiCompatible(Charset charset) {
+		return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+				|| charset.equals(StandardCharsets.ISO_8859_1);
+	}
 }
@@ -0,0 +1,156 @@
+package nlp.ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/*
+ * Returns the k best scoring documents for a bag of words query using MaxScore
+ * dynamic pruning.
+ *
+ * The query terms are ordered by their maximum possible score. Once the heap
+ * holds k documents its smallest score is the threshold a new document has to
+ * beat, and the lowest scoring terms whose maximum scores together do not beat
+ * it are "non-essential": a document that only contains those terms can never
+ * make it into the results. Candidates are therefore only taken from the
+ * essential terms, and the non-essential terms are only advanced to a
+ * candidate while its score can still beat the threshold. As the threshold
+ * rises more terms become non-essential and more postings are skipped.
+ */
+public class TopKSearcher {
+	// worst result first, on a tie the later document is worse
+	protected static final Comparator<ScoredDoc> WORST_FIRST = (o1, o2) -> {
+		int comp = Double.compare(o1.score, o2.score);
+		return comp != 0 ? comp : Integer.compare(o2.docID, o1.docID);
+	};
+
+	protected final RankingSource index;
+	protected final Similarity similarity;
+
+	public TopKSearcher(RankingSource index) {
+		this(index, new BM25Similarity());
+	}
+
+	public TopKSearcher(RankingSource index, Similarity similarity) {
+		this.index = index;
+		this.similarity = similarity;
+	}
+
+	// Terms are separated by spaces, repeated terms are only scored once
+	public List<ScoredDoc> search(String query, int k) {
+		Set<String> terms = new LinkedHashSet<>();
+		for (String term : query.split(" ")) {
+			if (!term.isEmpty()) {
+				terms.add(term);
+			}
+		}
+		return search(terms, k);
+	}
+
+	// Best scoring documents first, ties broken by the lower doc ID
+	public List<ScoredDoc> search(Set<String> terms, int k) {
+		if (k <= 0) {
+			throw new IllegalArgumentException("k must be positive");
+		}
+
+		List<TermClause> clauses = new ArrayList<>(terms.size());
+		int totalDocs = index.totalDocIDs();
+		double averageDocLength = index.getAverageDocLength();
+		for (String term : terms) {
+			int docFrequency = index.getDocFrequency(term);
+			if (docFrequency > 0) {
+				Similarity.TermScorer scorer = similarity.scorer(docFrequency, totalDocs, averageDocLength);
+				clauses.add(new TermClause(index.getPostingsCursor(term), scorer,
+						scorer.maxScore(index.getMaxFrequency(term))));
+			}
+		}
+		clauses.sort(Comparator.comparingDouble(clause -> clause.maxScore));
+		return maxScore(clauses.toArray(new TermClause[0]), k);
+	}
+
+	protected List<ScoredDoc> maxScore(TermClause[] clauses, int k) {
+		int n = clauses.length;
+		// maxScoreSums[i] is the most that clauses 0..i can add together
+		double[] maxScoreSums = new double[n];
+		double sum = 0;
+		for (int i = 0; i < n; i++) {
+			sum += clauses[i].maxScore;
+			maxScoreSums[i] = sum;
+			clauses[i].cursor.nextDoc();
+		}
+
+		PriorityQueue<ScoredDoc> heap = new PriorityQueue<>(k + 1, WORST_FIRST);
+		double threshold = Double.NEGATIVE_INFINITY;
+		// clauses before firstEssential cannot produce a result on their own
+		int firstEssential = 0;
+
+		while (firstEssential < n) {
+			int doc = PostingsCursor.NO_MORE_DOCS;
+			for (int i = firstEssential; i < n; i++) {
+				doc = Math.min(doc, clauses[i].cursor.docID());
+			}
+			if (doc == PostingsCursor.NO_MORE_DOCS) {
+				break;
+			}
+
+			int docLength = index.getDocLength(doc);
+			double score = 0;
+			for (int i = firstEssential; i < n; i++) {
+				PostingsCursor cursor = clauses[i].cursor;
+				if (cursor.docID() == doc) {
+					score += clauses[i].scorer.score(cursor.freq(), docLength);
+					cursor.nextDoc();
+				}
+			}
+
+			boolean competitive = true;
+			for (int i = firstEssential - 1; i >= 0; i--) {
+				if (score + maxScoreSums[i] <= threshold) {
+					competitive = false;
+					break;
+				}
+
+				PostingsCursor cursor = clauses[i].cursor;
+				if (cursor.docID() < doc) {
+					cursor.advance(doc);
+				}
+				if (cursor.docID() == doc) {
+					score += clauses[i].scorer.score(cursor.freq(), docLength);
+				}
+			}
+
+			if (competitive && score > threshold) {
+				heap.add(new ScoredDoc(doc, score));
+				if (heap.size() > k) {
+					heap.poll();
+				}
+				if (heap.size() == k) {
+					threshold = heap.peek().score;
+					while (firstEssential < n && maxScoreSums[firstEssential] <= threshold) {
+						firstEssential++;
+					}
+				}
+			}
+		}
+
+		ScoredDoc[] results = heap.toArray(new ScoredDoc[0]);
+		Arrays.sort(results, WORST_FIRST.reversed());
+		return Arrays.asList(results);
+	}
+
+	protected static class TermClause {
+		protected final PostingsCursor cursor;
+		protected final Similarity.TermScorer scorer;
+		protected final double maxScore;
+
+		TermClause(PostingsCursor cursor, Similarity.TermScorer scorer, double maxScore) {
+			this.cursor = cursor;
+			this.scorer = scorer;
+			this.maxScore = maxScore;
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package nlp.ir;
+
+import java.io.ByteArrayOutputStream;
+
+/*
+ * Variable byte encoding: 7 bits of the value per byte, least significant group
+ * first, with the high bit set on the last byte of each value.
+ *
+ * https://nlp.stanford.edu/IR-book/html/htmledition/variable-byte-codes-1.html
+ */
+public class VariableByteCodec implements PostingsCodec {
+	private static final int PAYLOAD_MASK = 0x7F;
+	private static final int STOP_BIT = 0x80;
+
+	@Override
+	public void encode(int[] values, int count, ByteArrayOutputStream out) {
+		for (int i = 0; i < count; i++) {
+			write(values[i], out);
+		}
+	}
+
+	@Override
+	public int decode(byte[] in, int offset, int[] values, int count) {
+		for (int i = 0; i < count; i++) {
+			int value = 0;
+			int shift = 0;
+			int b;
+			while (((b = in[offset++]) & STOP_BIT) == 0) {
+				value |= b << shift;
+				shift += 7;
+			}
+			values[i] = value | ((b & PAYLOAD_MASK) << shift);
+		}
+		return offset;
+	}
+
+	protected static void write(int value, ByteArrayOutputStream out) {
+		while ((value & ~PAYLOAD_MASK) != 0) {
+			out.write(value & PAYLOAD_MASK);
+			value >>>= 7;
+		}
+		out.write(value | STOP_BIT);
+	}
+
+	protected static int size(int value) {
+		int bytes = 1;
+		while ((value & ~PAYLOAD_MASK) != 0) {
+			value >>>= 7;
+			bytes++;
+		}
+		return bytes;
+	}
+}
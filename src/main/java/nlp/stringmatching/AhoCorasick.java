@@ -0,0 +1,406 @@
+package nlp.stringmatching;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Aho-Corasick, finds every occurrence of many patterns in one pass
+ *
+ * The patterns are compiled into a trie with failure links: when the next
+ * character has no edge, the search falls back to the state of the longest
+ * proper suffix that is also a prefix of some pattern. Every character moves
+ * forward once and falls back at most as often as it moved forward, so a pass
+ * is O(n + matches) however many patterns there are.
+ *
+ * The trie is stored as a double array. Characters are first mapped to dense
+ * classes (0 for characters that are in no pattern), and the child of state s
+ * for class c is base[s] + c, which belongs to s if check[base[s] + c] == s.
+ * A transition is two array reads, without a map per state or a full table
+ * of states * alphabet.
+ *
+ * https://cr.yp.to/bib/1975/aho.pdf
+ * https://linux.thai.net/~thep/datrie/datrie.html
+ */
+public class AhoCorasick extends Matcher {
+	private static final int ROOT = 0;
+	private static final int NONE = -1;
+
+	public interface MatchHandler {
+		// offset is where the match starts in the text
+		void match(int patternId, int offset);
+	}
+
+	public static class Match {
+		protected final int patternId;
+		protected final int offset;
+
+		public Match(int patternId, int offset) {
+			this.patternId = patternId;
+			this.offset = offset;
+		}
+
+		public int getPatternId() {
+			return patternId;
+		}
+
+		public int getOffset() {
+			return offset;
+		}
+
+		public String toString() {
+			return "(" + patternId + ", " + offset + ")";
+		}
+	}
+
+	public static class Automaton {
+		protected final char[] charClasses;
+		protected final int[] base;
+		protected final int[] check;
+		protected final int[] fail;
+		// nearest state on the failure chain that ends a pattern
+		protected final int[] outputLink;
+		// first pattern ending at a state, further equal patterns are chained
+		protected final int[] statePattern;
+		protected final int[] nextEqualPattern;
+		protected final int[] patternLengths;
+
+		protected Automaton(char[] charClasses, int[] base, int[] check, int[] fail, int[] outputLink,
+				int[] statePattern, int[] nextEqualPattern, int[] patternLengths) {
+			this.charClasses = charClasses;
+			this.base = base;
+			this.check = check;
+			this.fail = fail;
+			this.outputLink = outputLink;
+			this.statePattern = statePattern;
+			this.nextEqualPattern = nextEqualPattern;
+			this.patternLengths = patternLengths;
+		}
+
+		public int patternCount() {
+			return patternLengths.length;
+		}
+
+		public int stateCount() {
+			return base.length;
+		}
+
+		public void search(CharSequence text, MatchHandler handler) {
+			int state = ROOT;
+			for (int i = 0; i < text.length(); i++) {
+				state = next(state, charClasses[text.charAt(i)]);
+				for (int output = statePattern[state] != NONE ? state : outputLink[state]; output != NONE; output = outputLink[output]) {
+					for (int id = statePattern[output]; id != NONE; id = nextEqualPattern[id]) {
+						handler.match(id, i - patternLengths[id] + 1);
+					}
+				}
+			}
+		}
+
+		// Matches ordered by where they end, longest first for the same end
+		public List<Match> matches(CharSequence text) {
+			List<Match> matches = new ArrayList<>();
+			search(text, (patternId, offset) -> matches.add(new Match(patternId, offset)));
+			return matches;
+		}
+
+		public boolean containsAny(CharSequence text) {
+			int state = ROOT;
+			for (int i = 0; i < text.length(); i++) {
+				state = next(state, charClasses[text.charAt(i)]);
+				if (statePattern[state] != NONE || outputLink[state] != NONE) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private int next(int state, int charClass) {
+			if (charClass == 0) {
+				return ROOT;
+			}
+
+			while (true) {
+				int child = base[state] + charClass;
+				if (child < check.length && check[child] == state) {
+					return child;
+				} else if (state == ROOT) {
+					return ROOT;
+				}
+				state = fail[state];
+			}
+		}
+	}
+
+	public static Automaton compile(String... patterns) {
+		return compile(Arrays.asList(patterns));
+	}
+
+	// A pattern's id is its index in the list
+	public static Automaton compile(List<String> patterns) {
+		return new Builder(patterns).build();
+	}
+
+	@Override
+	public List<Integer> matches(String text, String pattern) {
+		List<Integer> indices = new ArrayList<>();
+		compile(Collections.singletonList(pattern)).search(text, (patternId, offset) -> indices.add(offset));
+		return indices;
+	}
+
+	@Override
+	public boolean contains(String text, String pattern) {
+		return compile(Collections.singletonList(pattern)).containsAny(text);
+	}
+
+	private static class Builder {
+		private final List<String> patterns;
+		private final char[] charClasses = new char[Character.MAX_VALUE + 1];
+
+		// the trie before it is packed, children are linked lists sorted by class
+		private int[] firstChild = new int[16];
+		private int[] nextSibling = new int[16];
+		private int[] label = new int[16];
+		private int[] trieStatePattern = new int[16];
+		private int trieSize = 0;
+
+		private int[] base = new int[64];
+		private int[] check = new int[64];
+		private int[] statePattern = new int[64];
+		// states in the order they were packed, which is breadth first
+		private int[] packOrder = new int[16];
+		// doubly linked list of the slots no state uses yet
+		private int[] nextFree = new int[0];
+		private int[] previousFree = new int[0];
+		private int freeHead = NONE;
+		private int freeTail = NONE;
+
+		Builder(List<String> patterns) {
+			this.patterns = patterns;
+		}
+
+		Automaton build() {
+			int[] patternLengths = new int[patterns.size()];
+			int[] nextEqualPattern = new int[patterns.size()];
+			int classes = assignClasses();
+
+			newTrieNode(0);
+			for (int id = patterns.size() - 1; id >= 0; id--) {
+				String pattern = patterns.get(id);
+				if (pattern.isEmpty()) {
+					throw new IllegalArgumentException("Patterns must not be empty");
+				}
+				int node = ROOT;
+				for (int i = 0; i < pattern.length(); i++) {
+					node = trieChild(node, charClasses[pattern.charAt(i)]);
+				}
+				// added in reverse, so equal patterns end up chained by increasing id
+				nextEqualPattern[id] = trieStatePattern[node];
+				trieStatePattern[node] = id;
+				patternLengths[id] = pattern.length();
+			}
+
+			int size = pack(classes);
+			int[] fail = new int[size];
+			int[] outputLink = new int[size];
+			linkFailures(size, fail, outputLink);
+			return new Automaton(charClasses, Arrays.copyOf(base, size), Arrays.copyOf(check, size), fail,
+					outputLink, Arrays.copyOf(statePattern, size), nextEqualPattern, patternLengths);
+		}
+
+		// Numbers the distinct pattern characters from 1, the rest stay 0
+		private int assignClasses() {
+			int classes = 0;
+			for (String pattern : patterns) {
+				for (int i = 0; i < pattern.length(); i++) {
+					char ch = pattern.charAt(i);
+					if (charClasses[ch] == 0) {
+						if (classes == Character.MAX_VALUE) {
+							throw new IllegalArgumentException("Too many distinct characters");
+						}
+						charClasses[ch] = (char) ++classes;
+					}
+				}
+			}
+			return classes;
+		}
+
+		private int newTrieNode(int nodeLabel) {
+			if (trieSize == firstChild.length) {
+				int capacity = trieSize << 1;
+				firstChild = Arrays.copyOf(firstChild, capacity);
+				nextSibling = Arrays.copyOf(nextSibling, capacity);
+				label = Arrays.copyOf(label, capacity);
+				trieStatePattern = Arrays.copyOf(trieStatePattern, capacity);
+			}
+			firstChild[trieSize] = NONE;
+			nextSibling[trieSize] = NONE;
+			label[trieSize] = nodeLabel;
+			trieStatePattern[trieSize] = NONE;
+			return trieSize++;
+		}
+
+		private int trieChild(int node, int charClass) {
+			int previous = NONE;
+			int child = firstChild[node];
+			while (child != NONE && label[child] < charClass) {
+				previous = child;
+				child = nextSibling[child];
+			}
+			if (child != NONE && label[child] == charClass) {
+				return child;
+			}
+
+			int created = newTrieNode(charClass);
+			nextSibling[created] = child;
+			if (previous == NONE) {
+				firstChild[node] = created;
+			} else {
+				nextSibling[previous] = created;
+			}
+			return created;
+		}
+
+		// Moves the trie into base/check breadth first, returns the size of the arrays
+		private int pack(int classes) {
+			Arrays.fill(check, NONE);
+			Arrays.fill(statePattern, NONE);
+			check[ROOT] = ROOT;
+			linkFreeSlots(1, check.length);
+			int size = 1;
+			int packed = 0;
+			packOrder = new int[trieSize];
+
+			ArrayDeque<int[]> queue = new ArrayDeque<>(); // {trie node, state}
+			queue.add(new int[] { ROOT, ROOT });
+			int[] labels = new int[Math.max(1, classes)];
+			int[] children = new int[labels.length];
+			while (!queue.isEmpty()) {
+				int[] entry = queue.poll();
+				int node = entry[0];
+				int state = entry[1];
+				statePattern[state] = trieStatePattern[node];
+				packOrder[packed++] = state;
+
+				int count = 0;
+				for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+					labels[count] = label[child];
+					children[count++] = child;
+				}
+				if (count == 0) {
+					continue;
+				}
+
+				int stateBase = findBase(labels, count);
+				base[state] = stateBase;
+				for (int i = 0; i < count; i++) {
+					int childState = stateBase + labels[i];
+					check[childState] = state;
+					unlinkFreeSlot(childState);
+					size = Math.max(size, childState + 1);
+					queue.add(new int[] { children[i], childState });
+				}
+			}
+			return size;
+		}
+
+		// Tries to put the first child on every free slot in turn
+		private int findBase(int[] labels, int count) {
+			int slot = freeHead;
+			while (true) {
+				if (slot == NONE) {
+					slot = check.length;
+					ensureCapacity(slot + 1);
+				}
+
+				int candidate = slot - labels[0];
+				if (candidate >= 1) {
+					ensureCapacity(candidate + labels[count - 1] + 1);
+					boolean fits = true;
+					for (int i = 1; i < count && fits; i++) {
+						fits = check[candidate + labels[i]] == NONE;
+					}
+					if (fits) {
+						return candidate;
+					}
+				}
+				slot = nextFree[slot];
+			}
+		}
+
+		private void ensureCapacity(int capacity) {
+			if (capacity > check.length) {
+				int oldLength = check.length;
+				int newLength = Math.max(capacity, oldLength << 1);
+				base = Arrays.copyOf(base, newLength);
+				check = Arrays.copyOf(check, newLength);
+				statePattern = Arrays.copyOf(statePattern, newLength);
+				Arrays.fill(check, oldLength, newLength, NONE);
+				Arrays.fill(statePattern, oldLength, newLength, NONE);
+				linkFreeSlots(oldLength, newLength);
+			}
+		}
+
+		// Appends the slots in [from, to) to the end of the free list
+		private void linkFreeSlots(int from, int to) {
+			if (nextFree.length < to) {
+				nextFree = Arrays.copyOf(nextFree, to);
+				previousFree = Arrays.copyOf(previousFree, to);
+			}
+			for (int slot = from; slot < to; slot++) {
+				previousFree[slot] = freeTail;
+				nextFree[slot] = NONE;
+				if (freeTail == NONE) {
+					freeHead = slot;
+				} else {
+					nextFree[freeTail] = slot;
+				}
+				freeTail = slot;
+			}
+		}
+
+		private void unlinkFreeSlot(int slot) {
+			int previous = previousFree[slot];
+			int next = nextFree[slot];
+			if (previous == NONE) {
+				freeHead = next;
+			} else {
+				nextFree[previous] = next;
+			}
+			if (next == NONE) {
+				freeTail = previous;
+			} else {
+				previousFree[next] = previous;
+			}
+		}
+
+		// Failure and output links, breadth first so a state's fallback is always done first
+		private void linkFailures(int size, int[] fail, int[] outputLink) {
+			fail[ROOT] = ROOT;
+			outputLink[ROOT] = NONE;
+			for (int i = 1; i < trieSize; i++) {
+				int state = packOrder[i];
+				int parent = check[state];
+				int charClass = state - base[parent];
+
+				int fallback = ROOT;
+				if (parent != ROOT) {
+					int candidate = fail[parent];
+					while (true) {
+						int next = base[candidate] + charClass;
+						if (next < size && check[next] == candidate) {
+							fallback = next;
+							break;
+						} else if (candidate == ROOT) {
+							break;
+						}
+						candidate = fail[candidate];
+					}
+				}
+				fail[state] = fallback;
+				outputLink[state] = statePattern[fallback] != NONE ? fallback : outputLink[fallback];
+			}
+		}
+	}
+}
@@ -1,159 +1,94 @@
 package nlp.stringmatching;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.function.IntConsumer;
 
 /*
  * Constructs a DFA to walk through the String
  * 
+ * State q means the last q characters of the text are the first q of the
+ * pattern. The transitions are one flat table, delta[q * classes + class],
+ * with characters mapped to the classes of the pattern (see CharClasses), so a
+ * step is a single array read.
+ *
  * https://www.cs.auckland.ac.nz/courses/compsci369s1c/lectures/GG-notes/CS369-StringAlgs.pdf
  */
-public class AutomatonBasedSearch extends Matcher {	
-	protected static class State {
-		protected String name; 
-		protected boolean isFinal;
-		protected Map<Character, State> edges;
-		
-		public State(String name, boolean isFinal) {
-			this.name = name;
-			this.isFinal = isFinal;
-			edges = new HashMap<>();
-		}
-		
-		public void addEdge(char transitionCh, State destination) {
-			edges.put(transitionCh, destination);
-		}
-				
-		public State transition(char transition) {
-			return edges.get(transition);
-		}
-		
-		public static State getEmptyState() {
-			return new State("", false);
-		}
-		
-		public String toString() {
-			return name + " is final: " + isFinal;
-		}
-		
-	}
+public class AutomatonBasedSearch extends Matcher {
+	public static class DFA implements CompiledPattern {
+		protected final int length;
+		protected final CharClasses charClasses;
+		protected final int classes;
+		protected final int[] delta;
 
-	protected static class DFA {
 		/*
-		 * Ordered states with names from:
-		 * ""
-		 * n1
-		 * n1n2
-		 * n1n2n3
-		 * ...
+		 * Built in O(m * classes) by keeping the state x the automaton would be in
+		 * after reading the pattern without its first character: state q copies the
+		 * row of x, except on the pattern's next character which moves forward.
 		 */
-		private List<State> states;
-		private State current;
-		
-		public DFA(String pattern) {
-			buildDFA(pattern);
-		}
-		
-		private void buildDFA(String pattern) {
-			states = new ArrayList<>(pattern.length() + 1); //Account for Empty State
-			states.add(State.getEmptyState()); 
-			
-			Set<Character> alphabet = new HashSet<>();
-			StringBuilder sb = new StringBuilder(pattern.length());
-			
-			//Create the alphabet and states
-			for (int i = 0; i < pattern.length(); i++) {
-				char curr = pattern.charAt(i);
-				alphabet.add(curr);
-				sb.append(curr);
-				states.add(new State(sb.toString(), false));	
+		protected DFA(String pattern) {
+			if (pattern.isEmpty()) {
+				throw new IllegalArgumentException("The pattern must not be empty");
 			}
-			sb = null; 
-			states.get(states.size()-1).isFinal = true; //Make last state as final
-			current = getEmptyState(); //initialize current
-			
-			//set up edges now
-			for (State state : states) {
-				for (char letter : alphabet) {
-					String nextName = state.name + letter;
-					State transitionState = contains(nextName);
-					if (transitionState != null) {
-						state.addEdge(letter, transitionState);
-					} else { //find longest suffix which is prefix 
-						State bestDestination = getEmptyState();
-						State curr;
-						String suffix = "";
-						for (int i = nextName.length()-1; i > 0; i--) {
-							suffix = nextName.charAt(i) + suffix;
-							curr = contains(suffix);
-							if (curr != null) {
-								bestDestination = curr;
-							}
-						}
-						state.addEdge(letter, bestDestination);
-					}
+			length = pattern.length();
+			charClasses = new CharClasses(pattern);
+			classes = charClasses.size();
+			delta = new int[(length + 1) * classes];
+
+			delta[charClasses.classOf(pattern.charAt(0))] = 1;
+			int x = 0;
+			for (int q = 1; q <= length; q++) {
+				System.arraycopy(delta, x * classes, delta, q * classes, classes);
+				if (q < length) {
+					int charClass = charClasses.classOf(pattern.charAt(q));
+					delta[q * classes + charClass] = q + 1;
+					x = delta[x * classes + charClass];
 				}
 			}
-			
-			
-		}
-		
-		//The list should be in order from shortest to longest length
-		private State contains(String name) {
-			if (name.length() >= states.size()) { 
-				return null; 
-			}
-			
-			State state = states.get(name.length());	
-			return state.name.equals(name) ? state : null;
 		}
-		
-		private State getEmptyState() {
-			return states.get(0);
+
+		@Override
+		public int length() {
+			return length;
 		}
-		
-		public void transition(char ch) { 
-			current = current.transition(ch);
-			if (current == null) { //encountered a character not in the alphabet, go reset
-				current = getEmptyState();
+
+		@Override
+		public int indexOf(CharSequence text, int from) {
+			int state = 0;
+			for (int i = Math.max(0, from); i < text.length(); i++) {
+				state = delta[state * classes + charClasses.classOf(text.charAt(i))];
+				if (state == length) {
+					return i - length + 1;
+				}
 			}
+			return -1;
 		}
-			
-		public boolean isMatching() {
-			return current.isFinal;
+
+		@Override
+		public void search(CharSequence text, int from, IntConsumer sink) {
+			int state = 0;
+			for (int i = Math.max(0, from); i < text.length(); i++) {
+				state = delta[state * classes + charClasses.classOf(text.charAt(i))];
+				if (state == length) {
+					sink.accept(i - length + 1);
+				}
+			}
 		}
 	}
 
+	public static DFA compile(String pattern) {
+		return new DFA(pattern);
+	}
+
 	@Override
 	public List<Integer> matches(String text, String pattern) {
-		DFA dfa = new DFA(pattern);
-		List<Integer> indices = new LinkedList<>();
-		for (int i= 0; i < text.length(); i++) {
-			char ch = text.charAt(i);
-			dfa.transition(ch);
-			if (dfa.isMatching()) {
-				indices.add(i - pattern.length() + 1);
-			}
-		}
+		List<Integer> indices = new ArrayList<>();
+		compile(pattern).search(text, indices::add);
 		return indices;
 	}
 
-
 	@Override
 	public boolean contains(String text, String pattern) {
-		DFA dfa = new DFA(pattern);
-		for (int i= 0; i < text.length(); i++) {
-			char ch = text.charAt(i);
-			dfa.transition(ch);
-			if (dfa.isMatching()) {
-				return true;
-			}
-		}
-		return false;
+		return compile(pattern).contains(text);
 	}
 }
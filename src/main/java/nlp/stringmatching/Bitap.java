@@ -1,62 +1,214 @@
 package nlp.stringmatching;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
 
 /*
  * Bitap / Baeza-Yates-Gonnet / Shift-AND matching Algorithm
- * 
+ *
  * https://en.wikipedia.org/wiki/Bitap_algorithm
+ *
+ * A pattern is compiled once into one mask per distinct pattern character,
+ * bit j set where the pattern has that character at j. Characters are mapped
+ * to dense classes first (ASCII through a small table, anything else by binary
+ * search), so the table is (distinct characters + 1) masks instead of one per
+ * possible char. Characters outside the pattern share the empty mask.
+ *
+ * Bit j of the state is set while the last j + 1 characters of the text match
+ * the start of the pattern. Patterns up to 64 characters keep the state in a
+ * long, longer ones in several longs that carry their top bit into the next.
+ *
+ * Approximate matching (Wu-Manber) keeps one state per number of errors d,
+ * where R[d] also takes a substitution, insertion or deletion from R[d - 1]:
+ * R'[d] = ((R[d] << 1 | 1) & mask) | R[d - 1] | (R[d - 1] | R'[d - 1]) << 1 | 1
+ *
+ * https://dl.acm.org/doi/10.1145/135239.135244
  */
 public class Bitap extends Matcher {
+	public static class Pattern implements CompiledPattern {
+		protected final int length;
+		// longs per state
+		protected final int words;
+		protected final CharClasses charClasses;
+		// masks[class * words + word], class 0 matches nothing
+		protected final long[] masks;
+		protected final long lastBit;
 
-	@Override
-	public List<Integer> matches(String text, String pattern) {
-		List<Integer> indices = new LinkedList<>();
-		int m = pattern.length();
-		byte pattern_mask[] = new byte[Character.MAX_VALUE + 1];
-		byte R = ~1;
-		
-		for (int i = 0; i <= Character.MAX_VALUE; i++) {
-			pattern_mask[i] = ~0;
+		protected Pattern(String pattern) {
+			if (pattern.isEmpty()) {
+				throw new IllegalArgumentException("The pattern must not be empty");
+			}
+			length = pattern.length();
+			words = (length + Long.SIZE - 1) / Long.SIZE;
+			lastBit = 1L << ((length - 1) % Long.SIZE);
+
+			charClasses = new CharClasses(pattern);
+			masks = new long[charClasses.size() * words];
+			for (int i = 0; i < length; i++) {
+				masks[charClass(pattern.charAt(i)) * words + i / Long.SIZE] |= 1L << (i % Long.SIZE);
+			}
 		}
-		
-		for (int i = 0; i < m; i++) {
-			pattern_mask[pattern.charAt(i)] &= ~(1 << i);
+
+		protected int charClass(char ch) {
+			return charClasses.classOf(ch);
 		}
-			
-		for (int i = 0; i < text.length(); i++) {
-			R |= pattern_mask[text.charAt(i)];
-			R <<= 1;
-			if ((R & (1 << m)) == 0) {
-				indices.add(i - m + 1);
-			}
+
+		public int length() {
+			return length;
 		}
 
-		return indices;
-	}
+		// Start indices of the exact matches
+		public List<Integer> matches(CharSequence text) {
+			List<Integer> indices = new ArrayList<>();
+			search(text, indices::add);
+			return indices;
+		}
 
-	@Override
-	public boolean contains(String text, String pattern) {
-		int m = pattern.length();
-		byte pattern_mask[] = new byte[Character.MAX_VALUE + 1];
-		byte R = ~1;
-		
-		for (int i = 0; i <= Character.MAX_VALUE; i++) {
-			pattern_mask[i] = ~0;
-		}
-		
-		for (int i = 0; i < m; i++) {
-			pattern_mask[pattern.charAt(i)] &= ~(1L << i);
-		}
-			
-		for (int i = 0; i < text.length(); i++) {
-			R |= pattern_mask[text.charAt(i)];
-			R <<= 1;
-			if ((R & (1 << m)) == 0) {
+		@Override
+		public void search(CharSequence text, int from, IntConsumer sink) {
+			search(text, from, 0, end -> {
+				sink.accept(end - length + 1);
 				return true;
+			});
+		}
+
+		@Override
+		public int indexOf(CharSequence text, int from) {
+			int[] found = { -1 };
+			search(text, from, 0, end -> {
+				found[0] = end - length + 1;
+				return false;
+			});
+			return found[0];
+		}
+
+		// Indices of the last character of every match with at most maxErrors
+		// substitutions, insertions or deletions. Where a fuzzy match starts is
+		// ambiguous, so matches are reported by where they end.
+		public List<Integer> approximateMatches(CharSequence text, int maxErrors) {
+			List<Integer> indices = new ArrayList<>();
+			search(text, 0, maxErrors, end -> indices.add(end));
+			return indices;
+		}
+
+		public boolean approximatelyContains(CharSequence text, int maxErrors) {
+			return search(text, 0, maxErrors, end -> false);
+		}
+
+		// Reports the end of each match to sink until it returns false, returns true if anything matched
+		protected boolean search(CharSequence text, int from, int maxErrors, IntPredicate sink) {
+			if (maxErrors < 0 || maxErrors >= length) {
+				throw new IllegalArgumentException("The number of errors must be in [0, pattern length)");
 			}
+
+			if (words > 1) {
+				return searchWords(text, from, maxErrors, sink);
+			} else if (maxErrors > 0) {
+				return searchApproximate(text, from, maxErrors, sink);
+			}
+
+			boolean found = false;
+			long state = 0;
+			for (int i = Math.max(0, from); i < text.length(); i++) {
+				state = ((state << 1) | 1) & masks[charClass(text.charAt(i))];
+				if ((state & lastBit) != 0) {
+					found = true;
+					if (!sink.test(i)) {
+						break;
+					}
+				}
+			}
+			return found;
+		}
+
+		private boolean searchApproximate(CharSequence text, int from, int maxErrors, IntPredicate sink) {
+			long[] states = new long[maxErrors + 1];
+			for (int d = 0; d <= maxErrors; d++) {
+				// the first d characters can always be deleted
+				states[d] = (1L << d) - 1;
+			}
+
+			boolean found = false;
+			for (int i = Math.max(0, from); i < text.length(); i++) {
+				long mask = masks[charClass(text.charAt(i))];
+				long previousOld = states[0];
+				states[0] = ((states[0] << 1) | 1) & mask;
+				for (int d = 1; d <= maxErrors; d++) {
+					long old = states[d];
+					states[d] = (((old << 1) | 1) & mask) | previousOld | ((previousOld | states[d - 1]) << 1) | 1;
+					previousOld = old;
+				}
+
+				if ((states[maxErrors] & lastBit) != 0) {
+					found = true;
+					if (!sink.test(i)) {
+						break;
+					}
+				}
+			}
+			return found;
+		}
+
+		private boolean searchWords(CharSequence text, int from, int maxErrors, IntPredicate sink) {
+			// states[d * words + word]
+			long[] states = new long[(maxErrors + 1) * words];
+			long[] previousOld = new long[words];
+			long[] old = new long[words];
+			for (int d = 0; d <= maxErrors; d++) {
+				for (int bit = 0; bit < d; bit++) {
+					states[d * words + bit / Long.SIZE] |= 1L << (bit % Long.SIZE);
+				}
+			}
+
+			boolean found = false;
+			int lastWord = maxErrors * words + words - 1;
+			for (int i = Math.max(0, from); i < text.length(); i++) {
+				int maskStart = charClass(text.charAt(i)) * words;
+				for (int d = 0; d <= maxErrors; d++) {
+					int start = d * words;
+					System.arraycopy(states, start, old, 0, words);
+					// carry is what shifts into the lowest bit of each word
+					long carry = 1;
+					long deletionCarry = 1;
+					for (int w = 0; w < words; w++) {
+						long shifted = (old[w] << 1) | carry;
+						carry = old[w] >>> 63;
+						long next = shifted & masks[maskStart + w];
+						if (d > 0) {
+							long fromPrevious = previousOld[w] | states[start - words + w];
+							next |= previousOld[w] | (fromPrevious << 1) | deletionCarry;
+							deletionCarry = fromPrevious >>> 63;
+						}
+						states[start + w] = next;
+					}
+					long[] swap = previousOld;
+					previousOld = old;
+					old = swap;
+				}
+
+				if ((states[lastWord] & lastBit) != 0) {
+					found = true;
+					if (!sink.test(i)) {
+						break;
+					}
+				}
+			}
+			return found;
 		}
-		return false;
 	}
 
+	public static Pattern compile(String pattern) {
+		return new Pattern(pattern);
+	}
+
+	@Override
+	public List<Integer> matches(String text, String pattern) {
+		return compile(pattern).matches(text);
+	}
+
+	@Override
+	public boolean contains(String text, String pattern) {
+		return compile(pattern).contains(text);
+	}
 }
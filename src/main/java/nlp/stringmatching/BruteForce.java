@@ -1,43 +1,55 @@
 package nlp.stringmatching;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /*
  * Standard Naive Brute Force 
  */
 public class BruteForce extends Matcher {
-	@Override
-	public List<Integer> matches(String text, String pattern) {
-		List<Integer> matchIndices = new LinkedList<>();
-		for (int i = 0; i <= text.length() - pattern.length(); i++) {
-			int j;
-			for (j = 0; j < pattern.length(); j++) {
-				if (pattern.charAt(j) != text.charAt(i + j)) {
-					break;
+	// The empty pattern is allowed here and matches at every index
+	public static class Compiled implements CompiledPattern {
+		protected final char[] pattern;
+
+		protected Compiled(String pattern) {
+			this.pattern = pattern.toCharArray();
+		}
+
+		@Override
+		public int length() {
+			return pattern.length;
+		}
+
+		@Override
+		public int indexOf(CharSequence text, int from) {
+			for (int i = Math.max(0, from); i <= text.length() - pattern.length; i++) {
+				int j;
+				for (j = 0; j < pattern.length; j++) {
+					if (pattern[j] != text.charAt(i + j)) {
+						break;
+					}
 				}
-			}
 
-			if (j == pattern.length()) {
-				matchIndices.add(i);
+				if (j == pattern.length) {
+					return i;
+				}
 			}
+			return -1;
 		}
+	}
+
+	public static Compiled compile(String pattern) {
+		return new Compiled(pattern);
+	}
+
+	@Override
+	public List<Integer> matches(String text, String pattern) {
+		List<Integer> matchIndices = new ArrayList<>();
+		compile(pattern).search(text, matchIndices::add);
 		return matchIndices;
 	}
 
 	@Override
 	public boolean contains(String text, String pattern) {
-		for (int i = 0; i <= text.length() - pattern.length(); i++) {
-			int j;
-			for (j = 0; j < pattern.length(); j++) {
-				if (pattern.charAt(j) != text.charAt(i + j)) {
-					break;
-				}
-			}
-
-			if (j == pattern.length()) {
-				return true;
-			}
-		}
-		return false;
+		return compile(pattern).contains(text);
 	}
 }
@@ -0,0 +1,57 @@
+package nlp.stringmatching;
+import java.util.Arrays;
+
+/*
+ * Maps the distinct characters of a pattern to dense classes 1..size() - 1,
+ * and every other character to 0, so per character tables only need a row per
+ * class instead of one per possible char.
+ *
+ * ASCII goes through a small table, anything else is a binary search over the
+ * sorted non ASCII characters of the pattern.
+ */
+final class CharClasses {
+	private static final int ASCII = 128;
+
+	private final int[] asciiClasses = new int[ASCII];
+	private final char[] nonAscii;
+	private final int nonAsciiClassStart;
+
+	CharClasses(CharSequence pattern) {
+		int classes = 1;
+		char[] others = new char[pattern.length()];
+		int otherCount = 0;
+		for (int i = 0; i < pattern.length(); i++) {
+			char ch = pattern.charAt(i);
+			if (ch < ASCII) {
+				if (asciiClasses[ch] == 0) {
+					asciiClasses[ch] = classes++;
+				}
+			} else {
+				others[otherCount++] = ch;
+			}
+		}
+
+		Arrays.sort(others, 0, otherCount);
+		int unique = 0;
+		for (int i = 0; i < otherCount; i++) {
+			if (unique == 0 || others[i] != others[unique - 1]) {
+				others[unique++] = others[i];
+			}
+		}
+		nonAscii = Arrays.copyOf(others, unique);
+		nonAsciiClassStart = classes;
+	}
+
+	int classOf(char ch) {
+		if (ch < ASCII) {
+			return asciiClasses[ch];
+		}
+		int index = Arrays.binarySearch(nonAscii, ch);
+		return index < 0 ? 0 : nonAsciiClassStart + index;
+	}
+
+	// Number of classes including 0
+	int size() {
+		return nonAsciiClassStart + nonAscii.length;
+	}
+}
@@ -0,0 +1,35 @@
+package nlp.stringmatching;
+import java.util.function.IntConsumer;
+
+/*
+ * A pattern whose preprocessing (shift tables, failure tables, automata,
+ * masks) is done once by an algorithm's compile(pattern).
+ *
+ * Implementations are immutable and keep all search state on the stack, so one
+ * compiled pattern can be shared by any number of threads.
+ */
+public interface CompiledPattern {
+	int length();
+
+	// First match starting at or after from, -1 if there is none
+	int indexOf(CharSequence text, int from);
+
+	// Passes the start of every match at or after from to sink, in increasing order
+	default void search(CharSequence text, int from, IntConsumer sink) {
+		for (int i = indexOf(text, from); i >= 0; i = indexOf(text, i + 1)) {
+			sink.accept(i);
+		}
+	}
+
+	default void search(CharSequence text, IntConsumer sink) {
+		search(text, 0, sink);
+	}
+
+	default int indexOf(CharSequence text) {
+		return indexOf(text, 0);
+	}
+
+	default boolean contains(CharSequence text) {
+		return indexOf(text, 0) >= 0;
+	}
+}
@@ -0,0 +1,150 @@
+package nlp.stringmatching;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/*
+ * First and last character filter
+ *
+ * Only the positions where the text has the pattern's first character and, m - 1
+ * further, its last character are candidates, and only those are compared in
+ * full. On natural text the pair rules out nearly every position, much like the
+ * two comparisons a skip table makes, but without a table lookup in between.
+ *
+ * Over byte[] text (ASCII or UTF-8 logs) the filter looks at 8 positions per
+ * step (SWAR): two little endian longs are read at i and i + m - 1, each is
+ * XORed with the broadcast first/last byte, and a byte of the result is zero
+ * exactly where the character matches. ANDing the two zero masks leaves one
+ * bit per candidate, which are visited lowest first.
+ *
+ * http://0x80.pl/articles/simd-strfind.html
+ * https://graphics.stanford.edu/~seander/bithacks.html#ZeroInWord
+ */
+public class FirstLastStringMatch {
+	private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final long ONES = 0x0101010101010101L;
+	private static final long LOW_SEVEN = 0x7F7F7F7F7F7F7F7FL;
+
+	public static class Compiled implements CompiledPattern {
+		protected final char[] pattern;
+		// the pattern in UTF-8, for byte[] text
+		protected final byte[] bytes;
+		protected final long firstBytes;
+		protected final long lastBytes;
+
+		protected Compiled(String pattern) {
+			if (pattern.isEmpty()) {
+				throw new IllegalArgumentException("The pattern must not be empty");
+			}
+			this.pattern = pattern.toCharArray();
+			this.bytes = pattern.getBytes(StandardCharsets.UTF_8);
+			this.firstBytes = (bytes[0] & 0xFFL) * ONES;
+			this.lastBytes = (bytes[bytes.length - 1] & 0xFFL) * ONES;
+		}
+
+		@Override
+		public int length() {
+			return pattern.length;
+		}
+
+		@Override
+		public int indexOf(CharSequence text, int from) {
+			final int LAST = pattern.length - 1;
+			final char first = pattern[0], last = pattern[LAST];
+			for (int i = Math.max(0, from), end = text.length() - LAST; i < end; i++) {
+				if (text.charAt(i) == first && text.charAt(i + LAST) == last && middleEquals(text, i)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private boolean middleEquals(CharSequence text, int start) {
+			for (int j = 1; j < pattern.length - 1; j++) {
+				if (text.charAt(start + j) != pattern[j]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		// First match in text[from, to), as a byte offset
+		public int indexOf(byte[] text, int from, int to) {
+			int[] found = { -1 };
+			search(text, from, to, start -> found[0] = start, true);
+			return found[0];
+		}
+
+		public int indexOf(byte[] text) {
+			return indexOf(text, 0, text.length);
+		}
+
+		// Passes the byte offset of every match in text[from, to) to sink
+		public void search(byte[] text, int from, int to, IntConsumer sink) {
+			search(text, from, to, sink, false);
+		}
+
+		public void search(byte[] text, IntConsumer sink) {
+			search(text, 0, text.length, sink, false);
+		}
+
+		private void search(byte[] text, int from, int to, IntConsumer sink, boolean firstOnly) {
+			Objects.checkFromToIndex(from, to, text.length);
+			final int LAST = bytes.length - 1;
+			int i = from;
+			// both 8 byte reads must stay inside [from, to)
+			for (int end = to - LAST - Long.BYTES; i <= end; i += Long.BYTES) {
+				long candidates = zeroBytes((long) LONGS.get(text, i) ^ firstBytes)
+						& zeroBytes((long) LONGS.get(text, i + LAST) ^ lastBytes);
+				while (candidates != 0) {
+					int start = i + (Long.numberOfTrailingZeros(candidates) >>> 3);
+					if (middleEquals(text, start)) {
+						sink.accept(start);
+						if (firstOnly) {
+							return;
+						}
+					}
+					candidates &= candidates - 1;
+				}
+			}
+
+			for (int end = to - LAST; i < end; i++) {
+				if (text[i] == bytes[0] && text[i + LAST] == bytes[LAST] && middleEquals(text, i)) {
+					sink.accept(i);
+					if (firstOnly) {
+						return;
+					}
+				}
+			}
+		}
+
+		private boolean middleEquals(byte[] text, int start) {
+			return bytes.length <= 2 || Arrays.equals(text, start + 1, start + bytes.length - 1, bytes, 1, bytes.length - 1);
+		}
+	}
+
+	// The high bit of each byte of the result is set exactly where word has a zero byte.
+	// (word & 0x7F) + 0x7F never carries into the next byte, so unlike the
+	// shorter (word - 0x01) & ~word & 0x80 there are no false positives.
+	private static long zeroBytes(long word) {
+		long low = (word & LOW_SEVEN) + LOW_SEVEN;
+		return ~(low | word | LOW_SEVEN);
+	}
+
+	public static Compiled compile(String pattern) {
+		return new Compiled(pattern);
+	}
+
+	public static int matches(String pattern, String text) {
+		return compile(pattern).indexOf(text);
+	}
+
+	public static void main(String[] args) {
+		System.out.println(FirstLastStringMatch.matches("TEST", "THIS IS A TEST TEXT"));
+		System.out.println(FirstLastStringMatch.compile("ERROR").indexOf("2024-01-01 INFO ok\n2024-01-01 ERROR disk full".getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -1,34 +1,60 @@
 package nlp.stringmatching;
-import java.util.HashMap;
+import java.util.Arrays;
 
 //reference: https://www.inf.hs-flensburg.de/lang/algorithmen/pattern/horsen.htm
 public class HorspoolStringMatch {
-	public static int matches(String pattern, String text) {
-		HashMap<Character, Integer> fallBack = getLastOccurenceMap(pattern);
-		final int TEXT_LENGTH = text.length(), PATTERN_LENGTH_M1 = pattern.length()-1; //M1, minus 1
-		int i = PATTERN_LENGTH_M1, found = -1;
-		while (i < TEXT_LENGTH) {
-			for (int j = i, k = PATTERN_LENGTH_M1; k >= 0; j--, k--) {
-				if (text.charAt(j) != pattern.charAt(k)) {
-					break;
-				} else if (k == 0) {
-					found = j;
-					return found;
-				}
+	// shift tables are indexed by the low byte of a char, see Compiled
+	private static final int TABLE_SIZE = 256;
+	private static final int TABLE_MASK = TABLE_SIZE - 1;
+
+	/*
+	 * Characters share a shift table entry when their low bytes are equal. The
+	 * table is filled from left to right, so an entry ends up with the smallest
+	 * shift of the characters sharing it, which never skips a match.
+	 */
+	public static class Compiled implements CompiledPattern {
+		protected final char[] pattern;
+		protected final int[] shifts = new int[TABLE_SIZE];
+
+		protected Compiled(String pattern) {
+			if (pattern.isEmpty()) {
+				throw new IllegalArgumentException("The pattern must not be empty");
 			}
+			this.pattern = pattern.toCharArray();
+			final int PATTERN_LENGTH_M1 = this.pattern.length - 1;
+			Arrays.fill(shifts, this.pattern.length);
+			for (int i = 0; i < PATTERN_LENGTH_M1; i++) {
+				shifts[this.pattern[i] & TABLE_MASK] = PATTERN_LENGTH_M1 - i;
+			}
+		}
 
-			i -= fallBack.getOrDefault(text.charAt(i), -1);
-			i += PATTERN_LENGTH_M1;
+		@Override
+		public int length() {
+			return pattern.length;
 		}
-		return found;
-	}
 
-	private static HashMap<Character, Integer> getLastOccurenceMap(String pattern) {
-		HashMap<Character, Integer> occurenceMap = new HashMap<>(pattern.length()); // usually not the case all unique
-		for (int i = 0; i < pattern.length()-1; i++) {
-			occurenceMap.put(pattern.charAt(i), i);
+		@Override
+		public int indexOf(CharSequence text, int from) {
+			final int TEXT_LENGTH = text.length(), PATTERN_LENGTH_M1 = pattern.length - 1; //M1, minus 1
+			int i = Math.max(0, from) + PATTERN_LENGTH_M1;
+			while (i < TEXT_LENGTH) {
+				for (int j = i, k = PATTERN_LENGTH_M1; text.charAt(j) == pattern[k]; j--, k--) {
+					if (k == 0) {
+						return j;
+					}
+				}
+				i += shifts[text.charAt(i) & TABLE_MASK];
+			}
+			return -1;
 		}
-		return occurenceMap;
+	}
+
+	public static Compiled compile(String pattern) {
+		return new Compiled(pattern);
+	}
+
+	public static int matches(String pattern, String text) {
+		return compile(pattern).indexOf(text);
 	}
 
 	public static void main(String[] args) {
@@ -1,26 +1,71 @@
 package nlp.stringmatching;
+import java.util.function.IntConsumer;
+
 public class KMPStringMatch {
-	public static int matches(String pattern, String text) {
-		final int LAST_INDEX = pattern.length() - 1;
-		int i = 0, j = 0, found = -1;
-		int[] prefixTable = prefixTable(pattern);
-		while (i < text.length()) {
-			if (text.charAt(i) == pattern.charAt(j)) {
-				if (j == LAST_INDEX) {
-					found = i - j;
-					break;
-					//j = prefixTable[j-1], if you want all the spots, add found to a list
-				} else {
-					i++;
+	public static class Compiled implements CompiledPattern {
+		protected final char[] pattern;
+		protected final int[] prefixTable;
+
+		protected Compiled(String pattern) {
+			if (pattern.isEmpty()) {
+				throw new IllegalArgumentException("The pattern must not be empty");
+			}
+			this.pattern = pattern.toCharArray();
+			this.prefixTable = prefixTable(pattern);
+		}
+
+		@Override
+		public int length() {
+			return pattern.length;
+		}
+
+		@Override
+		public int indexOf(CharSequence text, int from) {
+			final int LAST_INDEX = pattern.length - 1;
+			int j = 0;
+			for (int i = Math.max(0, from); i < text.length(); i++) {
+				char ch = text.charAt(i);
+				while (j > 0 && ch != pattern[j]) {
+					j = prefixTable[j - 1];
+				}
+				if (ch == pattern[j]) {
+					if (j == LAST_INDEX) {
+						return i - j;
+					}
 					j++;
 				}
-			} else if (j > 0) {
-				j = prefixTable[j-1];
-			} else {
-				i++;
 			}
+			return -1;
 		}
-		return found;
+
+		// One pass, after a match the search goes on from the longest border
+		@Override
+		public void search(CharSequence text, int from, IntConsumer sink) {
+			final int LAST_INDEX = pattern.length - 1;
+			int j = 0;
+			for (int i = Math.max(0, from); i < text.length(); i++) {
+				char ch = text.charAt(i);
+				while (j > 0 && ch != pattern[j]) {
+					j = prefixTable[j - 1];
+				}
+				if (ch == pattern[j]) {
+					if (j == LAST_INDEX) {
+						sink.accept(i - j);
+						j = prefixTable[j];
+					} else {
+						j++;
+					}
+				}
+			}
+		}
+	}
+
+	public static Compiled compile(String pattern) {
+		return new Compiled(pattern);
+	}
+
+	public static int matches(String pattern, String text) {
+		return compile(pattern).indexOf(text);
 	}
 
 	private static int[] prefixTable(String pattern) {
@@ -1,21 +1,65 @@
 package nlp.stringmatching;
+import java.util.function.IntConsumer;
+
 public class MorrisPrattStringMatch {
-	public static int matches(String pattern, String text) {
-		final int TEXT_LENGTH = text.length(), PATTERN_LENGTH = pattern.length();
-		int pIndex = 0, tIndex = 0;
-		int[] MPNext = getMPNextTable(pattern);
-		while (tIndex < TEXT_LENGTH) {
-			while (pIndex > -1 && pattern.charAt(pIndex) != text.charAt(tIndex)) {
-				pIndex = MPNext[pIndex];
+	public static class Compiled implements CompiledPattern {
+		protected final char[] pattern;
+		protected final int[] MPNext;
+
+		protected Compiled(String pattern) {
+			if (pattern.isEmpty()) {
+				throw new IllegalArgumentException("The pattern must not be empty");
 			}
-			pIndex++;
-			tIndex++;
-			if (pIndex >= PATTERN_LENGTH) {
-				return tIndex - pIndex;
-				// i = mpNext[i]
+			this.pattern = pattern.toCharArray();
+			this.MPNext = getMPNextTable(pattern);
+		}
+
+		@Override
+		public int length() {
+			return pattern.length;
+		}
+
+		@Override
+		public int indexOf(CharSequence text, int from) {
+			final int TEXT_LENGTH = text.length(), PATTERN_LENGTH = pattern.length;
+			int pIndex = 0, tIndex = Math.max(0, from);
+			while (tIndex < TEXT_LENGTH) {
+				while (pIndex > -1 && pattern[pIndex] != text.charAt(tIndex)) {
+					pIndex = MPNext[pIndex];
+				}
+				pIndex++;
+				tIndex++;
+				if (pIndex >= PATTERN_LENGTH) {
+					return tIndex - pIndex;
+				}
 			}
+			return -1;
 		}
-		return -1;
+
+		@Override
+		public void search(CharSequence text, int from, IntConsumer sink) {
+			final int TEXT_LENGTH = text.length(), PATTERN_LENGTH = pattern.length;
+			int pIndex = 0, tIndex = Math.max(0, from);
+			while (tIndex < TEXT_LENGTH) {
+				while (pIndex > -1 && pattern[pIndex] != text.charAt(tIndex)) {
+					pIndex = MPNext[pIndex];
+				}
+				pIndex++;
+				tIndex++;
+				if (pIndex >= PATTERN_LENGTH) {
+					sink.accept(tIndex - pIndex);
+					pIndex = MPNext[pIndex];
+				}
+			}
+		}
+	}
+
+	public static Compiled compile(String pattern) {
+		return new Compiled(pattern);
+	}
+
+	public static int matches(String pattern, String text) {
+		return compile(pattern).indexOf(text);
 	}
 
 	private static int[] getMPNextTable(String pattern) {
@@ -1,25 +1,246 @@
 package nlp.stringmatching;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntConsumer;
+
 //reference: https://en.wikipedia.org/wiki/Rabin%E2%80%93Karp_algorithm
+/*
+ * The hash of a window is the polynomial c0 * B^(m-1) + c1 * B^(m-2) + ... + c(m-1)
+ * mod 2^64 (plain long overflow), so sliding the window one character is
+ * h = (h - out * B^(m-1)) * B + in, O(1) per character without allocating.
+ *
+ * Any number of patterns of the same length are found in the same pass: their
+ * hashes go into an open addressing table of longs, and only windows whose
+ * hash is in the table are compared character by character, so a hash
+ * collision can cost time but never a wrong match.
+ *
+ * Patterns is a CompiledPattern too, reporting where any of them starts.
+ *
+ * A Stream keeps the hash and the last m characters between chunks, so input
+ * can be fed in CharBuffer pieces and matches spanning two pieces are found.
+ */
 public class RabinKarpStringMatch {
-	public static int matches(String pattern, String text) {		
-		int hashCode = pattern.hashCode(), found = -1;
-		final int PATTERN_LENGTH = pattern.length();
-		for (int i = 0; i < text.length() - pattern.length() + 1; i++) {
-			String sub = text.substring(i, i+pattern.length());
-			if (hashCode == sub.hashCode()) {
-				for (int j = 0; j < PATTERN_LENGTH; j++) {
-					if (pattern.charAt(j) != text.charAt(i + j)) {
-						break;
-					} else if (j == PATTERN_LENGTH-1) {
-						found = i;
-						return found;
+	// odd, so multiplying by it never loses bits mod 2^64
+	private static final long BASE = 0x9E3779B97F4A7C15L;
+	private static final int EMPTY = -1;
+
+	public interface MatchHandler {
+		// offset is where the match starts, counted from the start of the input
+		void match(int patternId, long offset);
+	}
+
+	public static class Patterns implements CompiledPattern {
+		protected final char[][] patterns;
+		protected final int length;
+		// BASE^(length - 1), the weight of the character leaving the window
+		protected final long outgoingWeight;
+		protected final long[] hashes;
+		protected final int[] ids;
+		protected final int shift;
+
+		protected Patterns(List<String> patterns) {
+			if (patterns.isEmpty()) {
+				throw new IllegalArgumentException("At least one pattern is needed");
+			}
+			length = patterns.get(0).length();
+			if (length == 0) {
+				throw new IllegalArgumentException("Patterns must not be empty");
+			}
+
+			this.patterns = new char[patterns.size()][];
+			long weight = 1;
+			for (int i = 1; i < length; i++) {
+				weight *= BASE;
+			}
+			outgoingWeight = weight;
+
+			int bits = 32 - Integer.numberOfLeadingZeros(Math.max(1, patterns.size() * 2 - 1));
+			hashes = new long[1 << bits];
+			ids = new int[1 << bits];
+			Arrays.fill(ids, EMPTY);
+			shift = 64 - bits;
+
+			for (int id = 0; id < patterns.size(); id++) {
+				String pattern = patterns.get(id);
+				if (pattern.length() != length) {
+					throw new IllegalArgumentException("Every pattern must have the same length");
+				}
+				this.patterns[id] = pattern.toCharArray();
+
+				long hash = 0;
+				for (int i = 0; i < length; i++) {
+					hash = hash * BASE + pattern.charAt(i);
+				}
+				int slot = slot(hash);
+				while (ids[slot] != EMPTY) {
+					slot = (slot + 1) & (ids.length - 1);
+				}
+				hashes[slot] = hash;
+				ids[slot] = id;
+			}
+		}
+
+		// The polynomial's low bits only depend on the low bits of the characters, so use the high ones
+		private int slot(long hash) {
+			return (int) ((hash * BASE) >>> shift);
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		public void search(CharSequence text, MatchHandler handler) {
+			search(text, 0, handler, false);
+		}
+
+		// Several patterns matching at the same start are reported once
+		@Override
+		public void search(CharSequence text, int from, IntConsumer sink) {
+			int[] last = { -1 };
+			search(text, from, (patternId, offset) -> {
+				if (offset != last[0]) {
+					last[0] = (int) offset;
+					sink.accept((int) offset);
+				}
+			}, false);
+		}
+
+		@Override
+		public int indexOf(CharSequence text, int from) {
+			long[] found = { -1 };
+			search(text, from, (patternId, offset) -> found[0] = offset, true);
+			return (int) found[0];
+		}
+
+		private void search(CharSequence text, int from, MatchHandler handler, boolean firstOnly) {
+			from = Math.max(0, from);
+			if (text.length() - from < length) {
+				return;
+			}
+
+			long hash = 0;
+			for (int i = from; i < from + length; i++) {
+				hash = hash * BASE + text.charAt(i);
+			}
+
+			for (int start = from;; start++) {
+				for (int slot = slot(hash); ids[slot] != EMPTY; slot = (slot + 1) & (ids.length - 1)) {
+					if (hashes[slot] == hash && equalsAt(patterns[ids[slot]], text, start)) {
+						handler.match(ids[slot], start);
+						if (firstOnly) {
+							return;
+						}
 					}
 				}
+
+				int end = start + length;
+				if (end == text.length()) {
+					return;
+				}
+				hash = (hash - text.charAt(start) * outgoingWeight) * BASE + text.charAt(end);
+			}
+		}
+
+		private boolean equalsAt(char[] pattern, CharSequence text, int start) {
+			for (int i = 0; i < pattern.length; i++) {
+				if (pattern[i] != text.charAt(start + i)) {
+					return false;
+				}
 			}
+			return true;
+		}
+
+		public Stream stream(MatchHandler handler) {
+			return new Stream(this, handler);
+		}
+	}
+
+	// Matches over input that arrives in chunks
+	public static class Stream {
+		protected final Patterns patterns;
+		protected final MatchHandler handler;
+		// the last length characters, window[position % length] is the oldest once full
+		protected final char[] window;
+		protected long position = 0;
+		protected long hash = 0;
+
+		protected Stream(Patterns patterns, MatchHandler handler) {
+			this.patterns = patterns;
+			this.handler = handler;
+			this.window = new char[patterns.length];
+		}
+
+		// Consumes every remaining character of the chunk
+		public void feed(CharBuffer chunk) {
+			int length = patterns.length;
+			while (chunk.hasRemaining()) {
+				char in = chunk.get();
+				int index = (int) (position % length);
+				if (position >= length) {
+					hash -= window[index] * patterns.outgoingWeight;
+				}
+				hash = hash * BASE + in;
+				window[index] = in;
+				position++;
+
+				if (position >= length) {
+					check();
+				}
+			}
+		}
+
+		public void feed(CharSequence chunk) {
+			feed(CharBuffer.wrap(chunk));
+		}
+
+		// Number of characters consumed so far
+		public long position() {
+			return position;
+		}
+
+		private void check() {
+			Patterns p = patterns;
+			for (int slot = p.slot(hash); p.ids[slot] != EMPTY; slot = (slot + 1) & (p.ids.length - 1)) {
+				if (p.hashes[slot] == hash && equalsWindow(p.patterns[p.ids[slot]])) {
+					handler.match(p.ids[slot], position - p.length);
+				}
+			}
+		}
+
+		private boolean equalsWindow(char[] pattern) {
+			int oldest = (int) (position % pattern.length);
+			for (int i = 0; i < pattern.length; i++) {
+				int index = oldest + i;
+				if (index >= pattern.length) {
+					index -= pattern.length;
+				}
+				if (pattern[i] != window[index]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	// Every pattern must have the same length, a pattern's id is its index
+	public static Patterns compile(List<String> patterns) {
+		return new Patterns(patterns);
+	}
+
+	public static Patterns compile(String... patterns) {
+		return compile(Arrays.asList(patterns));
+	}
+
+	public static int matches(String pattern, String text) {
+		if (pattern.isEmpty()) {
+			return -1;
 		}
-		return found;
+		return compile(Collections.singletonList(pattern)).indexOf(text);
 	}
-	
+
 	public static void main(String[] args) {
 		System.out.println(RabinKarpStringMatch.matches("bcaab", "abcabdaacba"));
 		System.out.println(RabinKarpStringMatch.matches("ababaca", "bacbabababacaca"));
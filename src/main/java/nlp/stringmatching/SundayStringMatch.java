@@ -1,38 +1,61 @@
 package nlp.stringmatching;
-import java.util.HashMap;
+import java.util.Arrays;
 
 //reference: https://www.inf.hs-flensburg.de/lang/algorithmen/pattern/sundayen.htm
 public class SundayStringMatch {
-	public static int matches(String pattern, String text) {
-		HashMap<Character, Integer> fallBack = getLastOccurenceMap(pattern);
-		final int TEXT_LENGTH = text.length(), PATTERN_LENGTH = pattern.length();
-		int i = PATTERN_LENGTH-1, found = -1;
-		while (i < TEXT_LENGTH) {
-			for(int j = i, k = PATTERN_LENGTH-1; k >= 0; j--, k--) {
-				if (text.charAt(j) != pattern.charAt(k)) {
+	// shift tables are indexed by the low byte of a char, see HorspoolStringMatch.Compiled
+	private static final int TABLE_SIZE = 256;
+	private static final int TABLE_MASK = TABLE_SIZE - 1;
+
+	public static class Compiled implements CompiledPattern {
+		protected final char[] pattern;
+		// shift by the character right after the window
+		protected final int[] shifts = new int[TABLE_SIZE];
+
+		protected Compiled(String pattern) {
+			if (pattern.isEmpty()) {
+				throw new IllegalArgumentException("The pattern must not be empty");
+			}
+			this.pattern = pattern.toCharArray();
+			Arrays.fill(shifts, this.pattern.length + 1);
+			for (int i = 0; i < this.pattern.length; i++) {
+				shifts[this.pattern[i] & TABLE_MASK] = this.pattern.length - i;
+			}
+		}
+
+		@Override
+		public int length() {
+			return pattern.length;
+		}
+
+		@Override
+		public int indexOf(CharSequence text, int from) {
+			final int TEXT_LENGTH = text.length(), PATTERN_LENGTH = pattern.length;
+			int i = Math.max(0, from);
+			while (i + PATTERN_LENGTH <= TEXT_LENGTH) {
+				for (int j = i + PATTERN_LENGTH - 1, k = PATTERN_LENGTH - 1; text.charAt(j) == pattern[k]; j--, k--) {
+					if (k == 0) {
+						return j;
+					}
+				}
+
+				if (i + PATTERN_LENGTH == TEXT_LENGTH) { //no next letter to the right
 					break;
-				} else if (k == 0) {
-					found = j;
-					return found; 
 				}
+				i += shifts[text.charAt(i + PATTERN_LENGTH) & TABLE_MASK];
 			}
-			
-			if (i + 1 < TEXT_LENGTH) { //check next letter to the right
-				i -= fallBack.getOrDefault(text.charAt(i+1), -1);
-			}
-			i += PATTERN_LENGTH;
+			return -1;
 		}
-		return found;
 	}
-	
-	private static HashMap<Character, Integer> getLastOccurenceMap(String pattern) {
-		HashMap<Character, Integer> occurenceMap = new HashMap<>(pattern.length()); //usually not the case all unique
-		for (int i = 0; i < pattern.length(); i++) {
-			occurenceMap.put(pattern.charAt(i), i);
-		}
-		return occurenceMap;
+
+	public static Compiled compile(String pattern) {
+		return new Compiled(pattern);
 	}
-	
+
+	public static int matches(String pattern, String text) {
+		return compile(pattern).indexOf(text);
+	}
+
 	public static void main(String[] args) {
 		System.out.println(SundayStringMatch.matches("bcaab", "abcabdaacba"));
 		System.out.println(SundayStringMatch.matches("ababaca", "bacbabababacaca"));
@@ -1,20 +1,24 @@
 package nocategoryyet;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import metrics.LevenshteinAutomaton;
+import metrics.Neighbor;
+
 public class ArrayTrie {
 	private static final char STARTING_LETTER =  'a';
 	private static final int MAX_CHILDREN = 26;
 	private static class Node {
 		private Node[] childrenLetters;
 		private byte count;
+		// a word ends here, not only at the leaves: "tea" and "team"
+		private boolean word;
 		
 		public Node() {
 			childrenLetters = new Node[MAX_CHILDREN];
 		}
 		
-		private boolean isLeaf() {
-			return count == 0;
-		}
-		
 		private Node add(char letter) {
 			int indexPos = letter - STARTING_LETTER;
 			if (childrenLetters[indexPos] == null) {
@@ -35,6 +39,7 @@ public class ArrayTrie {
 		for (int i = 0; i < word.length(); i++) {
 			temp = temp.add(word.charAt(i));  
 		}
+		temp.word = true;
 	}
 	
 	private Node getNode(String word) {
@@ -47,10 +52,59 @@ public class ArrayTrie {
 	
 	public boolean search(String word) {
 		Node result = getNode(word);
-		return result != null && result.isLeaf();
+		return result != null && result.word;
 	}
 	
 	public boolean startsWith(String prefix) {
 		return getNode(prefix) != null;
 	}
+	
+	// Every word within maxDistance edits of word
+	public List<Neighbor<String>> fuzzySearch(String word, int maxDistance) {
+		return fuzzySearch(new LevenshteinAutomaton(word, maxDistance), false);
+	}
+	
+	// Every word with a prefix within maxDistance edits of prefix, at the distance of its closest prefix
+	public List<Neighbor<String>> fuzzyStartsWith(String prefix, int maxDistance) {
+		return fuzzySearch(new LevenshteinAutomaton(prefix, maxDistance), true);
+	}
+	
+	// Walks the trie and the automaton together, a child is skipped as soon as the automaton dies on it
+	public List<Neighbor<String>> fuzzySearch(LevenshteinAutomaton automaton, boolean prefix) {
+		List<Neighbor<String>> found = new ArrayList<>();
+		int best = automaton.getMaxDistance() + 1;
+		if (prefix && automaton.isMatch(LevenshteinAutomaton.START)) {
+			best = automaton.distance(LevenshteinAutomaton.START);
+		}
+		fuzzySearch(root, LevenshteinAutomaton.START, best, prefix, automaton, new StringBuilder(), found);
+		return found;
+	}
+	
+	// best is the distance of the closest prefix read so far, only kept for prefix searches
+	private void fuzzySearch(Node current, int state, int best, boolean prefix, LevenshteinAutomaton automaton,
+			StringBuilder path, List<Neighbor<String>> found) {
+		int limit = automaton.getMaxDistance();
+		if (current.word) {
+			int distance = prefix ? best : automaton.distance(state);
+			if (distance <= limit) {
+				found.add(new Neighbor<>(path.toString(), distance));
+			}
+		}
+		
+		for (int i = 0; i < MAX_CHILDREN; i++) {
+			Node child = current.childrenLetters[i];
+			if (child == null) {
+				continue;
+			}
+			char letter = (char) (STARTING_LETTER + i);
+			int next = automaton.step(state, letter);
+			int nextBest = prefix && automaton.isMatch(next) ? Math.min(best, automaton.distance(next)) : best;
+			if (next == LevenshteinAutomaton.DEAD && (!prefix || nextBest > limit)) {
+				continue;
+			}
+			path.append(letter);
+			fuzzySearch(child, next, nextBest, prefix, automaton, path, found);
+			path.setLength(path.length() - 1);
+		}
+	}
 }
@@ -1,10 +1,17 @@
 package nocategoryyet;
 
+import hashers.Hasher64;
+import hashers.Hashing;
+
 //https://www.interviewcake.com/concept/java/bloom-filter
 //https://en.wikipedia.org/wiki/Counting_Bloom_filter
 /**
  * A bloom filter data structure that allows threshold check
  * 
+ * For plain membership at false positive rates down to 1e-5
+ * {@link BlockedBloomFilter} takes an eighth of the memory and one cache
+ * miss per lookup.
+ * 
  * @author Ethan
  * @since 1.0
  */
@@ -17,6 +24,11 @@ public class BloomFilter<T> {
 	private int acceptThreshold;
 	private byte[] set;
 	private Hasher<T>[] hashers;
+	// or the slots come from one 128 bit hash of the item, see Hashing.derive
+	private Hashing.Sink sink;
+	private Hashing.Funnel<? super T> funnel;
+	private final long[] hash = new long[2];
+	private int[] slots;
 
 	@SafeVarargs
 	public BloomFilter(int size, Hasher<T>... hashers) {
@@ -29,11 +41,45 @@ public class BloomFilter<T> {
 		set = new byte[capacity];
 		this.acceptThreshold = acceptThreshold;
 		this.hashers = hashers;
+		slots = new int[hashers.length];
+	}
+
+	public BloomFilter(int size, int numberOfHashes, Hasher64 hasher, Hashing.Funnel<? super T> funnel) {
+		this(size, 1, numberOfHashes, hasher, funnel);
+	}
+
+	/**
+	 * A filter that hashes every item once with hasher and derives its
+	 * numberOfHashes slots from that hash.
+	 */
+	public BloomFilter(int size, int acceptThreshold, int numberOfHashes, Hasher64 hasher,
+			Hashing.Funnel<? super T> funnel) {
+		capacity = size;
+		set = new byte[capacity];
+		this.acceptThreshold = acceptThreshold;
+		sink = hasher.newSink(0);
+		this.funnel = funnel;
+		slots = new int[numberOfHashes];
+	}
+
+	private int[] slots(T item) {
+		if (sink == null) {
+			for (int i = 0; i < hashers.length; i++) {
+				slots[i] = Math.floorMod(hashers[i].hash(item), capacity);
+			}
+		} else {
+			funnel.funnel(item, sink);
+			sink.finish128(hash);
+			for (int i = 0; i < slots.length; i++) {
+				slots[i] = Hashing.reduce(Hashing.derive(hash[0], hash[1], i), capacity);
+			}
+		}
+		return slots;
 	}
 
 	public void insert(T item) {
-		for (Hasher<T> hasher : hashers) {
-			set[hasher.hash(item) % capacity]++;
+		for (int slot : slots(item)) {
+			set[slot]++;
 		}
 	}
 
@@ -43,14 +89,14 @@ public class BloomFilter<T> {
 
 	public boolean contains(T item, boolean allLessThanThreshold) {
 		if (allLessThanThreshold) {
-			for (Hasher<T> hasher : hashers) {
-				if (set[hasher.hash(item) % capacity] > acceptThreshold) {
+			for (int slot : slots(item)) {
+				if (set[slot] > acceptThreshold) {
 					return false;
 				}
 			}
 		} else {
-			for (Hasher<T> hasher : hashers) {
-				if (set[hasher.hash(item) % capacity] < acceptThreshold) {
+			for (int slot : slots(item)) {
+				if (set[slot] < acceptThreshold) {
 					return false;
 				}
 			}
@@ -3,6 +3,9 @@ package nocategoryyet;
 import java.util.HashMap;
 import java.util.Random;
 
+import hashers.Hasher64;
+import hashers.Hashing;
+
 public class CountMinSketch<T> {
 	public static interface Hasher<T> {
 		public int hash(T obj);
@@ -11,6 +14,11 @@ public class CountMinSketch<T> {
 	private int depth;
 	private int width;
 	private Hasher<T>[] hashers;
+	// or the columns come from one 128 bit hash of the item, see Hashing.derive
+	private Hashing.Sink sink;
+	private Hashing.Funnel<? super T> funnel;
+	private final long[] hash = new long[2];
+	private int[] columns;
 	private int[][] frequencyMatrix;
 
 	@SafeVarargs
@@ -18,25 +26,53 @@ public class CountMinSketch<T> {
 		this.width = width;
 		this.hashers = hashers;
 		depth = hashers.length;
+		columns = new int[depth];
+		frequencyMatrix = new int[depth][width];
+	}
+
+	// Hashes every item once with hasher and derives the column of every row from that hash
+	public CountMinSketch(int width, int depth, Hasher64 hasher, Hashing.Funnel<? super T> funnel) {
+		this.width = width;
+		this.depth = depth;
+		sink = hasher.newSink(0);
+		this.funnel = funnel;
+		columns = new int[depth];
 		frequencyMatrix = new int[depth][width];
 	}
 
 	public void update(T item, int count) {
+		int[] columns = columns(item);
 		for (int row = 0; row < depth; row++) {
-			frequencyMatrix[row][boundHashCode(hashers[row].hash(item))] += count;
+			frequencyMatrix[row][columns[row]] += count;
 		}
 	}
 
 	public int estimate(T item) {
+		int[] columns = columns(item);
 		int count = Integer.MAX_VALUE;
 		for (int row = 0; row < depth; row++) {
-			count = Math.min(count, frequencyMatrix[row][boundHashCode(hashers[row].hash(item))]);
+			count = Math.min(count, frequencyMatrix[row][columns[row]]);
 		}
 		return count;
 	}
 
+	private int[] columns(T item) {
+		if (sink == null) {
+			for (int row = 0; row < depth; row++) {
+				columns[row] = boundHashCode(hashers[row].hash(item));
+			}
+		} else {
+			funnel.funnel(item, sink);
+			sink.finish128(hash);
+			for (int row = 0; row < depth; row++) {
+				columns[row] = Hashing.reduce(Hashing.derive(hash[0], hash[1], row), width);
+			}
+		}
+		return columns;
+	}
+
 	private int boundHashCode(int hashCode) {
-		return hashCode % width;
+		return Math.floorMod(hashCode, width);
 	}
 
 	public static void main(String[] args) {
@@ -3,6 +3,9 @@ package nocategoryyet;
 import java.util.Arrays;
 import java.util.Collection;
 
+import hashers.Hasher64;
+import hashers.Hashing;
+
 //Also known as a Simple Counter
 public class FMSketch<T> {
 	public interface Hasher<T> {
@@ -16,6 +19,10 @@ public class FMSketch<T> {
 		this(32, hasher); // 32 for long
 	}
 
+	public FMSketch(Hasher64 hasher, Hashing.Funnel<? super T> funnel) {
+		this(Hashing.function(hasher, funnel, 0)::applyAsLong);
+	}
+
 	private FMSketch(int numBits, Hasher<T> hasher) {
 		bits = new int[numBits];
 		this.hasher = hasher;
@@ -3,6 +3,9 @@ package nocategoryyet;
 import java.util.Arrays;
 import java.util.Collection;
 
+import hashers.Hasher64;
+import hashers.Hashing;
+
 public class LogLog<T> {
 	public interface Hasher<T> {
 		long hash(T obj);
@@ -19,6 +22,10 @@ public class LogLog<T> {
 		neededBucketBits = Integer.toString(numberOfCounters, 2).length();
 	}
 
+	public LogLog(Hasher64 hasher, Hashing.Funnel<? super T> funnel, int numberOfCounters) {
+		this(Hashing.function(hasher, funnel, 0)::applyAsLong, numberOfCounters);
+	}
+
 	@SuppressWarnings("unchecked")
 	public void add(T... dataset) {
 		add(Arrays.asList(dataset));
@@ -39,7 +46,7 @@ public class LogLog<T> {
 	}
 
 	private static String getBinaryForm(long hashcode) {
-		return addPadding(Long.toString(hashcode, 2));
+		return addPadding(Long.toBinaryString(hashcode));
 	}
 
 	private static String addPadding(String binaryRepresentation) {
@@ -1,6 +1,11 @@
 package nocategoryyet;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
+
+import metrics.LevenshteinAutomaton;
+import metrics.Neighbor;
 
 public class RadixTree {
 	private class Node {
@@ -127,6 +132,60 @@ public class RadixTree {
 		return current.isLeaf;
 	}
 
+	// Every word within maxDistance edits of word
+	public List<Neighbor<String>> fuzzySearch(String word, int maxDistance) {
+		return fuzzySearch(new LevenshteinAutomaton(word, maxDistance), false);
+	}
+
+	// Every word with a prefix within maxDistance edits of prefix, at the distance of its closest prefix
+	public List<Neighbor<String>> fuzzyStartsWith(String prefix, int maxDistance) {
+		return fuzzySearch(new LevenshteinAutomaton(prefix, maxDistance), true);
+	}
+
+	/*
+	 * Walks the tree and the automaton together, one edge character at a
+	 * time, and drops a branch as soon as the automaton dies on it, so only
+	 * the branches that can still lead to a match are visited.
+	 */
+	public List<Neighbor<String>> fuzzySearch(LevenshteinAutomaton automaton, boolean prefix) {
+		List<Neighbor<String>> found = new ArrayList<>();
+		int best = automaton.getMaxDistance() + 1;
+		if (prefix && automaton.isMatch(LevenshteinAutomaton.START)) {
+			best = automaton.distance(LevenshteinAutomaton.START);
+		}
+		fuzzySearch(root, LevenshteinAutomaton.START, best, prefix, automaton, new StringBuilder(), found);
+		return found;
+	}
+
+	// best is the distance of the closest prefix read so far, only kept for prefix searches
+	private void fuzzySearch(Node current, int state, int best, boolean prefix, LevenshteinAutomaton automaton,
+			StringBuilder path, List<Neighbor<String>> found) {
+		int limit = automaton.getMaxDistance();
+		if (current.isLeaf && current != root) {
+			int distance = prefix ? best : automaton.distance(state);
+			if (distance <= limit) {
+				found.add(new Neighbor<>(path.toString(), distance));
+			}
+		}
+
+		int length = path.length();
+		for (Edge edge : current.edges.values()) {
+			int next = state, nextBest = best;
+			for (int i = 0; i < edge.label.length(); i++) {
+				next = automaton.step(next, edge.label.charAt(i));
+				if (prefix && automaton.isMatch(next)) {
+					nextBest = Math.min(nextBest, automaton.distance(next));
+				}
+			}
+			if (next == LevenshteinAutomaton.DEAD && (!prefix || nextBest > limit)) {
+				continue;
+			}
+			path.append(edge.label);
+			fuzzySearch(edge.next, next, nextBest, prefix, automaton, path, found);
+			path.setLength(length);
+		}
+	}
+
 	public void delete(String word) {
 		root = delete(root, word);
 	}
@@ -1,5 +1,11 @@
 package nocategoryyet;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import metrics.LevenshteinAutomaton;
+import metrics.Neighbor;
+
 public class TernarySearchTree {
 	private static class Node {
 		char letter;
@@ -77,6 +83,58 @@ public class TernarySearchTree {
 		return false;
 	}
 
+	// Every word within maxDistance edits of word
+	public List<Neighbor<String>> fuzzySearch(String word, int maxDistance) {
+		return fuzzySearch(new LevenshteinAutomaton(word, maxDistance), false);
+	}
+
+	// Every word with a prefix within maxDistance edits of prefix, at the distance of its closest prefix
+	public List<Neighbor<String>> fuzzyStartsWith(String prefix, int maxDistance) {
+		return fuzzySearch(new LevenshteinAutomaton(prefix, maxDistance), true);
+	}
+
+	/*
+	 * Walks the tree and the automaton together. The left and right children
+	 * are other letters at the same position, so they are searched from the
+	 * same state; only following equal reads the node's letter, and that
+	 * subtree is dropped as soon as the automaton dies on it.
+	 */
+	public List<Neighbor<String>> fuzzySearch(LevenshteinAutomaton automaton, boolean prefix) {
+		List<Neighbor<String>> found = new ArrayList<>();
+		int best = automaton.getMaxDistance() + 1;
+		if (prefix && automaton.isMatch(LevenshteinAutomaton.START)) {
+			best = automaton.distance(LevenshteinAutomaton.START);
+		}
+		fuzzySearch(root, LevenshteinAutomaton.START, best, prefix, automaton, new StringBuilder(), found);
+		return found;
+	}
+
+	// best is the distance of the closest prefix read so far, only kept for prefix searches
+	private void fuzzySearch(Node current, int state, int best, boolean prefix, LevenshteinAutomaton automaton,
+			StringBuilder path, List<Neighbor<String>> found) {
+		if (current == null) {
+			return;
+		}
+		fuzzySearch(current.left, state, best, prefix, automaton, path, found);
+
+		int limit = automaton.getMaxDistance();
+		int next = automaton.step(state, current.letter);
+		int nextBest = prefix && automaton.isMatch(next) ? Math.min(best, automaton.distance(next)) : best;
+		if (next != LevenshteinAutomaton.DEAD || (prefix && nextBest <= limit)) {
+			path.append(current.letter);
+			if (current.wordFlag) {
+				int distance = prefix ? nextBest : automaton.distance(next);
+				if (distance <= limit) {
+					found.add(new Neighbor<>(path.toString(), distance));
+				}
+			}
+			fuzzySearch(current.equal, next, nextBest, prefix, automaton, path, found);
+			path.setLength(path.length() - 1);
+		}
+
+		fuzzySearch(current.right, state, best, prefix, automaton, path, found);
+	}
+
 	public void printAllWords() {
 		printAllWords(root, "");
 	}